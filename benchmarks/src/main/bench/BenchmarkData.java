@@ -0,0 +1,66 @@
+package main.bench;
+
+import main.comm.Telemetry;
+import main.comm.TelemetryFrame;
+import main.path.Waypoint;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic inputs shared by the benchmarks, so runs stay comparable across versions
+final class BenchmarkData {
+    private BenchmarkData() {}
+
+    // A random walk inside the 300-unit arena, like a hand-drawn survey path
+    static List<Waypoint> waypoints(int count, long seed) {
+        Random random = new Random(seed);
+        List<Waypoint> result = new ArrayList<>(count);
+        double x = 0, y = 0, z = 0;
+        for (int i = 0; i < count; i++) {
+            x = clamp(x + random.nextGaussian() * 20);
+            y = clamp(y + random.nextGaussian() * 5);
+            z = clamp(z + random.nextGaussian() * 20);
+            result.add(new Waypoint(x, y, z));
+        }
+        return result;
+    }
+
+    // One second of newline-delimited JSON telemetry at the given message rate
+    static byte[] telemetryLines(int messages, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < messages; i++) {
+            sb.append("{\"lat\":").append(47.6 + random.nextDouble() * 0.01)
+                    .append(",\"lon\":").append(-122.3 + random.nextDouble() * 0.01)
+                    .append(",\"alt\":").append(Math.round(random.nextDouble() * 1200) / 10.0)
+                    .append(",\"heading\":").append(random.nextInt(360))
+                    .append("}\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // The same second of telemetry as binary TelemetryFrame frames
+    static byte[] telemetryFrames(int messages, long seed) {
+        Random random = new Random(seed);
+        ByteBuffer out = ByteBuffer.allocate(messages * TelemetryFrame.MAX_FRAME);
+        Telemetry t = new Telemetry();
+        for (int i = 0; i < messages; i++) {
+            t.timeMillis = i * 1000L / messages;
+            t.lat = 47.6 + random.nextDouble() * 0.01;
+            t.lon = -122.3 + random.nextDouble() * 0.01;
+            t.alt = Math.round(random.nextDouble() * 1200) / 10.0;
+            t.heading = random.nextInt(360);
+            TelemetryFrame.writeTelemetry(out, t);
+        }
+        byte[] result = new byte[out.position()];
+        out.flip().get(result);
+        return result;
+    }
+
+    private static double clamp(double v) {
+        return Math.max(-150, Math.min(150, v));
+    }
+}
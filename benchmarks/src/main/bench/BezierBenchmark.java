@@ -0,0 +1,42 @@
+package main.bench;
+
+import main.path.BezierCurve;
+import main.path.PathSamples;
+import main.path.Waypoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// BezierCurve is a single curve over all control points, so its cost grows with the
+// degree; degrees above 30 take the de Casteljau path.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BezierBenchmark {
+    @Param({"4", "10", "30", "100", "1000"})
+    public int controlPoints;
+
+    private BezierCurve curve;
+    private final PathSamples samples = new PathSamples();
+
+    @Setup
+    public void setup() {
+        List<Waypoint> points = BenchmarkData.waypoints(controlPoints, 7);
+        curve = new BezierCurve(points);
+    }
+
+    @Benchmark
+    public List<Waypoint> interpolatedPoints() {
+        return curve.getInterpolatedPoints();
+    }
+
+    @Benchmark
+    public PathSamples sampleInto() {
+        curve.sample(101, samples);
+        return samples;
+    }
+}
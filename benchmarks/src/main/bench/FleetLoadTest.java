@@ -0,0 +1,108 @@
+package main.bench;
+
+import main.comm.FleetManager;
+import main.comm.LinkProfile;
+import main.comm.LoopbackTransport;
+import main.comm.SimulatedAircraft;
+import main.comm.TelemetryProtocol;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Many SimulatedAircraft, each on its own modelled serial line, streaming into one
+// FleetManager. Reports the sustained rate, latency percentiles from the aircraft's
+// timestamp to the fleet listener, how many samples each vehicle's mailbox got, and
+// the CPU time of the fleet thread. Like LinkLoadTest, not a JMH benchmark.
+//
+//   java -cp target/benchmarks.jar main.bench.FleetLoadTest [vehicles=20] [rate=50]
+//        [seconds=10] [baud=115200] [latency=5] [protocol=BINARY|JSON_LINES]
+public class FleetLoadTest {
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        int vehicles = Integer.parseInt(options.getOrDefault("vehicles", "20"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "50"));
+        double seconds = Double.parseDouble(options.getOrDefault("seconds", "10"));
+        int baud = Integer.parseInt(options.getOrDefault("baud", "115200"));
+        double latency = Double.parseDouble(options.getOrDefault("latency", "5"));
+        TelemetryProtocol protocol = TelemetryProtocol.valueOf(options.getOrDefault("protocol", "BINARY"));
+        LinkProfile profile = LinkProfile.serial(baud, latency, 0);
+
+        FleetManager fleet = new FleetManager();
+        long epoch = System.nanoTime();
+        long[] latencies = new long[(int) (vehicles * rate * seconds * 2) + 16];
+        int[] count = { 0 };
+        fleet.addListener(t -> {
+            long nowMicros = (System.nanoTime() - epoch) / 1000;
+            if (count[0] < latencies.length) latencies[count[0]++] = nowMicros - t.timeMillis;
+        });
+        SimulatedAircraft[] aircraft = new SimulatedAircraft[vehicles];
+        for (int i = 0; i < vehicles; i++) {
+            LoopbackTransport[] ends = LoopbackTransport.pair(profile, 42 + 2L * i);
+            aircraft[i] = new SimulatedAircraft(ends[1], protocol, rate);
+            aircraft[i].setVehicleId(i + 1);
+            aircraft[i].setClock(() -> (System.nanoTime() - epoch) / 1000);
+            fleet.add(ends[0], protocol);
+        }
+        for (SimulatedAircraft a : aircraft) a.start();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long fleetThread = fleetThreadId();
+        long cpuBefore = threads.getThreadCpuTime(fleetThread);
+        long start = System.nanoTime();
+        Thread.sleep((long) (seconds * 1000));
+        // Closing an aircraft unplugs its link, and the fleet forgets its vehicle
+        List<FleetManager.Vehicle> seen = new ArrayList<>(fleet.getVehicles());
+        long sent = 0;
+        for (SimulatedAircraft a : aircraft) {
+            a.close();
+            sent += a.getTelemetrySent();
+        }
+        Thread.sleep((long) (latency + 500));
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long cpu = threads.getThreadCpuTime(fleetThread) - cpuBefore;
+
+        long minPerVehicle = Long.MAX_VALUE, maxPerVehicle = 0;
+        for (FleetManager.Vehicle v : seen) {
+            minPerVehicle = Math.min(minPerVehicle, v.mailbox.getPublished());
+            maxPerVehicle = Math.max(maxPerVehicle, v.mailbox.getPublished());
+        }
+        fleet.close();
+        fleet.join(1000);
+
+        int received = count[0];
+        long[] sorted = Arrays.copyOf(latencies, received);
+        Arrays.sort(sorted);
+        System.out.printf(Locale.ROOT, "%s vehicles=%d rate=%.0f baud=%d latency=%.1fms seconds=%.0f%n",
+                protocol, vehicles, rate, baud, latency, seconds);
+        System.out.printf(Locale.ROOT, "sent %d, received %d (%.2f%% lost), %.1f msg/s%n",
+                sent, received, sent == 0 ? 0 : 100.0 * (sent - received) / sent, received / elapsed);
+        System.out.printf(Locale.ROOT, "vehicles seen %d, samples per vehicle %d-%d%n",
+                seen.size(), seen.isEmpty() ? 0 : minPerVehicle, maxPerVehicle);
+        System.out.printf(Locale.ROOT, "latency ms p50 %.2f p90 %.2f p99 %.2f max %.2f%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        System.out.printf(Locale.ROOT, "fleet-rx thread CPU %.1f%%%n", cpu < 0 ? Double.NaN : 100.0 * cpu / 1e9 / elapsed);
+    }
+
+    private static long fleetThreadId() {
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals("fleet-rx")) return t.threadId();
+        }
+        return -1;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return Double.NaN;
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+}
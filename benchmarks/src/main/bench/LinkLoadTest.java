@@ -0,0 +1,91 @@
+package main.bench;
+
+import main.comm.LinkProfile;
+import main.comm.LoopbackTransport;
+import main.comm.SerialReceiver;
+import main.comm.SimulatedAircraft;
+import main.comm.TelemetryProtocol;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// End-to-end telemetry load test over LoopbackTransport: a SimulatedAircraft
+// streams at a fixed rate through a modelled serial line into a SerialReceiver,
+// and every sample's latency is recorded from the aircraft's timestamp to the
+// receiver's listener. Not a JMH benchmark, since the interesting numbers are
+// latency percentiles and sustained rate rather than ops/s.
+//
+//   java -cp target/benchmarks.jar main.bench.LinkLoadTest [rate=100] [seconds=10]
+//        [baud=115200] [latency=5] [errors=0] [protocol=BINARY|JSON_LINES]
+//
+// Without rate= it sweeps 50, 100, 500 and 1000 Hz for both protocols.
+public class LinkLoadTest {
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        double seconds = Double.parseDouble(options.getOrDefault("seconds", "10"));
+        int baud = Integer.parseInt(options.getOrDefault("baud", "115200"));
+        double latency = Double.parseDouble(options.getOrDefault("latency", "5"));
+        double errors = Double.parseDouble(options.getOrDefault("errors", "0"));
+        LinkProfile profile = LinkProfile.serial(baud, latency, errors);
+
+        System.out.printf(Locale.ROOT, "baud=%d latency=%.1fms errors=%.1e seconds=%.0f%n", baud, latency, errors, seconds);
+        System.out.printf(Locale.ROOT, "%-10s %6s %8s %8s %7s %9s %8s %8s %8s %8s %8s%n",
+                "protocol", "rate", "sent", "recv", "lost%", "msg/s", "p50ms", "p90ms", "p99ms", "p99.9ms", "maxms");
+        if (options.containsKey("rate")) {
+            TelemetryProtocol protocol = TelemetryProtocol.valueOf(options.getOrDefault("protocol", "BINARY"));
+            run(protocol, Double.parseDouble(options.get("rate")), seconds, profile);
+        } else {
+            for (TelemetryProtocol protocol : TelemetryProtocol.values()) {
+                for (double rate : new double[] { 50, 100, 500, 1000 }) {
+                    run(protocol, rate, seconds, profile);
+                }
+            }
+        }
+    }
+
+    private static void run(TelemetryProtocol protocol, double rate, double seconds, LinkProfile profile) throws Exception {
+        LoopbackTransport[] ends = LoopbackTransport.pair(profile, 42);
+        long epoch = System.nanoTime();
+        // Timestamps in microseconds since epoch; the binary frame keeps 32 bits, about 71 minutes
+        SimulatedAircraft aircraft = new SimulatedAircraft(ends[1], protocol, rate);
+        aircraft.setClock(() -> (System.nanoTime() - epoch) / 1000);
+        SerialReceiver receiver = new SerialReceiver(ends[0], protocol);
+        long[] latencies = new long[(int) (rate * seconds * 2) + 16];
+        int[] count = { 0 };
+        receiver.addListener(t -> {
+            long nowMicros = (System.nanoTime() - epoch) / 1000;
+            if (count[0] < latencies.length) latencies[count[0]++] = nowMicros - t.timeMillis;
+        });
+        receiver.start();
+        aircraft.start();
+        long start = System.nanoTime();
+        Thread.sleep((long) (seconds * 1000));
+        aircraft.close();
+        long sent = aircraft.getTelemetrySent();
+        // Let whatever is still on the line arrive; a saturated line holds a few KB
+        Thread.sleep((long) (profile.latencyMillis + 1000));
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        receiver.close();
+        receiver.join(1000);
+
+        int received = count[0];
+        long[] sorted = Arrays.copyOf(latencies, received);
+        Arrays.sort(sorted);
+        System.out.printf(Locale.ROOT, "%-10s %6.0f %8d %8d %7.2f %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                protocol, rate, sent, received, sent == 0 ? 0 : 100.0 * (sent - received) / sent, received / elapsed,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), percentile(sorted, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return Double.NaN;
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+}
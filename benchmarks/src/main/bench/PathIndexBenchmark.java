@@ -0,0 +1,68 @@
+package main.bench;
+
+import main.path.CatmullRomSpline;
+import main.path.PathIndex;
+import main.path.PathSamples;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Closest-point-on-path queries as made for every telemetry sample when measuring
+// cross-track error, against the spline samples of a planned path. Query points
+// sit within a few metres of the path, like an aircraft trying to follow it.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathIndexBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int waypointCount;
+
+    private PathSamples samples;
+    private final PathIndex index = new PathIndex();
+    private final PathIndex.Hit hit = new PathIndex.Hit();
+    private final double[] queries = new double[QUERIES * 3];
+    private int next;
+
+    @Setup
+    public void setup() {
+        CatmullRomSpline spline = new CatmullRomSpline(40);
+        spline.setControlPoints(BenchmarkData.waypoints(waypointCount, 42));
+        spline.update();
+        samples = spline.getSamples();
+        index.build(samples);
+        Random random = new Random(7);
+        for (int q = 0; q < QUERIES; q++) {
+            int i = random.nextInt(samples.size);
+            queries[q * 3] = samples.x[i] + random.nextGaussian() * 5;
+            queries[q * 3 + 1] = samples.y[i] + random.nextGaussian() * 5;
+            queries[q * 3 + 2] = samples.z[i] + random.nextGaussian() * 5;
+        }
+    }
+
+    @Benchmark
+    public double indexed() {
+        int q = next++ & (QUERIES - 1);
+        index.closest(queries[q * 3], queries[q * 3 + 1], queries[q * 3 + 2], hit);
+        return hit.distance;
+    }
+
+    @Benchmark
+    public double linearScan() {
+        int q = next++ & (QUERIES - 1);
+        index.closestLinear(queries[q * 3], queries[q * 3 + 1], queries[q * 3 + 2], hit);
+        return hit.distance;
+    }
+
+    // Paid on every path edit
+    @Benchmark
+    public PathIndex rebuild() {
+        index.build(samples);
+        return index;
+    }
+}
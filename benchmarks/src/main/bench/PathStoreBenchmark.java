@@ -0,0 +1,63 @@
+package main.bench;
+
+import main.path.PathStore;
+import main.path.Waypoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The Gson save/load behind Visualizer3D.savePathsToDisk() and loadPathsFromDisk()
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathStoreBenchmark {
+    private static final int PATHS = 4;
+
+    @Param({"10", "1000", "100000"})
+    public int waypointsPerPath;
+
+    private final PathStore store = new PathStore();
+    private Map<String, List<Waypoint>> paths;
+    private String json;
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        paths = new HashMap<>();
+        for (int i = 0; i < PATHS; i++) {
+            paths.put("Path " + (i + 1), BenchmarkData.waypoints(waypointsPerPath, i));
+        }
+        json = store.toJson(paths);
+        file = Files.createTempFile("pathplanner-bench", ".json");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return store.toJson(paths);
+    }
+
+    @Benchmark
+    public Map<String, List<Waypoint>> deserialize() {
+        return store.fromJson(json);
+    }
+
+    @Benchmark
+    public Map<String, List<Waypoint>> saveAndLoad() throws IOException {
+        store.save(file, paths);
+        return store.load(file);
+    }
+}
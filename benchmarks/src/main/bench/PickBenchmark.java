@@ -0,0 +1,53 @@
+package main.bench;
+
+import main.path.Waypoint;
+import main.path.WaypointIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Picking a waypoint of a lawnmower survey pattern (rows of waypoints 3 m apart
+// over the arena) with the mouse, as WaypointLayer does it.
+//  build   - indexing every waypoint, done once after the path changes
+//  raycast - one pick, from a camera 800 m out through a random point of the arena
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PickBenchmark {
+    @Param({"1000", "10000"})
+    public int waypoints;
+
+    private final List<Waypoint> survey = new ArrayList<>();
+    private final WaypointIndex index = new WaypointIndex();
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setup() {
+        int rows = (int) Math.sqrt(waypoints);
+        for (int i = 0; i < waypoints; i++) {
+            int row = i / rows, col = i % rows;
+            // Alternate rows run back the other way
+            if (row % 2 == 1) col = rows - 1 - col;
+            survey.add(new Waypoint(-150 + col * 3.0, -30, -150 + row * 3.0));
+        }
+        index.build(survey, 2.5);
+    }
+
+    @Benchmark
+    public WaypointIndex build() {
+        index.build(survey, 2.5);
+        return index;
+    }
+
+    @Benchmark
+    public int raycast() {
+        double tx = random.nextDouble() * 300 - 150, tz = random.nextDouble() * 300 - 150;
+        return index.raycast(0, -400, 700, tx, -30 + 400, tz - 700);
+    }
+}
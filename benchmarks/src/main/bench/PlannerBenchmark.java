@@ -0,0 +1,74 @@
+package main.bench;
+
+import main.path.BoxObstacle;
+import main.path.CylinderObstacle;
+import main.path.Obstacle;
+import main.path.ObstacleMap;
+import main.path.PlannerSettings;
+import main.path.VoxelPlanner;
+import main.path.Waypoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// One start-to-goal plan across the arena on a 1000^3 grid (resolution 0.3):
+//  wall   - a wall across most of the arena plus a tower and a no-fly zone, so the
+//           route has to go around the wall's end
+//  slit   - a wall across the whole arena with one 6 m slot in it
+//  forest - 200 random trees between opposite corners of the arena
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlannerBenchmark {
+    @Param({"wall", "slit", "forest"})
+    public String scene;
+
+    @Param({"0.3"})
+    public double resolution;
+
+    private VoxelPlanner planner;
+    private Waypoint start, goal;
+
+    @Setup
+    public void setup() {
+        List<Obstacle> obstacles = new ArrayList<>();
+        double clearance = 2;
+        start = new Waypoint(-100, 0, -120);
+        goal = new Waypoint(-100, 20, 120);
+        switch (scene) {
+            case "wall":
+                obstacles.add(new BoxObstacle(-150, -150, -5, 120, 150, 5));
+                obstacles.add(new CylinderObstacle(-60, 60, 20, -100, 150));
+                obstacles.add(CylinderObstacle.noFlyZone(50, -60, 25));
+                break;
+            case "slit":
+                obstacles.add(new BoxObstacle(-150, -150, -5, -3, 150, 5));
+                obstacles.add(new BoxObstacle(3, -150, -5, 150, 150, 5));
+                clearance = 1;
+                break;
+            default:
+                Random random = new Random(5);
+                for (int i = 0; i < 200; i++) {
+                    obstacles.add(new CylinderObstacle(random.nextDouble() * 260 - 130, random.nextDouble() * 260 - 130,
+                            3 + random.nextDouble() * 6, -150 + random.nextDouble() * 200, 150));
+                }
+                start = new Waypoint(-140, -100, -140);
+                goal = new Waypoint(140, 100, 140);
+                break;
+        }
+        PlannerSettings settings = new PlannerSettings();
+        settings.resolution = resolution;
+        planner = new VoxelPlanner(new ObstacleMap(obstacles, 150, clearance), settings);
+    }
+
+    @Benchmark
+    public List<Waypoint> plan() throws InterruptedException {
+        return planner.plan(start, goal);
+    }
+}
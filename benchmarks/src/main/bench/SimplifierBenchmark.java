@@ -0,0 +1,49 @@
+package main.bench;
+
+import main.path.CatmullRomSpline;
+import main.path.PathSamples;
+import main.path.PathSimplifier;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Thinning a densely sampled path before upload: a 2000-waypoint Catmull-Rom spline
+// at 500 steps per segment, about a million samples.
+//  douglasPeucker - down to the given tolerance
+//  visvalingam    - down to as many points as douglasPeucker kept at that tolerance
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimplifierBenchmark {
+    @Param({"0.05", "0.25", "1.0"})
+    public double tolerance;
+
+    private PathSamples dense;
+    private int budget;
+    private final PathSimplifier simplifier = new PathSimplifier();
+    private final PathSamples out = new PathSamples();
+
+    @Setup
+    public void setup() {
+        CatmullRomSpline spline = new CatmullRomSpline(500);
+        spline.setControlPoints(BenchmarkData.waypoints(2000, 42));
+        spline.update();
+        dense = spline.getSamples();
+        budget = simplifier.douglasPeucker(dense, tolerance, out);
+    }
+
+    @Benchmark
+    public PathSamples douglasPeucker() {
+        simplifier.douglasPeucker(dense, tolerance, out);
+        return out;
+    }
+
+    @Benchmark
+    public PathSamples visvalingam() {
+        simplifier.visvalingam(dense, budget, out);
+        return out;
+    }
+}
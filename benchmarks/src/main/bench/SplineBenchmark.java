@@ -0,0 +1,70 @@
+package main.bench;
+
+import main.path.CatmullRomSpline;
+import main.path.PathSamples;
+import main.path.Waypoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Catmull-Rom path generation as done by Visualizer3D.generatePath() (full rebuild,
+// fixed or adaptive steps) and by waypoint drags (single control point edit).
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SplineBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int waypointCount;
+
+    private List<Waypoint> waypoints;
+    private CatmullRomSpline spline;
+    private CatmullRomSpline adaptiveSpline;
+    private final PathSamples samples = new PathSamples();
+    private int editIndex;
+
+    @Setup
+    public void setup() {
+        waypoints = BenchmarkData.waypoints(waypointCount, 42);
+        spline = new CatmullRomSpline(40);
+        spline.setControlPoints(waypoints);
+        spline.update();
+        adaptiveSpline = new CatmullRomSpline(0.25, 40);
+        adaptiveSpline.setControlPoints(waypoints);
+        adaptiveSpline.update();
+    }
+
+    @Benchmark
+    public PathSamples fullRebuild() {
+        spline.setControlPoints(waypoints);
+        spline.update();
+        return spline.getSamples();
+    }
+
+    @Benchmark
+    public PathSamples adaptiveRebuild() {
+        adaptiveSpline.setControlPoints(waypoints);
+        adaptiveSpline.update();
+        return adaptiveSpline.getSamples();
+    }
+
+    @Benchmark
+    public PathSamples localEdit() {
+        editIndex = (editIndex + 1) % waypointCount;
+        Waypoint wp = waypoints.get(editIndex);
+        spline.setControlPoint(editIndex, wp.x + 1, wp.y, wp.z);
+        spline.update();
+        spline.setControlPoint(editIndex, wp.x, wp.y, wp.z);
+        spline.update();
+        return spline.getSamples();
+    }
+
+    @Benchmark
+    public PathSamples resample100k() {
+        spline.sample(100_000, samples);
+        return samples;
+    }
+}
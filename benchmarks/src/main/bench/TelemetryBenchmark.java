@@ -0,0 +1,59 @@
+package main.bench;
+
+import main.comm.BinaryTelemetryDecoder;
+import main.comm.JsonTelemetryDecoder;
+import main.comm.TelemetryDecoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// Decodes one second of telemetry per operation, delivered in serial-sized reads,
+// so a score above 1 op/s means the decoder keeps up with that message rate.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TelemetryBenchmark {
+    private static final int READ_SIZE = 64;
+
+    @Param({"10", "50", "100", "1000", "5000"})
+    public int messagesPerSecond;
+
+    private byte[] lines;
+    private byte[] frames;
+    private final byte[] readBuffer = new byte[READ_SIZE];
+    private final ByteBuffer view = ByteBuffer.wrap(readBuffer);
+    private JsonTelemetryDecoder jsonDecoder;
+    private BinaryTelemetryDecoder binaryDecoder;
+
+    @Setup
+    public void setup(Blackhole bh) {
+        lines = BenchmarkData.telemetryLines(messagesPerSecond, 3);
+        frames = BenchmarkData.telemetryFrames(messagesPerSecond, 3);
+        jsonDecoder = new JsonTelemetryDecoder(t -> bh.consume(t.lat));
+        binaryDecoder = new BinaryTelemetryDecoder(t -> bh.consume(t.lat));
+    }
+
+    @Benchmark
+    public void jsonLines() {
+        feed(lines, jsonDecoder);
+    }
+
+    @Benchmark
+    public void binaryFrames() {
+        feed(frames, binaryDecoder);
+    }
+
+    private void feed(byte[] stream, TelemetryDecoder decoder) {
+        for (int off = 0; off < stream.length; off += READ_SIZE) {
+            int len = Math.min(READ_SIZE, stream.length - off);
+            System.arraycopy(stream, off, readBuffer, 0, len);
+            view.clear().limit(len);
+            decoder.decode(view);
+        }
+    }
+}
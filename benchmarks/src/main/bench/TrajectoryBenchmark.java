@@ -0,0 +1,45 @@
+package main.bench;
+
+import main.path.AircraftLimits;
+import main.path.Trajectory;
+import main.path.TrajectoryGenerator;
+import main.path.Waypoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// A full flyable-trajectory rebuild, as PathPipeline does on every edit while
+// "Flyable path" is ticked, at the default aircraft limits and path tolerance.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrajectoryBenchmark {
+    @Param({"10", "100", "500", "2000"})
+    public int waypointCount;
+
+    private double[] points;
+    private TrajectoryGenerator generator;
+    private final Trajectory trajectory = new Trajectory();
+
+    @Setup
+    public void setup() {
+        List<Waypoint> waypoints = BenchmarkData.waypoints(waypointCount, 42);
+        points = new double[waypointCount * 3];
+        for (int i = 0; i < waypointCount; i++) {
+            points[i * 3] = waypoints.get(i).x;
+            points[i * 3 + 1] = waypoints.get(i).y;
+            points[i * 3 + 2] = waypoints.get(i).z;
+        }
+        generator = new TrajectoryGenerator(new AircraftLimits());
+    }
+
+    @Benchmark
+    public Trajectory generate() {
+        generator.generate(points, waypointCount, trajectory);
+        return trajectory;
+    }
+}
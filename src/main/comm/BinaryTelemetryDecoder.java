@@ -0,0 +1,88 @@
+package main.comm;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Decodes TelemetryFrame frames straight out of a ByteBuffer into a reused
+// Telemetry, so steady-state decoding allocates nothing. A bad CRC or a bogus
+// header drops one byte and hunts for the next sync pair.
+public class BinaryTelemetryDecoder implements TelemetryDecoder {
+    private final ByteBuffer buf = ByteBuffer.allocate(TelemetryFrame.MAX_FRAME * 4).order(ByteOrder.LITTLE_ENDIAN);
+    private final Telemetry telemetry = new Telemetry();
+    private final TelemetryListener listener;
+    private FrameListener frameListener;
+
+    private long frames;
+    private long crcErrors;
+    private long droppedBytes;
+
+    public BinaryTelemetryDecoder(TelemetryListener listener) {
+        this.listener = listener;
+    }
+
+    // Gets every valid frame that isn't telemetry
+    public void setFrameListener(FrameListener frameListener) {
+        this.frameListener = frameListener;
+    }
+
+    @Override
+    public void decode(ByteBuffer in) {
+        while (in.hasRemaining()) {
+            int n = Math.min(in.remaining(), buf.remaining());
+            int limit = in.limit();
+            in.limit(in.position() + n);
+            buf.put(in);
+            in.limit(limit);
+            buf.flip();
+            parseFrames();
+            buf.compact();
+        }
+    }
+
+    private void parseFrames() {
+        while (buf.remaining() >= TelemetryFrame.HEADER_SIZE + TelemetryFrame.CRC_SIZE) {
+            int start = buf.position();
+            if (buf.get(start) != TelemetryFrame.SYNC1 || buf.get(start + 1) != TelemetryFrame.SYNC2) {
+                buf.position(start + 1);
+                droppedBytes++;
+                continue;
+            }
+            int length = buf.get(start + 2) & 0xFF;
+            int frameSize = TelemetryFrame.HEADER_SIZE + length + TelemetryFrame.CRC_SIZE;
+            if (buf.remaining() < frameSize) return; // wait for the rest
+            int crcAt = start + TelemetryFrame.HEADER_SIZE + length;
+            int expected = (buf.get(crcAt) & 0xFF) | (buf.get(crcAt + 1) & 0xFF) << 8;
+            if (TelemetryFrame.crc16(buf, start + 2, crcAt) != expected) {
+                crcErrors++;
+                droppedBytes++;
+                buf.position(start + 1);
+                continue;
+            }
+            dispatch(buf.get(start + 3) & 0xFF, buf.get(start + 4) & 0xFF, start + TelemetryFrame.HEADER_SIZE, length);
+            buf.position(start + frameSize);
+            frames++;
+        }
+    }
+
+    private void dispatch(int messageId, int vehicleId, int payload, int length) {
+        if (messageId == TelemetryFrame.MSG_TELEMETRY && length >= TelemetryFrame.TELEMETRY_PAYLOAD) {
+            telemetry.vehicleId = vehicleId;
+            TelemetryFrame.readTelemetry(buf, payload, telemetry);
+            listener.onTelemetry(telemetry);
+        } else if (frameListener != null) {
+            frameListener.onFrame(messageId, vehicleId, buf, payload, length);
+        }
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getCrcErrors() {
+        return crcErrors;
+    }
+
+    public long getDroppedBytes() {
+        return droppedBytes;
+    }
+}
@@ -0,0 +1,179 @@
+package main.comm;
+
+import main.metrics.Metrics;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+// Receives telemetry from many links at once and keeps the newest sample of every
+// vehicle on them. A SerialReceiver spends a thread per port blocked in read();
+// here one "fleet-rx" thread sweeps all the links, reads only what has already
+// arrived (Transport.available()) and parks for a millisecond when a sweep finds
+// nothing, so 20 links at 50 Hz cost one thread instead of 20.
+//
+// Samples are routed by link and vehicle id to a Vehicle, whose TelemetryMailbox
+// the FX thread polls once per frame. Vehicle ids are a byte on BINARY links, so
+// JSON ids are taken modulo 256 as well. getVehicles() may be iterated from any
+// thread; vehicles of a removed link drop out of it on the next sweep.
+public class FleetManager {
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    private static final int MAX_VEHICLES_PER_LINK = 256;
+
+    public static class Vehicle {
+        public final String link;
+        public final int id;
+        public final TelemetryMailbox mailbox = new TelemetryMailbox();
+        final Link owner;
+
+        Vehicle(Link owner, int id) {
+            this.owner = owner;
+            this.link = owner.transport.getName();
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return link + "#" + id;
+        }
+    }
+
+    private class Link implements TelemetryListener {
+        final Transport transport;
+        final TelemetryDecoder decoder;
+        final Vehicle[] vehicles = new Vehicle[MAX_VEHICLES_PER_LINK];
+        volatile boolean removed;
+
+        Link(Transport transport, TelemetryProtocol protocol) {
+            this.transport = transport;
+            decoder = protocol == TelemetryProtocol.BINARY
+                    ? new BinaryTelemetryDecoder(this) : new JsonTelemetryDecoder(this);
+        }
+
+        @Override
+        public void onTelemetry(Telemetry telemetry) {
+            int key = telemetry.vehicleId & (MAX_VEHICLES_PER_LINK - 1);
+            Vehicle vehicle = vehicles[key];
+            if (vehicle == null) {
+                vehicle = new Vehicle(this, telemetry.vehicleId);
+                vehicles[key] = vehicle;
+                FleetManager.this.vehicles.add(vehicle);
+            }
+            vehicle.mailbox.onTelemetry(telemetry);
+            for (TelemetryListener listener : listeners) {
+                listener.onTelemetry(telemetry);
+            }
+            messages++;
+        }
+    }
+
+    private final List<Link> links = new CopyOnWriteArrayList<>();
+    private final List<Vehicle> vehicles = new CopyOnWriteArrayList<>();
+    private final List<TelemetryListener> listeners = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile long messages;
+
+    public FleetManager() {
+        thread = new Thread(this::run, "fleet-rx");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Starts receiving from transport; false if it isn't open
+    public boolean add(Transport transport, TelemetryProtocol protocol) {
+        if (!transport.isOpen()) return false;
+        links.add(new Link(transport, protocol));
+        LockSupport.unpark(thread);
+        return true;
+    }
+
+    public boolean addPort(String portName, int baudRate, TelemetryProtocol protocol) {
+        SerialPortTransport transport = new SerialPortTransport(portName, baudRate);
+        if (add(transport, protocol)) return true;
+        transport.close();
+        return false;
+    }
+
+    // Closes every link; their vehicles are forgotten
+    public void removeAll() {
+        for (Link link : links) link.removed = true;
+        LockSupport.unpark(thread);
+    }
+
+    // Gets every sample from every link, on the fleet thread
+    public void addListener(TelemetryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TelemetryListener listener) {
+        listeners.remove(listener);
+    }
+
+    public List<Vehicle> getVehicles() {
+        return vehicles;
+    }
+
+    public int getLinkCount() {
+        return links.size();
+    }
+
+    // Telemetry samples received on all links so far
+    public long getMessages() {
+        return messages;
+    }
+
+    public void close() {
+        running = false;
+        removeAll();
+        LockSupport.unpark(thread);
+    }
+
+    // Waits for the fleet thread to close the links after close()
+    public void join(long millis) throws InterruptedException {
+        thread.join(millis);
+    }
+
+    private void run() {
+        byte[] buffer = new byte[4096];
+        ByteBuffer view = ByteBuffer.wrap(buffer);
+        try {
+            while (running) {
+                boolean idle = true;
+                for (Link link : links) {
+                    if (link.removed) {
+                        drop(link);
+                        continue;
+                    }
+                    try {
+                        int available = link.transport.available();
+                        if (available == 0) continue;
+                        int n = available < 0 ? -1 : link.transport.read(buffer, 0, Math.min(available, buffer.length));
+                        if (n < 0) {
+                            drop(link); // unplugged
+                        } else if (n > 0) {
+                            long start = System.nanoTime();
+                            view.clear().limit(n);
+                            link.decoder.decode(view);
+                            Metrics.TELEMETRY_DECODE.recordSince(start);
+                            idle = false;
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        drop(link);
+                    }
+                }
+                if (idle) LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        } finally {
+            for (Link link : links) drop(link);
+        }
+    }
+
+    private void drop(Link link) {
+        links.remove(link);
+        vehicles.removeIf(v -> v.owner == link);
+        link.transport.close();
+    }
+}
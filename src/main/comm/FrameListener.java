@@ -0,0 +1,9 @@
+package main.comm;
+
+import java.nio.ByteBuffer;
+
+// Receives binary frames other than telemetry (acks, mission traffic) on the
+// decoding thread. The payload is only valid during the call.
+public interface FrameListener {
+    void onFrame(int messageId, int vehicleId, ByteBuffer frame, int payloadOffset, int payloadLength);
+}
@@ -0,0 +1,320 @@
+package main.comm;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Splits raw link bytes into newline-delimited JSON messages and pulls the known
+// telemetry keys straight out of the line bytes into a reused Telemetry, so a
+// telemetry line allocates nothing. Unknown keys are skipped. A line is telemetry
+// if it has both "lat" and "lon", or says "type":"telemetry"; anything else (an
+// ack that happens to carry an "id" or "time", say), lines with another "type",
+// and lines the scanner can't follow go to the Gson tree parser and the raw
+// listener instead. A line longer than MAX_LINE (line noise, or a binary stream on
+// a port set to JSON) is thrown away up to the next newline, so the buffer never
+// grows past it. Has no dependency on the port or the UI, so it can be fed from
+// tests and benchmarks.
+public class JsonTelemetryDecoder implements TelemetryDecoder {
+    private static final byte[][] KEYS = {
+            ascii("lat"), ascii("lon"), ascii("alt"), ascii("heading"), ascii("roll"),
+            ascii("pitch"), ascii("speed"), ascii("time"), ascii("id"), ascii("type")
+    };
+    private static final int LAT = 0, LON = 1, ALT = 2, HEADING = 3, ROLL = 4;
+    private static final int PITCH = 5, SPEED = 6, TIME = 7, ID = 8, TYPE = 9;
+    private static final byte[] TELEMETRY_TYPE = ascii("telemetry");
+    private static final byte[] NULL = ascii("null");
+    static final int MAX_LINE = 4096;
+    // Powers of ten that are exact doubles; m * 10^k with m < 2^53 is then correctly rounded.
+    // Up to 18 digits m fits a long but rounds once more on conversion, so the result may be
+    // 1 ulp off, far below telemetry precision. Longer numbers go to Double.parseDouble.
+    private static final double[] POW10 = new double[23];
+    private static final int MAX_FAST_DIGITS = 18;
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final Telemetry telemetry = new Telemetry();
+    private final TelemetryListener listener;
+    private Consumer<JsonObject> rawListener;
+    private byte[] line = new byte[256];
+    private int lineLength;
+    // Set while skipping the rest of an overlong line
+    private boolean discarding;
+    private long discardedLines;
+
+    // Scanner state for the current line
+    private int pos;
+    private int end;
+    private double number;
+
+    public JsonTelemetryDecoder(TelemetryListener listener) {
+        this.listener = listener;
+    }
+
+    // Receives the messages that aren't telemetry, parsed as a Gson tree
+    public void setRawListener(Consumer<JsonObject> out) {
+        this.rawListener = out;
+    }
+
+    @Override
+    public void decode(ByteBuffer in) {
+        while (in.hasRemaining()) {
+            byte b = in.get();
+            if (b == '\n') {
+                if (!discarding) parseLine();
+                discarding = false;
+                lineLength = 0;
+            } else if (!discarding) {
+                if (lineLength == MAX_LINE) {
+                    // Resync at the next newline
+                    discarding = true;
+                    discardedLines++;
+                    lineLength = 0;
+                    continue;
+                }
+                if (lineLength == line.length) {
+                    line = Arrays.copyOf(line, Math.min(line.length * 2, MAX_LINE));
+                }
+                line[lineLength++] = b;
+            }
+        }
+    }
+
+    // Lines dropped for being longer than MAX_LINE
+    public long getDiscardedLines() {
+        return discardedLines;
+    }
+
+    private void parseLine() {
+        pos = 0;
+        end = lineLength;
+        skipWhitespace();
+        if (pos == end) return;
+        int start = pos;
+        telemetry.clear();
+        if (scanObject() > 0) {
+            listener.onTelemetry(telemetry);
+        } else {
+            parseTree(start);
+        }
+    }
+
+    private void parseTree(int start) {
+        String text = new String(line, start, lineLength - start, StandardCharsets.UTF_8);
+        try {
+            JsonObject obj = JsonParser.parseString(text).getAsJsonObject();
+            if (rawListener != null) {
+                rawListener.accept(obj);
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    // Returns the number of telemetry fields read, 0 for a message that isn't telemetry, -1 if malformed
+    private int scanObject() {
+        if (!consume('{')) return -1;
+        int fields = 0;
+        boolean lat = false, lon = false, typed = false;
+        skipWhitespace();
+        if (!consume('}')) {
+            while (true) {
+                skipWhitespace();
+                int keyStart = pos + 1;
+                if (!skipString()) return -1;
+                int key = keyIndex(keyStart, pos - 1);
+                skipWhitespace();
+                if (!consume(':')) return -1;
+                skipWhitespace();
+                if (key == TYPE) {
+                    int valueStart = pos + 1;
+                    if (!skipString()) return -1;
+                    if (!equalsAscii(TELEMETRY_TYPE, valueStart, pos - 1)) return 0;
+                    typed = true;
+                } else if (key >= 0) {
+                    if (!readNumber()) return -1;
+                    store(key, number);
+                    fields++;
+                    if (key == LAT) lat = true;
+                    if (key == LON) lon = true;
+                } else if (!skipValue()) {
+                    return -1;
+                }
+                skipWhitespace();
+                if (consume(',')) continue;
+                if (consume('}')) break;
+                return -1;
+            }
+        }
+        skipWhitespace();
+        if (pos != end) return -1;
+        return typed || lat && lon ? Math.max(fields, 1) : 0;
+    }
+
+    private void store(int key, double value) {
+        switch (key) {
+            case LAT: telemetry.lat = value; break;
+            case LON: telemetry.lon = value; break;
+            case ALT: telemetry.alt = value; break;
+            case HEADING: telemetry.heading = value; break;
+            case ROLL: telemetry.roll = value; break;
+            case PITCH: telemetry.pitch = value; break;
+            case SPEED: telemetry.airspeed = value; break;
+            case TIME: telemetry.timeMillis = Double.isNaN(value) ? 0 : (long) value; break;
+            case ID: telemetry.vehicleId = Double.isNaN(value) ? 0 : (int) value; break;
+            default: break;
+        }
+    }
+
+    // Reads a number (bare or quoted) or null into number; null reads as NaN
+    private boolean readNumber() {
+        if (end - pos >= NULL.length && equalsAscii(NULL, pos, pos + NULL.length)) {
+            pos += NULL.length;
+            number = Double.NaN;
+            return true;
+        }
+        boolean quoted = consume('"');
+        int start = pos;
+        boolean negative = consume('-');
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        int intStart = pos;
+        // Past MAX_FAST_DIGITS the mantissa is abandoned for Double.parseDouble below
+        while (pos < end && isDigit(line[pos])) {
+            byte c = line[pos++];
+            digits = accumulate(digits, c);
+            if (digits <= MAX_FAST_DIGITS) mantissa = mantissa * 10 + (c - '0');
+        }
+        if (pos == intStart) return false;
+        if (consume('.')) {
+            while (pos < end && isDigit(line[pos])) {
+                byte c = line[pos++];
+                digits = accumulate(digits, c);
+                if (digits <= MAX_FAST_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    scale--;
+                }
+            }
+        }
+        if (pos < end && (line[pos] == 'e' || line[pos] == 'E')) {
+            pos++;
+            boolean negativeExp = consume('-');
+            if (!negativeExp) consume('+');
+            int exponent = 0;
+            int expStart = pos;
+            while (pos < end && isDigit(line[pos])) {
+                exponent = Math.min(exponent * 10 + (line[pos++] - '0'), 10000);
+            }
+            if (pos == expStart) return false;
+            scale += negativeExp ? -exponent : exponent;
+        }
+        int numberEnd = pos;
+        if (quoted && !consume('"')) return false;
+        if (mantissa == 0) {
+            number = negative ? -0.0 : 0.0;
+        } else if (digits <= MAX_FAST_DIGITS && scale >= -22 && scale <= 22) {
+            number = scale >= 0 ? mantissa * POW10[scale] : mantissa / POW10[-scale];
+            if (negative) number = -number;
+        } else {
+            // Too many digits or too large an exponent to round exactly with one operation
+            number = Double.parseDouble(new String(line, start, numberEnd - start, StandardCharsets.US_ASCII));
+        }
+        return true;
+    }
+
+    // Counts significant digits, ignoring leading zeros
+    private static int accumulate(int digits, byte c) {
+        return digits == 0 && c == '0' ? 0 : digits + 1;
+    }
+
+    private boolean skipValue() {
+        if (pos >= end) return false;
+        byte c = line[pos];
+        if (c == '"') return skipString();
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            while (pos < end) {
+                c = line[pos];
+                if (c == '"') {
+                    if (!skipString()) return false;
+                    continue;
+                }
+                if (c == '{' || c == '[') depth++;
+                else if (c == '}' || c == ']') depth--;
+                pos++;
+                if (depth == 0) return true;
+            }
+            return false;
+        }
+        // Number or literal
+        int start = pos;
+        while (pos < end && line[pos] != ',' && line[pos] != '}' && line[pos] != ']' && !isWhitespace(line[pos])) {
+            pos++;
+        }
+        return pos > start;
+    }
+
+    // Expects pos on an opening quote and leaves it after the closing one
+    private boolean skipString() {
+        if (!consume('"')) return false;
+        while (pos < end) {
+            byte c = line[pos++];
+            if (c == '\\') {
+                pos++;
+            } else if (c == '"') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int keyIndex(int from, int to) {
+        for (int k = 0; k < KEYS.length; k++) {
+            if (equalsAscii(KEYS[k], from, to)) return k;
+        }
+        return -1;
+    }
+
+    private boolean equalsAscii(byte[] expected, int from, int to) {
+        if (to - from != expected.length) return false;
+        for (int i = 0; i < expected.length; i++) {
+            if (line[from + i] != expected[i]) return false;
+        }
+        return true;
+    }
+
+    private boolean consume(char c) {
+        if (pos < end && line[pos] == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && isWhitespace(line[pos])) {
+            pos++;
+        }
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
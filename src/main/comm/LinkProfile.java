@@ -0,0 +1,23 @@
+package main.comm;
+
+// Impairments a LoopbackTransport applies in each direction
+public class LinkProfile {
+    public static final LinkProfile PERFECT = new LinkProfile(0, 0, 0);
+
+    public final double latencyMillis;
+    // 0 means unlimited
+    public final double bytesPerSecond;
+    // Chance that any one byte arrives with a flipped bit
+    public final double byteErrorRate;
+
+    public LinkProfile(double latencyMillis, double bytesPerSecond, double byteErrorRate) {
+        this.latencyMillis = latencyMillis;
+        this.bytesPerSecond = bytesPerSecond;
+        this.byteErrorRate = byteErrorRate;
+    }
+
+    // A UART at baudRate with 8N1 framing moves baudRate / 10 bytes per second
+    public static LinkProfile serial(int baudRate, double latencyMillis, double byteErrorRate) {
+        return new LinkProfile(latencyMillis, baudRate / 10.0, byteErrorRate);
+    }
+}
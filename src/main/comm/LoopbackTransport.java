@@ -0,0 +1,167 @@
+package main.comm;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// In-process link for tests, load tests and the simulator: pair() returns two
+// connected ends. Each direction models a serial line with a LinkProfile: bytes are
+// clocked out at the bandwidth cap, arrive after the latency, may have bits flipped,
+// and a writer blocks once the line's buffer is full, as a real UART driver does.
+public class LoopbackTransport implements Transport {
+    private static final long READ_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final int BUFFER_BYTES = 4096;
+
+    private final String name;
+    private final Pipe in;
+    private final Pipe out;
+
+    private LoopbackTransport(String name, Pipe in, Pipe out) {
+        this.name = name;
+        this.in = in;
+        this.out = out;
+    }
+
+    public static LoopbackTransport[] pair(LinkProfile profile, long seed) {
+        Pipe up = new Pipe(profile, seed);
+        Pipe down = new Pipe(profile, seed + 1);
+        return new LoopbackTransport[] {
+                new LoopbackTransport("loopback-ground", down, up),
+                new LoopbackTransport("loopback-vehicle", up, down)
+        };
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !in.closed;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        return in.read(buffer, offset, length);
+    }
+
+    @Override
+    public int available() {
+        return in.available();
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) {
+        out.write(buffer, offset, length);
+    }
+
+    // Closes both directions, as unplugging a cable would
+    @Override
+    public void close() {
+        in.close();
+        out.close();
+    }
+
+    private static class Chunk {
+        final byte[] data;
+        final long deliverAt;
+        int position;
+
+        Chunk(byte[] data, long deliverAt) {
+            this.data = data;
+            this.deliverAt = deliverAt;
+        }
+    }
+
+    private static class Pipe {
+        private final LinkProfile profile;
+        private final Random random;
+        private final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+        private long lineFreeAt;
+        private int queuedBytes;
+        private volatile boolean closed;
+
+        Pipe(LinkProfile profile, long seed) {
+            this.profile = profile;
+            this.random = new Random(seed);
+        }
+
+        synchronized void write(byte[] buffer, int offset, int length) {
+            while (length > 0 && !closed) {
+                while (queuedBytes >= BUFFER_BYTES && !closed) {
+                    waitQuietly(READ_TIMEOUT_NANOS);
+                }
+                int n = Math.min(length, BUFFER_BYTES);
+                byte[] data = new byte[n];
+                System.arraycopy(buffer, offset, data, 0, n);
+                if (profile.byteErrorRate > 0) {
+                    for (int i = 0; i < n; i++) {
+                        if (random.nextDouble() < profile.byteErrorRate) data[i] ^= (byte) (1 << random.nextInt(8));
+                    }
+                }
+                long now = System.nanoTime();
+                long start = Math.max(now, lineFreeAt);
+                lineFreeAt = profile.bytesPerSecond > 0 ? start + (long) (n * 1e9 / profile.bytesPerSecond) : start;
+                chunks.add(new Chunk(data, lineFreeAt + (long) (profile.latencyMillis * 1e6)));
+                queuedBytes += n;
+                offset += n;
+                length -= n;
+                notifyAll();
+            }
+        }
+
+        synchronized int read(byte[] buffer, int offset, int length) {
+            long deadline = System.nanoTime() + READ_TIMEOUT_NANOS;
+            while (true) {
+                Chunk head = chunks.peek();
+                long now = System.nanoTime();
+                if (head != null && head.deliverAt <= now) break;
+                if (closed && head == null) return -1;
+                long wait = Math.min(deadline, head == null ? deadline : head.deliverAt) - now;
+                if (now >= deadline) return 0;
+                waitQuietly(Math.max(wait, 1000));
+            }
+            // Hand over every chunk that has arrived, up to length bytes
+            int total = 0;
+            long now = System.nanoTime();
+            Chunk head;
+            while (total < length && (head = chunks.peek()) != null && head.deliverAt <= now) {
+                int n = Math.min(length - total, head.data.length - head.position);
+                System.arraycopy(head.data, head.position, buffer, offset + total, n);
+                head.position += n;
+                total += n;
+                if (head.position == head.data.length) {
+                    chunks.poll();
+                    queuedBytes -= head.data.length;
+                }
+            }
+            notifyAll();
+            return total;
+        }
+
+        synchronized int available() {
+            long now = System.nanoTime();
+            int total = 0;
+            for (Chunk chunk : chunks) {
+                if (chunk.deliverAt > now) break; // chunks arrive in order
+                total += chunk.data.length - chunk.position;
+            }
+            return total == 0 && closed ? -1 : total;
+        }
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        private void waitQuietly(long nanos) {
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closed = true;
+            }
+        }
+    }
+}
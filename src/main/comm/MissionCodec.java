@@ -0,0 +1,166 @@
+package main.comm;
+
+import main.path.Waypoint;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+// Packs a waypoint list into MSG_MISSION_CHUNK frames, and reads them back.
+//
+// Chunk payload, little endian:
+//   uint16 mission id, uint16 chunk sequence, uint16 chunk count, uint8 point count,
+//   then per point x, y, z quantised to QUANTUM and written as zigzag varints:
+//   absolute for the chunk's first point, deltas from the previous point after that.
+// Every chunk decodes on its own, so a lost chunk never corrupts the others.
+//
+// Ack payload: uint16 mission id, uint16 chunk sequence.
+public final class MissionCodec {
+    public static final double QUANTUM = 0.01; // 1 cm
+    public static final int CHUNK_HEADER = 7;
+    public static final int ACK_PAYLOAD = 4;
+    // Worst case for one point: three 10-byte varints
+    private static final int MAX_POINT_BYTES = 30;
+
+    private MissionCodec() {}
+
+    // Encodes points into complete frames of at most maxPayload payload bytes each
+    public static List<byte[]> encode(List<Waypoint> points, int missionId, int vehicleId, int maxPayload) {
+        if (maxPayload < CHUNK_HEADER + MAX_POINT_BYTES || maxPayload > TelemetryFrame.MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Chunk payload must be " + (CHUNK_HEADER + MAX_POINT_BYTES)
+                    + ".." + TelemetryFrame.MAX_PAYLOAD + " bytes: " + maxPayload);
+        }
+        // First pass: pack point data, since every header carries the chunk count
+        List<byte[]> bodies = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        ByteBuffer body = ByteBuffer.allocate(maxPayload - CHUNK_HEADER);
+        ByteBuffer point = ByteBuffer.allocate(MAX_POINT_BYTES);
+        int inChunk = 0;
+        long px = 0, py = 0, pz = 0;
+        for (Waypoint wp : points) {
+            long qx = quantise(wp.x), qy = quantise(wp.y), qz = quantise(wp.z);
+            encodePoint(point, qx - px, qy - py, qz - pz);
+            if (inChunk > 0 && (point.remaining() > body.remaining() || inChunk == 255)) {
+                bodies.add(copyOf(body));
+                counts.add(inChunk);
+                body.clear();
+                inChunk = 0;
+            }
+            if (inChunk == 0) {
+                encodePoint(point, qx, qy, qz);
+            }
+            body.put(point);
+            px = qx;
+            py = qy;
+            pz = qz;
+            inChunk++;
+        }
+        if (inChunk > 0 || bodies.isEmpty()) {
+            bodies.add(copyOf(body));
+            counts.add(inChunk);
+        }
+        if (bodies.size() > 0xFFFF) {
+            throw new IllegalArgumentException("Mission too large: " + bodies.size() + " chunks");
+        }
+        List<byte[]> frames = new ArrayList<>(bodies.size());
+        ByteBuffer out = ByteBuffer.allocate(TelemetryFrame.MAX_FRAME).order(ByteOrder.LITTLE_ENDIAN);
+        for (int seq = 0; seq < bodies.size(); seq++) {
+            out.clear();
+            int start = TelemetryFrame.begin(out, TelemetryFrame.MSG_MISSION_CHUNK, vehicleId);
+            out.putShort((short) missionId);
+            out.putShort((short) seq);
+            out.putShort((short) bodies.size());
+            out.put((byte) (int) counts.get(seq));
+            out.put(bodies.get(seq));
+            TelemetryFrame.end(out, start);
+            frames.add(copyOf(out));
+        }
+        return frames;
+    }
+
+    public static int chunkMission(ByteBuffer frame, int payloadOffset) {
+        return frame.getShort(payloadOffset) & 0xFFFF;
+    }
+
+    public static int chunkSequence(ByteBuffer frame, int payloadOffset) {
+        return frame.getShort(payloadOffset + 2) & 0xFFFF;
+    }
+
+    public static int chunkCount(ByteBuffer frame, int payloadOffset) {
+        return frame.getShort(payloadOffset + 4) & 0xFFFF;
+    }
+
+    // Appends the chunk's points to out; returns false if the payload is truncated
+    public static boolean decodePoints(ByteBuffer frame, int payloadOffset, int payloadLength, List<Waypoint> out) {
+        if (payloadLength < CHUNK_HEADER) return false;
+        int count = frame.get(payloadOffset + 6) & 0xFF;
+        int end = payloadOffset + payloadLength;
+        int[] pos = { payloadOffset + CHUNK_HEADER };
+        long x = 0, y = 0, z = 0;
+        for (int i = 0; i < count; i++) {
+            long dx = getVarint(frame, pos, end);
+            long dy = getVarint(frame, pos, end);
+            long dz = getVarint(frame, pos, end);
+            if (pos[0] < 0) return false;
+            x = i == 0 ? dx : x + dx;
+            y = i == 0 ? dy : y + dy;
+            z = i == 0 ? dz : z + dz;
+            out.add(new Waypoint(x * QUANTUM, y * QUANTUM, z * QUANTUM));
+        }
+        return true;
+    }
+
+    public static void writeAck(ByteBuffer out, int vehicleId, int missionId, int sequence) {
+        ByteOrder order = out.order();
+        out.order(ByteOrder.LITTLE_ENDIAN);
+        int start = TelemetryFrame.begin(out, TelemetryFrame.MSG_MISSION_ACK, vehicleId);
+        out.putShort((short) missionId);
+        out.putShort((short) sequence);
+        TelemetryFrame.end(out, start);
+        out.order(order);
+    }
+
+    // Leaves point flipped, ready to be copied into a chunk
+    private static void encodePoint(ByteBuffer point, long x, long y, long z) {
+        point.clear();
+        putVarint(point, x);
+        putVarint(point, y);
+        putVarint(point, z);
+        point.flip();
+    }
+
+    private static long quantise(double v) {
+        return Math.round(v / QUANTUM);
+    }
+
+    private static void putVarint(ByteBuffer out, long value) {
+        long v = (value << 1) ^ (value >> 63); // zigzag: small magnitudes stay short
+        while ((v & ~0x7FL) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    // Reads at pos[0] and advances it; sets it to -1 when the varint runs past end
+    private static long getVarint(ByteBuffer in, int[] pos, int end) {
+        long v = 0;
+        int shift = 0;
+        while (pos[0] >= 0 && pos[0] < end && shift < 64) {
+            byte b = in.get(pos[0]++);
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return (v >>> 1) ^ -(v & 1);
+            shift += 7;
+        }
+        pos[0] = -1;
+        return 0;
+    }
+
+    private static byte[] copyOf(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.position()];
+        buf.flip();
+        buf.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,197 @@
+package main.comm;
+
+import main.path.Waypoint;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Uploads a mission as MissionCodec chunks over a binary link. Up to `window`
+// chunks are in flight at once; each one is acked individually and resent after
+// ackTimeout. A chunk that exhausts its retries stops the upload but keeps the
+// acked set, so resume() picks up at the first missing chunk instead of starting
+// over. Acks arrive through onFrame on the receiver thread; the upload itself
+// runs on its own thread, so nothing here blocks the UI.
+public class MissionUploader implements FrameListener {
+    public static final int DEFAULT_CHUNK_PAYLOAD = 128;
+
+    private volatile SerialTransmitter transmitter;
+    private final int window;
+    private final long ackTimeoutNanos;
+    private final int maxAttempts;
+
+    private List<byte[]> chunks = Collections.emptyList();
+    private boolean[] acked = new boolean[0];
+    private long[] sentAt = new long[0];
+    private int[] attempts = new int[0];
+    private int ackedCount;
+    private int missionId = (int) (System.nanoTime() & 0xFFFF);
+    private Thread worker;
+    private UploadListener listener;
+
+    public MissionUploader(SerialTransmitter transmitter) {
+        this(transmitter, 4, 500, 8);
+    }
+
+    public MissionUploader(SerialTransmitter transmitter, int window, long ackTimeoutMillis, int maxAttempts) {
+        this.transmitter = transmitter;
+        this.window = window;
+        this.ackTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(ackTimeoutMillis);
+        this.maxAttempts = maxAttempts;
+    }
+
+    // Points the uploader at a new link, e.g. after a reconnect; a stalled upload can then resume on it
+    public void setTransmitter(SerialTransmitter transmitter) {
+        this.transmitter = transmitter;
+    }
+
+    // Encodes points on the calling thread (so later edits don't race the upload) and starts sending
+    public void upload(List<Waypoint> points, int vehicleId, UploadListener listener) {
+        cancel();
+        synchronized (this) {
+            missionId = (missionId + 1) & 0xFFFF;
+            chunks = MissionCodec.encode(points, missionId, vehicleId, DEFAULT_CHUNK_PAYLOAD);
+            acked = new boolean[chunks.size()];
+            sentAt = new long[chunks.size()];
+            attempts = new int[chunks.size()];
+            ackedCount = 0;
+            start(listener);
+        }
+    }
+
+    // Continues a stalled upload from the first unacked chunk; false if there is nothing to resume
+    public boolean resume(UploadListener listener) {
+        cancel();
+        synchronized (this) {
+            if (!isResumable()) return false;
+            Arrays.fill(attempts, 0);
+            start(listener);
+            return true;
+        }
+    }
+
+    public synchronized boolean isResumable() {
+        return worker == null && ackedCount < chunks.size();
+    }
+
+    public void cancel() {
+        Thread running;
+        synchronized (this) {
+            running = worker;
+            worker = null;
+            notifyAll();
+        }
+        if (running != null) {
+            running.interrupt();
+            try {
+                running.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public synchronized int getChunkCount() {
+        return chunks.size();
+    }
+
+    public synchronized int getAckedCount() {
+        return ackedCount;
+    }
+
+    private void start(UploadListener listener) {
+        this.listener = listener;
+        worker = new Thread(this::run, "mission-upload-" + missionId);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void onFrame(int messageId, int vehicleId, ByteBuffer frame, int payloadOffset, int payloadLength) {
+        if (messageId != TelemetryFrame.MSG_MISSION_ACK || payloadLength < MissionCodec.ACK_PAYLOAD) return;
+        int mission = frame.getShort(payloadOffset) & 0xFFFF;
+        int sequence = frame.getShort(payloadOffset + 2) & 0xFFFF;
+        UploadListener progress;
+        int acknowledged, total;
+        synchronized (this) {
+            if (mission != missionId || sequence >= acked.length || acked[sequence]) return;
+            acked[sequence] = true;
+            ackedCount++;
+            notifyAll();
+            progress = listener;
+            acknowledged = ackedCount;
+            total = chunks.size();
+        }
+        if (progress != null) progress.onProgress(acknowledged, total);
+    }
+
+    private void run() {
+        Thread self = Thread.currentThread();
+        int[] due = new int[window];
+        boolean success = false;
+        boolean cancelled = false;
+        try {
+            while (true) {
+                int dueCount = 0;
+                List<byte[]> frames;
+                synchronized (this) {
+                    if (worker != self) {
+                        cancelled = true;
+                        return;
+                    }
+                    int base = 0;
+                    while (base < acked.length && acked[base]) base++;
+                    if (base == acked.length) {
+                        success = true;
+                        break;
+                    }
+                    long now = System.nanoTime();
+                    long nextDeadline = Long.MAX_VALUE;
+                    // At most window unacked chunks, counted from the first gap, are in flight
+                    for (int i = base, inFlight = 0; i < acked.length && inFlight < window; i++) {
+                        if (acked[i]) continue;
+                        inFlight++;
+                        if (attempts[i] > 0 && now - sentAt[i] < ackTimeoutNanos) {
+                            nextDeadline = Math.min(nextDeadline, sentAt[i] + ackTimeoutNanos);
+                            continue;
+                        }
+                        if (attempts[i] >= maxAttempts) {
+                            return; // stalled; acked chunks are kept for resume()
+                        }
+                        attempts[i]++;
+                        sentAt[i] = now;
+                        due[dueCount++] = i;
+                        nextDeadline = Math.min(nextDeadline, now + ackTimeoutNanos);
+                    }
+                    frames = chunks;
+                    if (dueCount == 0) {
+                        long waitNanos = Math.max(1_000_000, nextDeadline - now);
+                        TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+                        continue;
+                    }
+                }
+                for (int d = 0; d < dueCount; d++) {
+                    // A full queue just means this chunk times out and goes again
+                    transmitter.send(frames.get(due[d]), ackTimeoutNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelled = true;
+        } finally {
+            UploadListener done;
+            synchronized (this) {
+                if (worker == self) worker = null;
+                done = listener;
+            }
+            if (done != null && !cancelled) done.onFinished(success);
+        }
+    }
+
+    // Called on the receiver and upload threads
+    public interface UploadListener {
+        void onProgress(int ackedChunks, int totalChunks);
+        void onFinished(boolean success);
+    }
+}
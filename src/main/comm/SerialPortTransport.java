@@ -0,0 +1,76 @@
+package main.comm;
+
+import com.fazecast.jSerialComm.SerialPort;
+
+import java.io.IOException;
+
+// Transport over a jSerialComm port
+public class SerialPortTransport implements Transport {
+    private static final int READ_TIMEOUT_MS = 200;
+
+    private final SerialPort port;
+
+    public SerialPortTransport(String portName, int baudRate) {
+        port = SerialPort.getCommPort(portName);
+        port.setBaudRate(baudRate);
+        // Bounded reads so a closing receiver is noticed even on a silent link
+        port.setComPortTimeouts(SerialPort.TIMEOUT_READ_SEMI_BLOCKING | SerialPort.TIMEOUT_WRITE_BLOCKING, READ_TIMEOUT_MS, 0);
+        port.openPort();
+    }
+
+    public static String[] listPorts() {
+        SerialPort[] ports = SerialPort.getCommPorts();
+        String[] names = new String[ports.length];
+        for (int i = 0; i < ports.length; i++) {
+            names[i] = ports[i].getSystemPortName();
+        }
+        return names;
+    }
+
+    @Override
+    public String getName() {
+        return port.getSystemPortName();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return port.isOpen();
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (!port.isOpen()) return -1;
+        int n = port.readBytes(buffer, length, offset);
+        if (n < 0) {
+            if (!port.isOpen()) return -1;
+            throw new IOException("Read failed on " + getName());
+        }
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (!port.isOpen()) return -1;
+        int n = port.bytesAvailable();
+        if (n < 0) {
+            if (!port.isOpen()) return -1;
+            throw new IOException("Read failed on " + getName());
+        }
+        return n;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        while (length > 0) {
+            int n = port.writeBytes(buffer, length, offset);
+            if (n < 0) throw new IOException("Write failed on " + getName());
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    public void close() {
+        port.closePort();
+    }
+}
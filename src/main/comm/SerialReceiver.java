@@ -1,62 +1,119 @@
 package main.comm;
 
-import main.gui.DashboardPanel;
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import java.io.InputStream;
-import com.fazecast.jSerialComm.SerialPort;
+import main.metrics.Metrics;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+// Reads one Transport on its own thread and hands decoded telemetry to listeners
+// on that thread. UI code should listen through a TelemetryMailbox rather than
+// touching nodes from here.
 public class SerialReceiver extends Thread {
-    private final DashboardPanel panel;
-    private final Gson gson = new Gson();
+    private final TelemetryProtocol protocol;
+    private final TelemetryDecoder decoder;
+    private BinaryTelemetryDecoder binaryDecoder;
+    private final List<TelemetryListener> listeners = new CopyOnWriteArrayList<>();
     private PlaneTelemetryListener telemetryListener;
-    private SerialPort port;
+    private final Transport transport;
+    private volatile boolean running = true;
 
-    public SerialReceiver(String portName, DashboardPanel panel) {
-        this.panel = panel;
-        port = SerialPort.getCommPort(portName);
-        port.setBaudRate(9600);
-        port.openPort();
+    public SerialReceiver(String portName) {
+        this(portName, 9600, TelemetryProtocol.JSON_LINES);
     }
 
+    // Binary telemetry at 50-100 Hz needs 57600 baud or more; JSON lines need roughly 3x that
+    public SerialReceiver(String portName, int baudRate, TelemetryProtocol protocol) {
+        this(new SerialPortTransport(portName, baudRate), protocol);
+    }
+
+    public SerialReceiver(Transport transport, TelemetryProtocol protocol) {
+        super("serial-rx-" + transport.getName());
+        setDaemon(true);
+        this.transport = transport;
+        this.protocol = protocol;
+        if (protocol == TelemetryProtocol.BINARY) {
+            binaryDecoder = new BinaryTelemetryDecoder(this::handleTelemetry);
+            decoder = binaryDecoder;
+        } else {
+            JsonTelemetryDecoder json = new JsonTelemetryDecoder(this::handleTelemetry);
+            json.setRawListener(this::handleMessage);
+            decoder = json;
+        }
+    }
+
+    public static String[] listPorts() {
+        return SerialPortTransport.listPorts();
+    }
+
+    // For a SerialTransmitter sharing this link
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public boolean isOpen() {
+        return transport.isOpen();
+    }
+
+    // Raw JSON objects for non-telemetry messages; only called on JSON_LINES ports
     public void setTelemetryListener(PlaneTelemetryListener listener) {
         this.telemetryListener = listener;
     }
 
+    // Non-telemetry binary frames such as mission acks; only called on BINARY ports
+    public void setFrameListener(FrameListener listener) {
+        if (binaryDecoder != null) binaryDecoder.setFrameListener(listener);
+    }
+
+    public void addListener(TelemetryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TelemetryListener listener) {
+        listeners.remove(listener);
+    }
+
+    public TelemetryProtocol getProtocol() {
+        return protocol;
+    }
+
+    public void close() {
+        running = false;
+        interrupt();
+    }
+
     @Override
     public void run() {
         try {
-            InputStream in = port.getInputStream();
             byte[] buffer = new byte[1024];
-            StringBuilder sb = new StringBuilder();
-            while (true) {
-                int len = in.read(buffer);
+            ByteBuffer view = ByteBuffer.wrap(buffer);
+            while (running) {
+                int len = transport.read(buffer, 0, buffer.length);
                 if (len > 0) {
-                    sb.append(new String(buffer, 0, len));
-                    int idx;
-                    while ((idx = sb.indexOf("\n")) >= 0) {
-                        String line = sb.substring(0, idx).trim();
-                        sb.delete(0, idx + 1);
-                        if (!line.isEmpty()) {
-                            try {
-                                JsonObject obj = JsonParser.parseString(line).getAsJsonObject();
-                                String gps = obj.has("lat") && obj.has("lon") ? obj.get("lat").getAsString() + "," + obj.get("lon").getAsString() : "-";
-                                String alt = obj.has("alt") ? obj.get("alt").getAsString() : "-";
-                                String heading = obj.has("heading") ? obj.get("heading").getAsString() : "-";
-                                panel.update(gps, alt, heading);
-                                if (telemetryListener != null) {
-                                    telemetryListener.onTelemetry(obj);
-                                }
-                            } catch (Exception ex) {
-                                ex.printStackTrace();
-                            }
-                        }
-                    }
+                    long start = System.nanoTime();
+                    view.clear().limit(len);
+                    decoder.decode(view);
+                    Metrics.TELEMETRY_DECODE.recordSince(start);
+                } else if (len < 0) {
+                    break;
                 }
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            if (running) e.printStackTrace();
+        } finally {
+            transport.close();
+        }
+    }
+
+    private void handleTelemetry(Telemetry t) {
+        for (TelemetryListener listener : listeners) {
+            listener.onTelemetry(t);
+        }
+    }
+
+    private void handleMessage(JsonObject obj) {
+        if (telemetryListener != null) {
+            telemetryListener.onTelemetry(obj);
         }
     }
 
@@ -1,44 +1,150 @@
 package main.comm;
 
-import com.fazecast.jSerialComm.SerialPort;
+import main.metrics.Metrics;
 import main.path.Waypoint;
 
-import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import com.google.gson.Gson;
 
+// Holds on to one Transport for the life of the link and writes from its own
+// thread, so callers (usually the FX thread) never block on the port. Messages are
+// encoded by the caller and queued in a bounded queue; a full queue rejects or
+// waits instead of growing. Move commands skip the queue: only the newest one is
+// kept, so joystick-rate control can't back up behind itself. The writer batches
+// everything pending into one write.
 public class SerialTransmitter {
-    private SerialPort port;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int BATCH_BYTES = 4096;
+
+    private final Transport transport;
+    private final boolean ownsTransport;
     private final Gson gson = new Gson();
+    private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicReference<ControlCommand> pendingMove = new AtomicReference<>();
+    private final AtomicLong coalescedMoves = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private byte[] batch = new byte[BATCH_BYTES];
+    private volatile long bytesWritten;
+    private volatile long failedWrites;
 
     public SerialTransmitter(String portName) {
-        port = SerialPort.getCommPort(portName);
-        port.setBaudRate(9600);
-        port.openPort();
+        this(new SerialPortTransport(portName, 9600), true);
     }
 
-    public void sendWaypoints(List<Waypoint> points) {
-        try {
-            OutputStream out = port.getOutputStream();
-            String msg = gson.toJson(new WaypointMessage(points)) + "\n";
-            out.write(msg.getBytes());
-            out.flush();
-            out.close();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    // Shares a link someone else opened, e.g. the one a SerialReceiver reads; close() leaves it open
+    public SerialTransmitter(Transport transport) {
+        this(transport, false);
+    }
+
+    private SerialTransmitter(Transport transport, boolean ownsTransport) {
+        this.transport = transport;
+        this.ownsTransport = ownsTransport;
+        writer = new Thread(this::writeLoop, "serial-tx-" + transport.getName());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Returns false when the queue is full; the caller decides whether to retry or drop
+    public boolean sendWaypoints(List<Waypoint> points) {
+        return enqueue(encode(new WaypointMessage(points)));
     }
 
+    // Latest wins: a command not yet written is replaced, never queued behind
     public void sendControlCommand(double roll, double pitch, double yaw, double throttle) {
-        try {
-            OutputStream out = port.getOutputStream();
-            String msg = gson.toJson(new ControlCommand(roll, pitch, yaw, throttle)) + "\n";
-            out.write(msg.getBytes());
-            out.flush();
-            out.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (pendingMove.getAndSet(new ControlCommand(roll, pitch, yaw, throttle)) != null) {
+            coalescedMoves.incrementAndGet();
+        }
+        LockSupport.unpark(writer);
+    }
+
+    // Queues an encoded message without waiting; false if the queue is full or closed
+    public boolean enqueue(byte[] message) {
+        if (!running || !queue.offer(message)) return false;
+        return accepted(message);
+    }
+
+    // Queues an encoded message, waiting up to timeout for room. For background callers only.
+    public boolean send(byte[] message, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!running || !queue.offer(message, timeout, unit)) return false;
+        return accepted(message);
+    }
+
+    // A message offered while close() runs may land after the writer's last drain.
+    // If it is still queued once running is false, take it back and report it unsent;
+    // if it's gone, the writer has it and will write it before exiting.
+    private boolean accepted(byte[] message) {
+        if (!running && queue.remove(message)) return false;
+        LockSupport.unpark(writer);
+        return true;
+    }
+
+    private byte[] encode(Object message) {
+        return (gson.toJson(message) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void writeLoop() {
+        // Runs until closed and then until everything queued, move included, is written
+        while (running || !queue.isEmpty() || pendingMove.get() != null) {
+            int length = 0;
+            ControlCommand move = pendingMove.getAndSet(null);
+            if (move != null) {
+                length = append(encode(move), length);
+            }
+            Metrics.SERIAL_QUEUE.set(queue.size());
+            byte[] message;
+            while (length < BATCH_BYTES && (message = queue.poll()) != null) {
+                length = append(message, length);
+            }
+            if (length == 0) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                continue;
+            }
+            try {
+                transport.write(batch, 0, length);
+                bytesWritten += length;
+            } catch (Exception e) {
+                // The batch is lost, but the link may come back: keep writing later messages
+                failedWrites++;
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private int append(byte[] message, int length) {
+        if (length + message.length > batch.length) {
+            // The drain loop stops at BATCH_BYTES, so this only grows for the message that crosses it
+            byte[] grown = new byte[Math.max(batch.length * 2, length + message.length)];
+            System.arraycopy(batch, 0, grown, 0, length);
+            batch = grown;
         }
+        System.arraycopy(message, 0, batch, length, message.length);
+        return length + message.length;
+    }
+
+    public int getQueuedMessages() {
+        return queue.size();
+    }
+
+    // Move commands replaced by a newer one before they were written
+    public long getCoalescedMoves() {
+        return coalescedMoves.get();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    // Batches the transport failed to write; their messages are gone
+    public long getFailedWrites() {
+        return failedWrites;
     }
 
     private static class WaypointMessage {
@@ -54,7 +160,15 @@ public class SerialTransmitter {
         }
     }
 
+    // Writes whatever is still queued, and the latest move, then stops the writer
     public void close() {
-        port.closePort();
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ownsTransport) transport.close();
     }
 }
@@ -0,0 +1,273 @@
+package main.comm;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import main.path.ArcLengthTable;
+import main.path.GeoReference;
+import main.path.PathSamples;
+import main.path.Waypoint;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+// Stand-in for the aircraft end of a link, for development without hardware and
+// for load tests. It streams telemetry at a fixed rate in either protocol, acks
+// binary mission chunks and flies the mission once it's complete, and echoes
+// JSON waypoint messages back. Until a mission arrives it circles the origin.
+// Missions are in scene metres around that origin, so it should be the planner's
+// home for a mission to be flown where it was drawn.
+public class SimulatedAircraft {
+    private static final double CIRCLE_RADIUS = 100; // m
+    private static final double ALTITUDE = 50; // m
+
+    private final Transport transport;
+    private final TelemetryProtocol protocol;
+    private final double rateHz;
+    private final GeoReference geo = new GeoReference();
+    private final Telemetry telemetry = new Telemetry();
+    private final ByteBuffer frame = ByteBuffer.allocate(TelemetryFrame.MAX_FRAME).order(ByteOrder.LITTLE_ENDIAN);
+    private final double[] position = new double[3];
+    private final double[] fix = new double[3];
+    private final Object writeLock = new Object();
+    private double speed = 20; // m/s
+    private int vehicleId;
+    private LongSupplier clock = System::currentTimeMillis;
+    private volatile boolean running;
+    private Thread emitter;
+    private Thread reader;
+    // Only the emitter writes it; load tests read it from their own thread
+    private volatile long telemetrySent;
+
+    // Mission being received, by chunk
+    private int missionId = -1;
+    private List<List<Waypoint>> missionChunks = new ArrayList<>();
+    private int missionChunksReceived;
+    private volatile ArcLengthTable missionPath;
+    private volatile List<Waypoint> mission;
+
+    public SimulatedAircraft(Transport transport, TelemetryProtocol protocol, double rateHz) {
+        this.transport = transport;
+        this.protocol = protocol;
+        this.rateHz = rateHz;
+        geo.setOrigin(GeoReference.DEFAULT_HOME_LAT, GeoReference.DEFAULT_HOME_LON, GeoReference.DEFAULT_HOME_ALT);
+    }
+
+    public void setOrigin(double lat, double lon, double alt) {
+        geo.setOrigin(lat, lon, alt);
+    }
+
+    public void setVehicleId(int vehicleId) {
+        this.vehicleId = vehicleId;
+    }
+
+    public void setSpeed(double metersPerSecond) {
+        this.speed = metersPerSecond;
+    }
+
+    // Source of the telemetry timestamp; the load test uses a finer clock than milliseconds
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public void start() {
+        running = true;
+        emitter = new Thread(this::emitLoop, "sim-telemetry-" + transport.getName());
+        reader = new Thread(this::readLoop, "sim-reader-" + transport.getName());
+        emitter.setDaemon(true);
+        reader.setDaemon(true);
+        emitter.start();
+        reader.start();
+    }
+
+    public void close() {
+        running = false;
+        transport.close();
+        LockSupport.unpark(emitter);
+    }
+
+    public long getTelemetrySent() {
+        return telemetrySent;
+    }
+
+    // The last mission received in full, or null
+    public List<Waypoint> getMission() {
+        return mission;
+    }
+
+    private void emitLoop() {
+        long period = (long) (1e9 / rateHz);
+        long start = System.nanoTime();
+        long next = start;
+        try {
+            while (running) {
+                long now = System.nanoTime();
+                if (now < next) {
+                    LockSupport.parkNanos(next - now);
+                    continue;
+                }
+                fly((next - start) / 1e9);
+                send();
+                next += period;
+                // Don't try to catch up on a stall, just drop the missed ticks
+                if (System.nanoTime() - next > period * 10) next = System.nanoTime();
+            }
+        } catch (IOException e) {
+            if (running) e.printStackTrace();
+        }
+    }
+
+    private void fly(double seconds) {
+        double distance = seconds * speed;
+        ArcLengthTable path = missionPath;
+        double heading;
+        if (path != null && path.getTotalLength() > 0) {
+            double d = distance % path.getTotalLength();
+            path.pointAt(d, position);
+            double px = position[0], pz = position[2];
+            path.pointAt(Math.min(path.getTotalLength(), d + 1), position);
+            heading = Math.toDegrees(Math.atan2(position[0] - px, position[2] - pz));
+            path.pointAt(d, position);
+        } else {
+            double angle = distance / CIRCLE_RADIUS;
+            position[0] = CIRCLE_RADIUS * Math.sin(angle);
+            position[1] = -ALTITUDE;
+            position[2] = CIRCLE_RADIUS * Math.cos(angle);
+            // Moving clockwise seen from above: tangent is 90 degrees right of the bearing to centre
+            heading = Math.toDegrees(angle) + 90;
+        }
+        geo.toGeodetic(position[0], position[1], position[2], fix);
+        telemetry.vehicleId = vehicleId;
+        telemetry.timeMillis = clock.getAsLong();
+        telemetry.lat = fix[0];
+        telemetry.lon = fix[1];
+        telemetry.alt = fix[2];
+        telemetry.heading = ((heading % 360) + 360) % 360;
+        telemetry.pitch = 0;
+        telemetry.roll = path == null ? 10 : 0;
+        telemetry.airspeed = speed;
+    }
+
+    private void send() throws IOException {
+        synchronized (writeLock) {
+            if (protocol == TelemetryProtocol.BINARY) {
+                frame.clear();
+                TelemetryFrame.writeTelemetry(frame, telemetry);
+                transport.write(frame.array(), 0, frame.position());
+            } else {
+                String line = String.format(Locale.ROOT,
+                        "{\"id\":%d,\"time\":%d,\"lat\":%.7f,\"lon\":%.7f,\"alt\":%.2f,\"heading\":%.1f,\"roll\":%.1f,\"pitch\":%.1f,\"speed\":%.1f}\n",
+                        telemetry.vehicleId, telemetry.timeMillis, telemetry.lat, telemetry.lon, telemetry.alt,
+                        telemetry.heading, telemetry.roll, telemetry.pitch, telemetry.airspeed);
+                byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                transport.write(bytes, 0, bytes.length);
+            }
+        }
+        telemetrySent++;
+    }
+
+    private void readLoop() {
+        TelemetryDecoder decoder;
+        if (protocol == TelemetryProtocol.BINARY) {
+            BinaryTelemetryDecoder binary = new BinaryTelemetryDecoder(t -> {});
+            binary.setFrameListener(this::onFrame);
+            decoder = binary;
+        } else {
+            JsonTelemetryDecoder json = new JsonTelemetryDecoder(t -> {});
+            json.setRawListener(this::onJson);
+            decoder = json;
+        }
+        byte[] buffer = new byte[1024];
+        ByteBuffer view = ByteBuffer.wrap(buffer);
+        try {
+            while (running) {
+                int n = transport.read(buffer, 0, buffer.length);
+                if (n < 0) break;
+                view.clear().limit(n);
+                decoder.decode(view);
+            }
+        } catch (IOException e) {
+            if (running) e.printStackTrace();
+        }
+    }
+
+    private void onFrame(int messageId, int frameVehicle, ByteBuffer buf, int offset, int length) {
+        if (messageId != TelemetryFrame.MSG_MISSION_CHUNK || length < MissionCodec.CHUNK_HEADER) return;
+        int id = MissionCodec.chunkMission(buf, offset);
+        int sequence = MissionCodec.chunkSequence(buf, offset);
+        int count = MissionCodec.chunkCount(buf, offset);
+        if (id != missionId) {
+            missionId = id;
+            missionChunks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) missionChunks.add(null);
+            missionChunksReceived = 0;
+        }
+        if (sequence >= missionChunks.size()) return;
+        if (missionChunks.get(sequence) == null) {
+            List<Waypoint> points = new ArrayList<>();
+            if (!MissionCodec.decodePoints(buf, offset, length, points)) return;
+            missionChunks.set(sequence, points);
+            if (++missionChunksReceived == missionChunks.size()) {
+                List<Waypoint> all = new ArrayList<>();
+                for (List<Waypoint> chunk : missionChunks) all.addAll(chunk);
+                setMission(all);
+            }
+        }
+        // Ack duplicates too: the first ack may have been lost
+        ByteBuffer ack = ByteBuffer.allocate(TelemetryFrame.MAX_FRAME);
+        MissionCodec.writeAck(ack, vehicleId, id, sequence);
+        write(ack.array(), ack.position());
+    }
+
+    private void onJson(JsonObject obj) {
+        JsonElement cmd = obj.get("cmd");
+        if (cmd == null || !"waypoints".equals(cmd.getAsString())) return;
+        List<Waypoint> points = new ArrayList<>();
+        JsonArray array = obj.getAsJsonArray("points");
+        for (JsonElement e : array) {
+            JsonObject p = e.getAsJsonObject();
+            points.add(new Waypoint(p.get("x").getAsDouble(), p.get("y").getAsDouble(), p.get("z").getAsDouble()));
+        }
+        setMission(points);
+        byte[] echo = (obj + "\n").getBytes(StandardCharsets.UTF_8);
+        write(echo, echo.length);
+    }
+
+    private void setMission(List<Waypoint> points) {
+        mission = points;
+        if (points.size() < 2) {
+            missionPath = null;
+            return;
+        }
+        PathSamples samples = new PathSamples();
+        for (Waypoint wp : points) samples.add(wp.x, wp.y, wp.z);
+        ArcLengthTable table = new ArcLengthTable();
+        table.build(samples);
+        missionPath = table;
+    }
+
+    private void write(byte[] bytes, int length) {
+        try {
+            synchronized (writeLock) {
+                transport.write(bytes, 0, length);
+            }
+        } catch (IOException e) {
+            if (running) e.printStackTrace();
+        }
+    }
+
+    // Waits for the reader and emitter to stop after close()
+    public void join(long timeout, TimeUnit unit) throws InterruptedException {
+        long millis = unit.toMillis(timeout);
+        if (emitter != null) emitter.join(millis);
+        if (reader != null) reader.join(millis);
+    }
+}
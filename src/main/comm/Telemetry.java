@@ -0,0 +1,36 @@
+package main.comm;
+
+// One telemetry sample as primitive fields. Decoders reuse a single instance per
+// link, so listeners that keep a sample must copy it (see copyFrom). Fields that
+// a message did not carry are NaN.
+public class Telemetry {
+    public int vehicleId;
+    public long timeMillis;
+    public double lat = Double.NaN, lon = Double.NaN, alt = Double.NaN;
+    public double heading = Double.NaN, roll = Double.NaN, pitch = Double.NaN;
+    public double airspeed = Double.NaN;
+
+    public void clear() {
+        vehicleId = 0;
+        timeMillis = 0;
+        lat = lon = alt = Double.NaN;
+        heading = roll = pitch = Double.NaN;
+        airspeed = Double.NaN;
+    }
+
+    public void copyFrom(Telemetry other) {
+        vehicleId = other.vehicleId;
+        timeMillis = other.timeMillis;
+        lat = other.lat;
+        lon = other.lon;
+        alt = other.alt;
+        heading = other.heading;
+        roll = other.roll;
+        pitch = other.pitch;
+        airspeed = other.airspeed;
+    }
+
+    public boolean hasPosition() {
+        return !Double.isNaN(lat) && !Double.isNaN(lon);
+    }
+}
@@ -0,0 +1,10 @@
+package main.comm;
+
+import java.nio.ByteBuffer;
+
+// Turns raw link bytes into Telemetry callbacks. Input may split messages at any
+// byte; decoders keep partial messages between calls.
+public interface TelemetryDecoder {
+    // Consumes all remaining bytes of in
+    void decode(ByteBuffer in);
+}
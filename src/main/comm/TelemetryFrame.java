@@ -0,0 +1,100 @@
+package main.comm;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Binary link framing, little endian:
+//
+//   0      sync 0xA5
+//   1      sync 0x5A
+//   2      payload length N (0..255)
+//   3      message id
+//   4      vehicle id
+//   5..    payload (N bytes)
+//   5+N    CRC-16/CCITT-FALSE over bytes 2 .. 4+N, low byte first
+//
+// MSG_TELEMETRY payload (32 bytes): uint32 time ms, int32 lat and lon in 1e-7 degrees,
+// then float32 alt (m), heading, roll, pitch (degrees) and airspeed (m/s).
+public final class TelemetryFrame {
+    public static final byte SYNC1 = (byte) 0xA5;
+    public static final byte SYNC2 = (byte) 0x5A;
+    public static final int HEADER_SIZE = 5;
+    public static final int CRC_SIZE = 2;
+    public static final int MAX_PAYLOAD = 255;
+    public static final int MAX_FRAME = HEADER_SIZE + MAX_PAYLOAD + CRC_SIZE;
+
+    public static final int MSG_TELEMETRY = 0x01;
+    public static final int TELEMETRY_PAYLOAD = 32;
+    // Mission upload, see MissionCodec
+    public static final int MSG_MISSION_CHUNK = 0x10;
+    public static final int MSG_MISSION_ACK = 0x11;
+
+    private static final double DEG_E7 = 1e7;
+    private static final int[] CRC_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int b = 0; b < 8; b++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            CRC_TABLE[i] = crc & 0xFFFF;
+        }
+    }
+
+    private TelemetryFrame() {}
+
+    public static int crc16(ByteBuffer buf, int from, int to) {
+        int crc = 0xFFFF;
+        for (int i = from; i < to; i++) {
+            crc = ((crc << 8) ^ CRC_TABLE[((crc >>> 8) ^ buf.get(i)) & 0xFF]) & 0xFFFF;
+        }
+        return crc;
+    }
+
+    // Writes header, payload written by the caller and CRC around the current position.
+    // Usage: int start = begin(out, id, vehicle); out.put...; end(out, start);
+    public static int begin(ByteBuffer out, int messageId, int vehicleId) {
+        int start = out.position();
+        out.put(SYNC1).put(SYNC2).put((byte) 0).put((byte) messageId).put((byte) vehicleId);
+        return start;
+    }
+
+    public static void end(ByteBuffer out, int start) {
+        int length = out.position() - start - HEADER_SIZE;
+        if (length > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Payload too large: " + length);
+        }
+        out.put(start + 2, (byte) length);
+        int crc = crc16(out, start + 2, out.position());
+        out.put((byte) crc).put((byte) (crc >>> 8));
+    }
+
+    public static void writeTelemetry(ByteBuffer out, Telemetry t) {
+        ByteOrder order = out.order();
+        out.order(ByteOrder.LITTLE_ENDIAN);
+        int start = begin(out, MSG_TELEMETRY, t.vehicleId);
+        out.putInt((int) t.timeMillis);
+        out.putInt((int) Math.round(t.lat * DEG_E7));
+        out.putInt((int) Math.round(t.lon * DEG_E7));
+        out.putFloat((float) t.alt);
+        out.putFloat((float) t.heading);
+        out.putFloat((float) t.roll);
+        out.putFloat((float) t.pitch);
+        out.putFloat((float) t.airspeed);
+        end(out, start);
+        out.order(order);
+    }
+
+    // Reads a MSG_TELEMETRY payload starting at offset (buffer must be little endian)
+    static void readTelemetry(ByteBuffer in, int offset, Telemetry t) {
+        t.timeMillis = in.getInt(offset) & 0xFFFFFFFFL;
+        t.lat = in.getInt(offset + 4) / DEG_E7;
+        t.lon = in.getInt(offset + 8) / DEG_E7;
+        t.alt = in.getFloat(offset + 12);
+        t.heading = in.getFloat(offset + 16);
+        t.roll = in.getFloat(offset + 20);
+        t.pitch = in.getFloat(offset + 24);
+        t.airspeed = in.getFloat(offset + 28);
+    }
+}
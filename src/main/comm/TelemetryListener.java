@@ -0,0 +1,7 @@
+package main.comm;
+
+// Receives decoded telemetry on the thread that decoded it. The sample is reused
+// for the next message, so copy anything that must outlive the call.
+public interface TelemetryListener {
+    void onTelemetry(Telemetry telemetry);
+}
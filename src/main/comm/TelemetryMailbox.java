@@ -0,0 +1,47 @@
+package main.comm;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Latest-value handoff from one decoding thread to one reader (the FX thread).
+// Triple buffered: the writer fills its private slot and swaps it with the shared
+// middle slot, the reader swaps its slot with the middle one when a new sample is
+// there. Neither side blocks or allocates, and samples the reader never got to are
+// simply overwritten, so a 100 Hz link costs at most one UI update per frame.
+public class TelemetryMailbox implements TelemetryListener {
+    private static final int INDEX_MASK = 0b11;
+    private static final int FRESH = 0b100;
+
+    private final Telemetry[] slots = { new Telemetry(), new Telemetry(), new Telemetry() };
+    // Index of the middle slot, plus FRESH when the writer has published since the last poll
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int writeIndex = 0; // writer thread only
+    private int readIndex = 2;  // reader thread only
+    private volatile long published;
+    private volatile long overwritten;
+
+    @Override
+    public void onTelemetry(Telemetry telemetry) {
+        slots[writeIndex].copyFrom(telemetry);
+        int previous = middle.getAndSet(writeIndex | FRESH);
+        writeIndex = previous & INDEX_MASK;
+        published++;
+        if ((previous & FRESH) != 0) overwritten++;
+    }
+
+    // Returns the newest sample, or null if nothing arrived since the last call. The
+    // returned instance stays valid until the next poll.
+    public Telemetry poll() {
+        if ((middle.get() & FRESH) == 0) return null;
+        readIndex = middle.getAndSet(readIndex) & INDEX_MASK;
+        return slots[readIndex];
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    // Samples replaced before the reader saw them
+    public long getOverwritten() {
+        return overwritten;
+    }
+}
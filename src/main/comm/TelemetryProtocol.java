@@ -0,0 +1,9 @@
+package main.comm;
+
+// Wire format of a telemetry link, chosen per port
+public enum TelemetryProtocol {
+    // Newline-delimited JSON objects, e.g. {"lat":47.6,"lon":-122.3,"alt":120,"heading":90}
+    JSON_LINES,
+    // Length-prefixed binary frames, see TelemetryFrame
+    BINARY
+}
@@ -0,0 +1,23 @@
+package main.comm;
+
+import java.io.IOException;
+
+// A byte link to a vehicle. SerialReceiver and SerialTransmitter only talk to this,
+// so a real port (SerialPortTransport) and an in-process stand-in
+// (LoopbackTransport) are interchangeable. One thread may read while another writes.
+public interface Transport {
+    String getName();
+
+    boolean isOpen();
+
+    // Waits at most a short timeout for data; returns 0 on timeout and -1 once the link is closed
+    int read(byte[] buffer, int offset, int length) throws IOException;
+
+    // Bytes a read would return right away, or -1 once the link is closed
+    int available() throws IOException;
+
+    // Blocks until all bytes are accepted by the link
+    void write(byte[] buffer, int offset, int length) throws IOException;
+
+    void close();
+}
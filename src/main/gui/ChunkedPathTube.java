@@ -0,0 +1,199 @@
+package main.gui;
+
+import javafx.geometry.Point3D;
+import javafx.scene.Camera;
+import javafx.scene.Group;
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The path tube for long missions: the rings of a TubeGeometry are split into
+// chunks of CHUNK_RINGS, each its own MeshView, so that
+//  - an edit re-uploads only the chunks whose rings changed,
+//  - a chunk outside the camera's view is hidden and not drawn, and
+//  - a chunk far from the camera is drawn coarser: every second ring with four
+//    sides beyond LOD_DISTANCES[0], every fourth beyond LOD_DISTANCES[1].
+// Neighbouring chunks share their end ring, so the tube has no gaps. Each chunk
+// keeps a copy of its full-detail rings to switch level from, since the geometry
+// passed to show() belongs to a Frame that goes back to the pipeline.
+//
+// updateView() is called when the camera moves; show() reuses the last camera
+// given. Call everything on the FX thread.
+public class ChunkedPathTube extends Group {
+    static final int CHUNK_RINGS = 256;
+    private static final int SIDES = TubeGeometry.SIDES;
+    private static final double[] LOD_DISTANCES = {300, 700};
+    private static final int[] LOD_RING_STEP = {1, 2, 4};
+    private static final int[] LOD_SIDE_STEP = {1, 2, 2};
+
+    private static class Chunk {
+        final TriangleMesh mesh = new TriangleMesh();
+        final MeshView view = new MeshView(mesh);
+        float[] points = new float[0]; // full detail, rings * SIDES * 3
+        int rings;
+        // Bounding sphere, for culling and level choice
+        double cx, cy, cz, boundRadius;
+        // What the mesh currently holds; level -1 forces a rebuild
+        int level = -1;
+        int meshRings, meshSides;
+    }
+
+    private final double radius;
+    private final PhongMaterial material;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private int ringCount;
+    private Camera camera;
+    private double viewWidth, viewHeight;
+
+    public ChunkedPathTube(double radius, Color color) {
+        this.radius = radius;
+        this.material = new PhongMaterial(color);
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    // Uploads rings [from, to] of a finished geometry, or all of it if the ring
+    // count differs from what is shown
+    void show(TubeGeometry g, int from, int to) {
+        if (g.rings < 2) {
+            clear();
+            return;
+        }
+        if (g.rings != ringCount) {
+            ringCount = g.rings;
+            int needed = (ringCount - 2) / CHUNK_RINGS + 1;
+            while (chunks.size() > needed) {
+                getChildren().remove(chunks.remove(chunks.size() - 1).view);
+            }
+            while (chunks.size() < needed) {
+                Chunk chunk = new Chunk();
+                chunk.view.setMaterial(material);
+                chunk.view.setCullFace(CullFace.NONE);
+                chunks.add(chunk);
+                getChildren().add(chunk.view);
+            }
+            from = 0;
+            to = ringCount - 1;
+        }
+        if (from > to) return;
+        // Chunk c holds rings [c * CHUNK_RINGS, (c + 1) * CHUNK_RINGS], so a ring at a
+        // boundary belongs to two chunks
+        int firstChunk = Math.max(0, (from - 1) / CHUNK_RINGS);
+        int lastChunk = Math.min(chunks.size() - 1, to / CHUNK_RINGS);
+        for (int c = firstChunk; c <= lastChunk; c++) {
+            Chunk chunk = chunks.get(c);
+            int first = c * CHUNK_RINGS;
+            int last = Math.min(ringCount - 1, first + CHUNK_RINGS);
+            copyRings(chunk, g, first, last);
+            chunk.level = -1;
+            applyView(chunk);
+        }
+    }
+
+    // Culls and picks levels for the camera's current position; width and height are
+    // the size of the view it renders into
+    public void updateView(Camera camera, double width, double height) {
+        this.camera = camera;
+        this.viewWidth = width;
+        this.viewHeight = height;
+        for (Chunk chunk : chunks) applyView(chunk);
+    }
+
+    public void clear() {
+        getChildren().clear();
+        chunks.clear();
+        ringCount = 0;
+    }
+
+    private void copyRings(Chunk chunk, TubeGeometry g, int first, int last) {
+        chunk.rings = last - first + 1;
+        int length = chunk.rings * SIDES * 3;
+        if (chunk.points.length < length) chunk.points = new float[length];
+        System.arraycopy(g.points, first * SIDES * 3, chunk.points, 0, length);
+        double lx = Double.POSITIVE_INFINITY, ly = lx, lz = lx;
+        double hx = Double.NEGATIVE_INFINITY, hy = hx, hz = hx;
+        for (int i = 0; i < length; i += 3) {
+            lx = Math.min(lx, chunk.points[i]);
+            ly = Math.min(ly, chunk.points[i + 1]);
+            lz = Math.min(lz, chunk.points[i + 2]);
+            hx = Math.max(hx, chunk.points[i]);
+            hy = Math.max(hy, chunk.points[i + 1]);
+            hz = Math.max(hz, chunk.points[i + 2]);
+        }
+        chunk.cx = (lx + hx) / 2;
+        chunk.cy = (ly + hy) / 2;
+        chunk.cz = (lz + hz) / 2;
+        chunk.boundRadius = Math.sqrt((hx - lx) * (hx - lx) + (hy - ly) * (hy - ly) + (hz - lz) * (hz - lz)) / 2;
+    }
+
+    private void applyView(Chunk chunk) {
+        int level = 0;
+        boolean visible = true;
+        if (camera instanceof PerspectiveCamera && viewWidth > 0 && viewHeight > 0) {
+            PerspectiveCamera perspective = (PerspectiveCamera) camera;
+            Point3D p = camera.sceneToLocal(localToScene(chunk.cx, chunk.cy, chunk.cz));
+            if (p != null) {
+                visible = inFrustum(perspective, p.getX(), p.getY(), p.getZ(), chunk.boundRadius);
+                double distance = Math.max(0, Math.sqrt(p.getX() * p.getX() + p.getY() * p.getY() + p.getZ() * p.getZ()) - chunk.boundRadius);
+                while (level < LOD_DISTANCES.length && distance > LOD_DISTANCES[level]) level++;
+            }
+        }
+        chunk.view.setVisible(visible);
+        // A hidden chunk keeps whatever mesh it has until it comes back into view
+        if (visible && level != chunk.level) buildMesh(chunk, level);
+    }
+
+    // Whether a sphere in camera space (looking along +z, y down) overlaps the view
+    private boolean inFrustum(PerspectiveCamera camera, double x, double y, double z, double r) {
+        if (z + r < camera.getNearClip() || z - r > camera.getFarClip()) return false;
+        double t = Math.tan(Math.toRadians(camera.getFieldOfView()) / 2);
+        double sx, sy;
+        if (camera.isVerticalFieldOfView()) {
+            sy = t;
+            sx = t * viewWidth / viewHeight;
+        } else {
+            sx = t;
+            sy = t * viewHeight / viewWidth;
+        }
+        // Distance outside each side plane, which passes through the eye
+        return Math.abs(x) - sx * z <= r * Math.sqrt(1 + sx * sx)
+                && Math.abs(y) - sy * z <= r * Math.sqrt(1 + sy * sy);
+    }
+
+    private void buildMesh(Chunk chunk, int level) {
+        int ringStep = LOD_RING_STEP[level], sideStep = LOD_SIDE_STEP[level];
+        int sides = SIDES / sideStep;
+        // Every ringStep-th ring, and always the last so the chunk meets the next one
+        int rings = (chunk.rings - 1 + ringStep - 1) / ringStep + 1;
+        float[] points = new float[rings * sides * 3];
+        int p = 0;
+        for (int r = 0; r < rings; r++) {
+            int ring = Math.min(r * ringStep, chunk.rings - 1);
+            for (int j = 0; j < SIDES; j += sideStep) {
+                int src = (ring * SIDES + j) * 3;
+                points[p++] = chunk.points[src];
+                points[p++] = chunk.points[src + 1];
+                points[p++] = chunk.points[src + 2];
+            }
+        }
+        if (chunk.mesh.getTexCoords().size() == 0) chunk.mesh.getTexCoords().addAll(0, 0);
+        chunk.mesh.getPoints().setAll(points);
+        // Topology only depends on the ring and side counts
+        if (rings != chunk.meshRings || sides != chunk.meshSides) {
+            int[] faces = new int[(rings - 1) * sides * 12];
+            TubeGeometry.writeFaces(faces, 0, 0, rings, sides);
+            chunk.mesh.getFaces().setAll(faces);
+            chunk.meshRings = rings;
+            chunk.meshSides = sides;
+        }
+        chunk.level = level;
+    }
+}
@@ -2,19 +2,22 @@ package main.gui;
 
 import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
+import main.comm.Telemetry;
 
 public class DashboardPanel extends VBox {
     private final Label gpsLabel = new Label("GPS: -");
     private final Label altitudeLabel = new Label("Altitude: -");
     private final Label headingLabel = new Label("Heading: -");
+    private final Label deviationLabel = new Label("Deviation: -");
 
     public DashboardPanel() {
         this.setSpacing(10);
-        this.getChildren().addAll(gpsLabel, altitudeLabel, headingLabel);
+        this.getChildren().addAll(gpsLabel, altitudeLabel, headingLabel, deviationLabel);
         this.setStyle("-fx-background-color: #2e2e2e; -fx-padding: 10; -fx-text-fill: white;");
         gpsLabel.setStyle("-fx-text-fill: white;");
         altitudeLabel.setStyle("-fx-text-fill: white;");
         headingLabel.setStyle("-fx-text-fill: white;");
+        deviationLabel.setStyle("-fx-text-fill: white;");
     }
 
     public void update(String gps, String alt, String heading) {
@@ -22,4 +25,16 @@ public class DashboardPanel extends VBox {
         altitudeLabel.setText("Altitude: " + alt);
         headingLabel.setText("Heading: " + heading);
     }
+
+    // Formats the sample here, so the decoding side never builds strings
+    public void update(Telemetry t) {
+        gpsLabel.setText(t.hasPosition() ? "GPS: " + t.lat + "," + t.lon : "GPS: -");
+        altitudeLabel.setText(Double.isNaN(t.alt) ? "Altitude: -" : "Altitude: " + t.alt);
+        headingLabel.setText(Double.isNaN(t.heading) ? "Heading: -" : "Heading: " + t.heading);
+    }
+
+    // Cross-track error from the planned path, in metres; NaN when there is no path
+    public void updateDeviation(double meters) {
+        deviationLabel.setText(Double.isNaN(meters) ? "Deviation: -" : String.format("Deviation: %.1f m", meters));
+    }
 }
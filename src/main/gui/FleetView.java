@@ -0,0 +1,65 @@
+package main.gui;
+
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import main.comm.FleetManager;
+import main.comm.Telemetry;
+import main.path.GeoReference;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Draws every vehicle of a FleetManager as a PlaneModel. update() runs once per
+// frame on the FX thread and takes at most the newest sample of each vehicle, so
+// the UI cost is per vehicle per frame however fast the links are. Planes are
+// coloured from a small palette in the order they appear.
+public class FleetView extends Group {
+    private static final Color[] PALETTE = {
+            Color.DEEPSKYBLUE, Color.LIMEGREEN, Color.MAGENTA, Color.GOLD,
+            Color.TOMATO, Color.CYAN, Color.ORCHID, Color.SPRINGGREEN
+    };
+
+    private final FleetManager fleet;
+    private final GeoReference geo;
+    private final Map<FleetManager.Vehicle, PlaneModel> planes = new HashMap<>();
+    private final double[] position = new double[3];
+    private int colorIndex;
+
+    // geo places the samples in the scene, in the same frame as the planned path
+    public FleetView(FleetManager fleet, GeoReference geo) {
+        this.fleet = fleet;
+        this.geo = geo;
+    }
+
+    // Returns how many planes are shown
+    public int update() {
+        List<FleetManager.Vehicle> vehicles = fleet.getVehicles();
+        for (FleetManager.Vehicle vehicle : vehicles) {
+            PlaneModel plane = planes.get(vehicle);
+            if (plane == null) {
+                plane = new PlaneModel(PALETTE[colorIndex++ % PALETTE.length]);
+                plane.setVisible(false); // until its first fix
+                planes.put(vehicle, plane);
+                getChildren().add(plane);
+            }
+            Telemetry t = vehicle.mailbox.poll();
+            if (t == null || !t.hasPosition() || !geo.hasOrigin()) continue;
+            geo.toScene(t.lat, t.lon, t.alt, position);
+            plane.setTranslateX(position[0]);
+            plane.setTranslateY(position[1]);
+            plane.setTranslateZ(position[2]);
+            plane.setAttitude(t.heading, t.pitch, t.roll);
+            plane.setVisible(true);
+        }
+        // Additions happen first, so a mismatch means some vehicles have gone
+        if (planes.size() != vehicles.size()) {
+            planes.entrySet().removeIf(e -> {
+                if (vehicles.contains(e.getKey())) return false;
+                getChildren().remove(e.getValue());
+                return true;
+            });
+        }
+        return planes.size();
+    }
+}
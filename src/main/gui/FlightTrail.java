@@ -0,0 +1,71 @@
+package main.gui;
+
+import javafx.scene.paint.Color;
+import main.comm.Telemetry;
+import main.path.GeoReference;
+import main.path.PathSamples;
+import main.record.FlightLogReader;
+
+// The line a replayed aircraft leaves behind, drawn with a PathTubeMesh. The
+// trail holds at most MAX_POINTS samples: when it fills, every other point is
+// dropped and the spacing doubles, so an hour-long flight costs the same mesh as
+// a short one and still covers the whole path flown so far.
+public class FlightTrail extends PathTubeMesh {
+    private static final int MAX_POINTS = 2048;
+    private static final double MIN_SPACING = 0.5; // scene units (m)
+
+    private final PathSamples samples = new PathSamples();
+    private final Telemetry scratch = new Telemetry();
+    private final double[] position = new double[3];
+    private double spacing = MIN_SPACING;
+
+    public FlightTrail() {
+        super(0.6, Color.DEEPSKYBLUE);
+    }
+
+    public void reset() {
+        samples.clear();
+        spacing = MIN_SPACING;
+        clear();
+    }
+
+    // Adds a point if it is far enough from the last one; returns true if the mesh changed
+    public boolean append(double x, double y, double z) {
+        int n = samples.size;
+        if (n > 0) {
+            double dx = x - samples.x[n - 1], dy = y - samples.y[n - 1], dz = z - samples.z[n - 1];
+            if (dx * dx + dy * dy + dz * dz < spacing * spacing) return false;
+        }
+        if (n == MAX_POINTS) compact();
+        samples.add(x, y, z);
+        update(samples);
+        return true;
+    }
+
+    // Redraws the trail from the start of the flight to record `to`, e.g. after a seek.
+    // Reads at most MAX_POINTS evenly spaced records, whatever the length of the log.
+    public void rebuild(FlightLogReader reader, GeoReference geo, long to) {
+        samples.clear();
+        spacing = MIN_SPACING;
+        long stride = Math.max(1, (to + 1) / (MAX_POINTS / 2));
+        for (long i = 0; i <= to; i += stride) {
+            reader.read(i, scratch);
+            if (!scratch.hasPosition()) continue;
+            geo.toScene(scratch.lat, scratch.lon, scratch.alt, position);
+            samples.add(position[0], position[1], position[2]);
+        }
+        update(samples);
+    }
+
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < samples.size; i += 2) {
+            samples.x[kept] = samples.x[i];
+            samples.y[kept] = samples.y[i];
+            samples.z[kept] = samples.z[i];
+            kept++;
+        }
+        samples.size = kept;
+        spacing *= 2;
+    }
+}
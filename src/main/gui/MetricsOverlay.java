@@ -0,0 +1,54 @@
+package main.gui;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+import javafx.scene.layout.StackPane;
+import main.metrics.Metrics;
+import main.metrics.MetricsRegistry;
+
+// A text panel over the 3D view listing every instrument in a MetricsRegistry. Its
+// timer also times the FX pulses into Metrics.FX_PULSE, whether or not the panel
+// is shown; the text is only rebuilt a few times a second, and only while visible.
+public class MetricsOverlay extends StackPane {
+    private static final long REFRESH_NANOS = 250_000_000;
+
+    private final MetricsRegistry registry;
+    private final Label text = new Label();
+    private final AnimationTimer timer;
+    private long lastPulse;
+    private long lastRefresh;
+
+    public MetricsOverlay(MetricsRegistry registry) {
+        this.registry = registry;
+        text.setStyle("-fx-font-family: monospace; -fx-font-size: 11px; -fx-text-fill: #e0e0e0;");
+        getChildren().add(text);
+        setStyle("-fx-background-color: rgba(24, 26, 32, 0.8); -fx-padding: 6; -fx-background-radius: 6;");
+        setMaxSize(USE_PREF_SIZE, USE_PREF_SIZE);
+        setMouseTransparent(true);
+        setVisible(false);
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (lastPulse != 0) Metrics.FX_PULSE.record(now - lastPulse);
+                lastPulse = now;
+                if (isVisible() && now - lastRefresh >= REFRESH_NANOS) {
+                    lastRefresh = now;
+                    refresh();
+                }
+            }
+        };
+    }
+
+    public void start() {
+        lastPulse = 0;
+        timer.start();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    public void refresh() {
+        text.setText(String.join("\n", registry.summary()));
+    }
+}
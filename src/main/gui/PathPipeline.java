@@ -0,0 +1,255 @@
+package main.gui;
+
+import javafx.application.Platform;
+import main.metrics.Metrics;
+import main.path.AircraftLimits;
+import main.path.ArcLengthTable;
+import main.path.CatmullRomSpline;
+import main.path.PathIndex;
+import main.path.PathSamples;
+import main.path.Trajectory;
+import main.path.TrajectoryGenerator;
+import main.path.Waypoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// Turns waypoints into everything the scene draws and flies along (spline samples,
+// arc length table, closest-point index and tube vertices) on one worker thread,
+// so a long recompute never stalls the FX thread mid-drag.
+//
+// submit() copies the waypoints into a fresh array, so later edits can't race the
+// worker. Requests that arrive while the worker is busy replace each other and
+// only the newest is computed. Results go into a Frame, and the newest Frame is
+// handed to the listener on the FX thread in one piece; a Frame overtaken before
+// the FX thread got to it is dropped unseen. The worker keeps its own spline, so a
+// drag still only resamples the segments around the moved point.
+//
+// Frames are reused: once the listener has swapped in a new Frame it passes the old
+// one back through recycle().
+//
+// With aircraft limits set (setLimits), the path is a TrajectoryGenerator trajectory
+// the aircraft can fly instead of the spline through the waypoints. It is cheap
+// enough to regenerate whole, so those frames always rewrite the full tube.
+public class PathPipeline {
+    // Everything computed from one snapshot. Owned by the FX thread once delivered.
+    public static class Frame {
+        public final PathSamples samples = new PathSamples();
+        public final ArcLengthTable arcLength = new ArcLengthTable();
+        public final PathIndex index = new PathIndex();
+        final TubeGeometry tube;
+        // Waypoints the frame was computed from
+        public int controlCount;
+        // Tube rings that differ from the previous frame computed, inclusive
+        int changedFrom, changedTo;
+        // Numbered in computing order; a gap means frames were dropped in between
+        long sequence;
+        // Set when the request asked for it, e.g. so the listener logs a fresh path
+        public boolean announce;
+        // A trajectory for the limits rather than a spline; then also how long it
+        // takes at their airspeed (s) and how many climb circles it flies
+        public boolean flyable;
+        public double duration;
+        public int climbTurns;
+
+        Frame(double tubeRadius) {
+            tube = new TubeGeometry(tubeRadius);
+        }
+    }
+
+    private static class Request {
+        final double[] points; // x, y, z per waypoint
+        final double tolerance;
+        final boolean announce;
+        final AircraftLimits limits; // null for the spline
+
+        Request(double[] points, double tolerance, boolean announce, AircraftLimits limits) {
+            this.points = points;
+            this.tolerance = tolerance;
+            this.announce = announce;
+            this.limits = limits;
+        }
+    }
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "path-compute");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicReference<Request> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicReference<Frame> published = new AtomicReference<>();
+    private final ConcurrentLinkedQueue<Frame> spare = new ConcurrentLinkedQueue<>();
+    private final Consumer<Frame> listener;
+    private final double tubeRadius;
+    private volatile AircraftLimits limits;
+
+    // Worker-only state
+    private final CatmullRomSpline spline;
+    private double[] controls = new double[0];
+    private int controlCount = -1;
+    private long sequence;
+    private TrajectoryGenerator generator;
+    private AircraftLimits generatorLimits;
+    private final Trajectory trajectory = new Trajectory();
+
+    // tolerance and maxStepsPerSegment as for an adaptive CatmullRomSpline
+    public PathPipeline(double tolerance, int maxStepsPerSegment, double tubeRadius, Consumer<Frame> listener) {
+        this.spline = new CatmullRomSpline(tolerance, maxStepsPerSegment);
+        this.tubeRadius = tubeRadius;
+        this.listener = listener;
+    }
+
+    // Limits for the requests that follow, or null to go back to the spline
+    public void setLimits(AircraftLimits limits) {
+        this.limits = limits == null ? null : limits.copy();
+    }
+
+    public void submit(List<Waypoint> waypoints, double tolerance, boolean announce) {
+        double[] points = new double[waypoints.size() * 3];
+        for (int i = 0; i < waypoints.size(); i++) {
+            Waypoint wp = waypoints.get(i);
+            points[i * 3] = wp.x;
+            points[i * 3 + 1] = wp.y;
+            points[i * 3 + 2] = wp.z;
+        }
+        Request request = new Request(points, tolerance, announce, limits);
+        // A replaced request's announcement carries over to the one replacing it
+        pending.accumulateAndGet(request, (old, next) -> old != null && old.announce && !next.announce
+                ? new Request(next.points, next.tolerance, true, next.limits) : next);
+        if (scheduled.compareAndSet(false, true)) worker.execute(this::drain);
+    }
+
+    // Hands back a Frame the listener no longer uses. Call on the FX thread.
+    public void recycle(Frame frame) {
+        if (frame != null) spare.offer(frame);
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void drain() {
+        Request request;
+        while ((request = pending.getAndSet(null)) != null) {
+            try {
+                publish(compute(request));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        scheduled.set(false);
+        // A submit between the last poll and clearing the flag found it still set
+        if (pending.get() != null && scheduled.compareAndSet(false, true)) worker.execute(this::drain);
+    }
+
+    private Frame compute(Request request) {
+        long start = System.nanoTime();
+        Frame frame = spare.poll();
+        if (frame == null) frame = new Frame(tubeRadius);
+        if (request.limits != null) {
+            computeTrajectory(request, frame);
+        } else {
+            computeSpline(request, frame);
+        }
+        frame.arcLength.build(frame.samples);
+        frame.index.build(frame.samples);
+        // A recycled frame's tube is from some older path, so all of it is rewritten
+        frame.tube.write(frame.samples);
+        frame.controlCount = request.points.length / 3;
+        frame.announce = request.announce;
+        frame.sequence = ++sequence;
+        Metrics.PATH_COMPUTE.recordSince(start);
+        return frame;
+    }
+
+    private void computeTrajectory(Request request, Frame frame) {
+        if (request.limits != generatorLimits) {
+            generator = new TrajectoryGenerator(request.limits);
+            generatorLimits = request.limits;
+        }
+        generator.setTolerance(request.tolerance);
+        generator.generate(request.points, request.points.length / 3, trajectory);
+        copy(trajectory.samples, frame.samples);
+        frame.changedFrom = 0;
+        frame.changedTo = frame.samples.size - 1;
+        frame.flyable = true;
+        frame.duration = trajectory.getDuration();
+        frame.climbTurns = trajectory.climbTurns;
+        // The spline missed these edits, so the next spline request rebuilds it
+        controlCount = -1;
+    }
+
+    private void computeSpline(Request request, Frame frame) {
+        int count = request.points.length / 3;
+        boolean full = count != controlCount || request.tolerance != spline.getTolerance();
+        if (request.tolerance != spline.getTolerance()) spline.setTolerance(request.tolerance);
+        if (count != controlCount) {
+            List<Waypoint> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                list.add(new Waypoint(request.points[i * 3], request.points[i * 3 + 1], request.points[i * 3 + 2]));
+            }
+            spline.setControlPoints(list);
+            controlCount = count;
+        } else {
+            for (int i = 0; i < count; i++) {
+                double x = request.points[i * 3], y = request.points[i * 3 + 1], z = request.points[i * 3 + 2];
+                if (controls[i * 3] != x || controls[i * 3 + 1] != y || controls[i * 3 + 2] != z) {
+                    spline.setControlPoint(i, x, y, z);
+                }
+            }
+        }
+        controls = request.points;
+        boolean changed = spline.update();
+
+        PathSamples samples = frame.samples;
+        copy(spline.getSamples(), samples);
+        if (full) {
+            frame.changedFrom = 0;
+            frame.changedTo = samples.size - 1;
+        } else if (changed) {
+            // A ring's orientation depends on its neighbours, so widen the range by one
+            frame.changedFrom = Math.max(0, spline.getUpdatedFrom() - 1);
+            frame.changedTo = Math.min(samples.size - 1, spline.getUpdatedTo() + 1);
+        } else {
+            frame.changedFrom = 0;
+            frame.changedTo = -1;
+        }
+        frame.flyable = false;
+        frame.duration = 0;
+        frame.climbTurns = 0;
+    }
+
+    private static void copy(PathSamples source, PathSamples target) {
+        target.ensureCapacity(source.size);
+        System.arraycopy(source.x, 0, target.x, 0, source.size);
+        System.arraycopy(source.y, 0, target.y, 0, source.size);
+        System.arraycopy(source.z, 0, target.z, 0, source.size);
+        target.size = source.size;
+    }
+
+    private void publish(Frame frame) {
+        boolean announce = frame.announce;
+        Frame dropped;
+        do {
+            dropped = published.get();
+            frame.announce = announce || (dropped != null && dropped.announce);
+        } while (!published.compareAndSet(dropped, frame));
+        if (dropped != null) {
+            // The FX thread hadn't taken the last one yet; it takes this one instead
+            spare.offer(dropped);
+            Metrics.PATH_FRAMES_DROPPED.increment();
+            return;
+        }
+        Platform.runLater(() -> {
+            Frame latest = published.getAndSet(null);
+            if (latest != null) listener.accept(latest);
+        });
+    }
+}
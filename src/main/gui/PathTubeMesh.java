@@ -0,0 +1,61 @@
+package main.gui;
+
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+import main.path.PathSamples;
+
+// Draws a sampled path as one extruded tube. The TriangleMesh lives as long as the
+// view and its arrays are rewritten in place, so a redraw is an array copy rather
+// than a rebuild of one Cylinder per segment. The vertices come from a
+// TubeGeometry, either the mesh's own or one filled on another thread (show()).
+public class PathTubeMesh extends MeshView {
+    private static final int SIDES = TubeGeometry.SIDES;
+
+    private final TriangleMesh mesh = new TriangleMesh();
+    private final TubeGeometry geometry;
+    private int ringCount = 0;
+
+    public PathTubeMesh(double radius, Color color) {
+        geometry = new TubeGeometry(radius);
+        mesh.getTexCoords().addAll(0, 0);
+        setMesh(mesh);
+        setMaterial(new PhongMaterial(color));
+        setCullFace(CullFace.NONE);
+    }
+
+    public double getRadius() {
+        return geometry.radius;
+    }
+
+    public void update(PathSamples samples) {
+        geometry.write(samples);
+        show(geometry, 0, samples.size - 1);
+    }
+
+    // Uploads rings [from, to] of a finished geometry, or all of it if the ring
+    // count differs from what is shown. Call on the FX thread.
+    void show(TubeGeometry g, int from, int to) {
+        if (g.rings < 2) {
+            clear();
+            return;
+        }
+        if (g.rings != ringCount) {
+            mesh.getPoints().setAll(g.points, 0, g.rings * SIDES * 3);
+            mesh.getFaces().setAll(g.faces, 0, g.faceCount());
+            ringCount = g.rings;
+            return;
+        }
+        if (from > to) return;
+        int offset = from * SIDES * 3;
+        mesh.getPoints().set(offset, g.points, offset, (to - from + 1) * SIDES * 3);
+    }
+
+    public void clear() {
+        mesh.getFaces().clear();
+        mesh.getPoints().clear();
+        ringCount = 0;
+    }
+}
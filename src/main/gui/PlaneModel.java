@@ -5,16 +5,51 @@ import javafx.scene.paint.Color;
 import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.Box;
 import javafx.scene.shape.Sphere;
+import javafx.scene.transform.Rotate;
 
+import java.util.HashMap;
+import java.util.Map;
+
+// JavaFX gives every Box, and every Sphere, of the same size one shared mesh, and the
+// materials are shared here per colour, so a fleet of planes costs a node tree
+// each but no extra meshes or materials. Create on the FX thread.
 public class PlaneModel extends Group {
+    private static final PhongMaterial NOSE_MATERIAL = new PhongMaterial(Color.RED);
+    private static final Map<Color, PhongMaterial> BODY_MATERIALS = new HashMap<>();
+
+    // Applied roll first, then pitch, then heading
+    private final Rotate yaw = new Rotate(0, Rotate.Y_AXIS);
+    private final Rotate pitch = new Rotate(0, Rotate.X_AXIS);
+    private final Rotate roll = new Rotate(0, Rotate.Z_AXIS);
+
     public PlaneModel() {
+        this(Color.ORANGE);
+    }
+
+    public PlaneModel(Color color) {
         Box body = new Box(10, 3, 20);
-        body.setMaterial(new PhongMaterial(Color.ORANGE));
+        body.setMaterial(BODY_MATERIALS.computeIfAbsent(color, PhongMaterial::new));
 
         Sphere nose = new Sphere(2);
         nose.setTranslateZ(-10);
-        nose.setMaterial(new PhongMaterial(Color.RED));
+        nose.setMaterial(NOSE_MATERIAL);
 
         this.getChildren().addAll(body, nose);
+        this.getTransforms().addAll(yaw, pitch, roll);
+    }
+
+    // Degrees; heading clockwise from north (+z), pitch nose up, roll right wing down.
+    // NaN leaves that axis as it was.
+    public void setAttitude(double headingDeg, double pitchDeg, double rollDeg) {
+        // The nose points along -z, so heading 0 needs a half turn
+        if (!Double.isNaN(headingDeg)) yaw.setAngle(headingDeg + 180);
+        if (!Double.isNaN(pitchDeg)) pitch.setAngle(-pitchDeg);
+        if (!Double.isNaN(rollDeg)) roll.setAngle(rollDeg);
+    }
+
+    public void resetAttitude() {
+        yaw.setAngle(0);
+        pitch.setAngle(0);
+        roll.setAngle(0);
     }
-}
\ No newline at end of file
+}
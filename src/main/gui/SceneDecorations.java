@@ -0,0 +1,127 @@
+package main.gui;
+
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+import java.util.Arrays;
+
+// The static parts of the scene: the dashed arena cube, a grid on the ground and
+// rings marking altitude. Each kind is drawn as one TriangleMesh with one material,
+// every line a thin four-sided beam in it, so there are three nodes however many
+// lines there are. Built once at startup and kept while paths come and go.
+public class SceneDecorations {
+    private static final int ARENA_DASHES = 10;
+    private static final double GRID_SPACING = 30;
+    private static final double RING_SPACING = 50;
+    private static final int RING_SEGMENTS = 96;
+
+    // The arena is the cube of the given half size around the origin; the ground is
+    // its bottom face (y = halfSize, since y points down)
+    public static Group build(double halfSize) {
+        double size = 2 * halfSize;
+
+        Lines arena = new Lines(0.5);
+        for (int x = 0; x <= 1; x++) {
+            for (int y = 0; y <= 1; y++) {
+                for (int z = 0; z <= 1; z++) {
+                    for (int axis = 0; axis < 3; axis++) {
+                        // Each edge once, from its corner with the lower coordinate
+                        if ((axis == 0 && x == 1) || (axis == 1 && y == 1) || (axis == 2 && z == 1)) continue;
+                        double x1 = size * x - halfSize, y1 = size * y - halfSize, z1 = size * z - halfSize;
+                        for (int i = 0; i < 2 * ARENA_DASHES; i += 2) {
+                            double t1 = size * i / (2 * ARENA_DASHES), t2 = size * (i + 1) / (2 * ARENA_DASHES);
+                            arena.add(x1 + (axis == 0 ? t1 : 0), y1 + (axis == 1 ? t1 : 0), z1 + (axis == 2 ? t1 : 0),
+                                    x1 + (axis == 0 ? t2 : 0), y1 + (axis == 1 ? t2 : 0), z1 + (axis == 2 ? t2 : 0));
+                        }
+                    }
+                }
+            }
+        }
+
+        Lines grid = new Lines(0.3);
+        for (double d = -halfSize; d <= halfSize + 1e-9; d += GRID_SPACING) {
+            grid.add(d, halfSize, -halfSize, d, halfSize, halfSize);
+            grid.add(-halfSize, halfSize, d, halfSize, halfSize, d);
+        }
+
+        Lines rings = new Lines(0.3);
+        for (double altitude = RING_SPACING; altitude < size - 1e-9; altitude += RING_SPACING) {
+            double y = halfSize - altitude;
+            for (int i = 0; i < RING_SEGMENTS; i++) {
+                double a1 = 2 * Math.PI * i / RING_SEGMENTS, a2 = 2 * Math.PI * (i + 1) / RING_SEGMENTS;
+                rings.add(halfSize * Math.sin(a1), y, halfSize * Math.cos(a1),
+                        halfSize * Math.sin(a2), y, halfSize * Math.cos(a2));
+            }
+        }
+
+        Group group = new Group(arena.toView(Color.GRAY), grid.toView(Color.gray(0.3)),
+                rings.toView(Color.STEELBLUE.darker()));
+        group.setMouseTransparent(true);
+        return group;
+    }
+
+    // Straight line segments accumulated into one mesh
+    private static class Lines {
+        private final double radius;
+        private float[] points = new float[0];
+        private int[] faces = new int[0];
+        private int segments;
+
+        Lines(double radius) {
+            this.radius = radius;
+        }
+
+        void add(double x1, double y1, double z1, double x2, double y2, double z2) {
+            double dx = x2 - x1, dy = y2 - y1, dz = z2 - z1;
+            double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (length == 0) return;
+            dx /= length;
+            dy /= length;
+            dz /= length;
+            // Two sides perpendicular to the segment: d x up, or d x east if it is vertical
+            double nx, ny, nz;
+            if (Math.abs(dy) < 0.9) {
+                nx = -dz; ny = 0; nz = dx;
+            } else {
+                nx = 0; ny = dz; nz = -dy;
+            }
+            double nLen = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            nx /= nLen; ny /= nLen; nz /= nLen;
+            double bx = dy * nz - dz * ny, by = dz * nx - dx * nz, bz = dx * ny - dy * nx;
+
+            if ((segments + 1) * 8 * 3 > points.length) {
+                points = Arrays.copyOf(points, Math.max(64 * 8 * 3, points.length * 2));
+                faces = Arrays.copyOf(faces, Math.max(64 * 8 * 6, faces.length * 2));
+            }
+            int p = segments * 8 * 3;
+            // A square around each end, corners at +n, +b, -n, -b
+            for (int end = 0; end < 2; end++) {
+                double cx = end == 0 ? x1 : x2, cy = end == 0 ? y1 : y2, cz = end == 0 ? z1 : z2;
+                for (int k = 0; k < 4; k++) {
+                    double c = k == 0 ? 1 : k == 2 ? -1 : 0, s = k == 1 ? 1 : k == 3 ? -1 : 0;
+                    points[p++] = (float) (cx + radius * (c * nx + s * bx));
+                    points[p++] = (float) (cy + radius * (c * ny + s * by));
+                    points[p++] = (float) (cz + radius * (c * nz + s * bz));
+                }
+            }
+            // The two squares as a four-sided tube of two rings
+            TubeGeometry.writeFaces(faces, segments * 8 * 6, segments * 8, 2, 4);
+            segments++;
+        }
+
+        MeshView toView(Color color) {
+            TriangleMesh mesh = new TriangleMesh();
+            mesh.getTexCoords().addAll(0, 0);
+            mesh.getPoints().setAll(points, 0, segments * 8 * 3);
+            mesh.getFaces().setAll(faces, 0, segments * 8 * 6);
+            MeshView view = new MeshView(mesh);
+            view.setMaterial(new PhongMaterial(color));
+            view.setCullFace(CullFace.NONE);
+            return view;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package main.gui;
+
+import main.path.PathSamples;
+
+// Vertex and face arrays of a tube around a sampled path: one ring of SIDES points
+// per sample, joined by quads. Plain arrays with no JavaFX in them, so they can be
+// filled on a worker thread and handed to a PathTubeMesh afterwards.
+class TubeGeometry {
+    static final int SIDES = 8;
+    private static final double[] COS = new double[SIDES], SIN = new double[SIDES];
+    static {
+        for (int j = 0; j < SIDES; j++) {
+            COS[j] = Math.cos(2 * Math.PI * j / SIDES);
+            SIN[j] = Math.sin(2 * Math.PI * j / SIDES);
+        }
+    }
+
+    final double radius;
+    float[] points = new float[0];
+    int[] faces = new int[0];
+    int rings;      // rings held in points
+    int faceRings;  // rings the faces were last written for
+
+    TubeGeometry(double radius) {
+        this.radius = radius;
+    }
+
+    // Rewrites every ring, and the faces if the ring count changed
+    void write(PathSamples samples) {
+        rings = samples.size;
+        if (points.length < rings * SIDES * 3) {
+            points = new float[rings * SIDES * 3];
+        }
+        writeRings(samples, 0, rings - 1);
+        writeFaces();
+    }
+
+    private void writeRings(PathSamples samples, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            writeRing(samples, i);
+        }
+    }
+
+    // Topology only depends on the ring count, so faces are left alone on plain moves
+    private void writeFaces() {
+        if (rings == faceRings) return;
+        faceRings = rings;
+        if (rings < 2) return;
+        int needed = (rings - 1) * SIDES * 12;
+        if (faces.length < needed) {
+            faces = new int[needed];
+        }
+        writeFaces(faces, 0, 0, rings, SIDES);
+    }
+
+    // Joins `rings` consecutive rings of `sides` points, the first at point index
+    // `first`, with two triangles per quad, writing (rings - 1) * sides * 12 ints from faces[f]
+    static void writeFaces(int[] faces, int f, int first, int rings, int sides) {
+        for (int i = 0; i < rings - 1; i++) {
+            for (int j = 0; j < sides; j++) {
+                int a = first + i * sides + j;
+                int b = first + i * sides + (j + 1) % sides;
+                int c = a + sides;
+                int d = b + sides;
+                // point, texCoord pairs; every vertex uses the single texCoord 0
+                faces[f++] = a; faces[f++] = 0; faces[f++] = b; faces[f++] = 0; faces[f++] = c; faces[f++] = 0;
+                faces[f++] = b; faces[f++] = 0; faces[f++] = d; faces[f++] = 0; faces[f++] = c; faces[f++] = 0;
+            }
+        }
+    }
+
+    int faceCount() {
+        return rings < 2 ? 0 : (rings - 1) * SIDES * 12;
+    }
+
+    private void writeRing(PathSamples samples, int ring) {
+        int prev = Math.max(0, ring - 1);
+        int next = Math.min(samples.size - 1, ring + 1);
+        double tx = samples.x[next] - samples.x[prev];
+        double ty = samples.y[next] - samples.y[prev];
+        double tz = samples.z[next] - samples.z[prev];
+        double len = Math.sqrt(tx * tx + ty * ty + tz * tz);
+        if (len < 1e-9) {
+            tx = 0; ty = 0; tz = 1;
+        } else {
+            tx /= len; ty /= len; tz /= len;
+        }
+        // Side vector from the tangent alone (t x up), so each ring only depends on its neighbours
+        double nx = -tz, ny = 0, nz = tx;
+        double nLen = Math.sqrt(nx * nx + nz * nz);
+        if (nLen < 1e-6) {
+            nx = 1; ny = 0; nz = 0;
+        } else {
+            nx /= nLen; nz /= nLen;
+        }
+        double bx = ty * nz - tz * ny;
+        double by = tz * nx - tx * nz;
+        double bz = tx * ny - ty * nx;
+        int base = ring * SIDES * 3;
+        for (int j = 0; j < SIDES; j++) {
+            double c = COS[j] * radius, s = SIN[j] * radius;
+            points[base + j * 3] = (float) (samples.x[ring] + c * nx + s * bx);
+            points[base + j * 3 + 1] = (float) (samples.y[ring] + c * ny + s * by);
+            points[base + j * 3 + 2] = (float) (samples.z[ring] + c * nz + s * bz);
+        }
+    }
+}
@@ -3,7 +3,9 @@ package main.gui;
 
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.*;
 import javafx.scene.control.*;
 import javafx.scene.input.ScrollEvent;
@@ -13,15 +15,46 @@ import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.*;
 import javafx.scene.transform.Rotate;
 import javafx.stage.Stage;
+import main.path.AircraftLimits;
+import main.path.ArcLengthTable;
 import main.path.BezierCurve;
+import main.path.BoxObstacle;
+import main.path.CylinderObstacle;
+import main.path.DeviationStats;
+import main.path.GeoReference;
+import main.path.Obstacle;
+import main.path.ObstacleMap;
+import main.path.PlannerService;
+import main.path.PlannerSettings;
+import main.path.PathIndex;
+import main.path.PathSamples;
+import main.path.PathSimplifier;
+import main.path.PathStore;
 import main.path.Waypoint;
 import javafx.scene.image.ImageView;
 import javafx.scene.image.Image;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
+import main.comm.MissionUploader;
+import main.comm.SerialReceiver;
+import main.comm.SerialTransmitter;
+import main.comm.FleetManager;
+import main.comm.LinkProfile;
+import main.comm.LoopbackTransport;
+import main.comm.SimulatedAircraft;
+import main.comm.Telemetry;
+import main.comm.TelemetryMailbox;
+import main.comm.TelemetryProtocol;
 import main.gui.DashboardPanel;
 import main.gui.UIControls;
-import main.gui.WaypointNode;
+import main.gui.WaypointLayer;
+import main.gui.FlightTrail;
+import main.gui.FleetView;
+import main.metrics.AsyncLogger;
+import main.metrics.Metrics;
+import main.record.CsvFlightImporter;
+import main.record.FlightRecorder;
+import main.record.FlightReplay;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.ListCell;
@@ -29,19 +62,19 @@ import javafx.scene.control.ListView;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.control.TextInputDialog;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.nio.file.*;
-import com.google.gson.reflect.TypeToken;
-import com.google.gson.Gson;
-import java.lang.reflect.Type;
 
 import javafx.stage.FileChooser;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.text.SimpleDateFormat;
 import javafx.scene.PointLight;
 import javafx.scene.AmbientLight;
 import javafx.scene.PerspectiveCamera;
@@ -59,10 +92,25 @@ import javafx.scene.canvas.GraphicsContext;
 public class Visualizer3D extends Application {
     private static final String PATHS_FILE = System.getProperty("user.home") + "/.pathplanner_paths.json";
     private final Group sceneRoot = new Group();
-    private final Group waypointGroup = new Group();
     private final Group pathGroup = new Group();
+    private final Group obstacleGroup = new Group();
     private final PlaneModel plane = new PlaneModel();
+    // In chunks, each culled when out of view and coarsened with distance
+    private final ChunkedPathTube pathTube = new ChunkedPathTube(1.2, Color.ORANGE);
+    // Beyond this orbit distance the waypoint markers are drawn coarser
+    private static final double COARSE_MARKER_DISTANCE = 500;
+    // Spline, timing, closest-point index and tube are computed off the FX thread
+    // and swapped in whole by applyPathFrame
+    private double pathTolerance = 0.25;
+    private final PathPipeline pathPipeline = new PathPipeline(pathTolerance, 40, pathTube.getRadius(), this::applyPathFrame);
+    private PathPipeline.Frame pathFrame;
+    // Used for the path when "Flyable path" is ticked
+    private final AircraftLimits aircraftLimits = new AircraftLimits();
+    private long shownPathSequence;
     private final List<Waypoint> waypoints = new ArrayList<>();
+    // All markers in one mesh; picked by ray casting rather than by JavaFX
+    private final WaypointLayer waypointLayer = new WaypointLayer(waypoints);
+    private int draggedWaypoint = -1;
     // Remove cameraPivot
     // Camera orbit state
     private double mouseOldX, mouseOldY;
@@ -81,12 +129,19 @@ public class Visualizer3D extends Application {
     private TextField yField = new TextField();
     private TextField zField = new TextField();
     private TextArea consoleOutput = new TextArea();
-    private final List<WaypointNode> waypointNodes = new ArrayList<>();
+    // log() only queues; the logger thread prints, and hands lines here for the
+    // console, which takes them all at once each frame
+    private final AsyncLogger logger = new AsyncLogger();
+    private final ConcurrentLinkedQueue<String> consoleLines = new ConcurrentLinkedQueue<>();
+    private final MetricsOverlay metricsOverlay = new MetricsOverlay(Metrics.REGISTRY);
+    private StackPane sceneView;
     private int selectedWaypointIndex = -1;
-    private VBox waypointListBox = new VBox(4);
+    // Virtualised, so only the visible rows exist however many waypoints there are
+    private final ListView<Waypoint> waypointList = new ListView<>();
     
     // Path management
-    private final HashMap<String, List<WaypointNode>> paths = new HashMap<>();
+    private final HashMap<String, List<Waypoint>> paths = new HashMap<>();
+    private final PathStore pathStore = new PathStore();
     private String currentPathName = "Path 1";
     private VBox pathListBox = new VBox(4);
     private VBox pathManagerBox = new VBox(8);
@@ -94,16 +149,81 @@ public class Visualizer3D extends Application {
     private boolean simMode = true;
 
     private AnimationTimer simAnimation;
-    private int simIndex = 0;
+    private double simTime = 0; // seconds along the current path
+    private long lastFrameNanos = 0;
     private List<Waypoint> simPath = null;
-    private List<Waypoint> currentSimPath = new ArrayList<>();
+    private PathSamples currentSimPath = new PathSamples();
     private boolean isPlaying = true;
     private Slider animationSlider;
-    private int animationStep = 0;
-    private int animationSteps = 1;
-    private double secondsPerStep = 0.02; // 20ms per step (50 FPS)
+    private double simSpeed = 40; // scene units per second
+    private ArcLengthTable arcLength = new ArcLengthTable();
+    // Closest-point lookups against the planned path, for cross-track error
+    private PathIndex pathIndex = new PathIndex();
+    private final PathIndex.Hit pathHit = new PathIndex.Hit();
+    private final DeviationStats deviationStats = new DeviationStats();
+    private final double[] planePosition = new double[3];
     private Label timeLabel;
 
+    // Live telemetry: the receiver thread publishes into the mailbox, the FX thread drains it once per pulse
+    private final TelemetryMailbox telemetryMailbox = new TelemetryMailbox();
+    // Live fixes, the fleet and the simulator all share the planned path's frame
+    private final GeoReference geoReference = GeoReference.home();
+    private final double[] telemetryPosition = new double[3];
+    private SerialReceiver serialReceiver;
+    private SerialTransmitter serialTransmitter;
+    // Picking this "port" connects to an in-process aircraft over a modelled serial line
+    private static final String SIMULATOR_PORT = "Simulator";
+    private SimulatedAircraft simulatedAircraft;
+    // Further links flown as a fleet: one receive thread for all of them and a plane each
+    private final FleetManager fleetManager = new FleetManager();
+    private final FleetView fleetView = new FleetView(fleetManager, geoReference);
+    private final List<SimulatedAircraft> fleetSimulators = new ArrayList<>();
+    private Label fleetStatus;
+    private int fleetShown;
+    // Kept across reconnects so a stalled upload can resume where it stopped
+    private MissionUploader missionUploader;
+    private Label uploadStatus;
+    // "Send flown path" uploads the drawn path thinned to within this distance of
+    // itself, rather than the waypoints it was drawn through
+    private static final double UPLOAD_TOLERANCE = 0.5;
+    private final PathSimplifier pathSimplifier = new PathSimplifier();
+    private final PathSamples uploadSamples = new PathSamples();
+    private CheckBox sendFlownPathBox;
+    private AnimationTimer telemetryTimer;
+    private DashboardPanel dashboard;
+    private Label connectionStatus;
+    // Every connection is recorded to its own flight log directory
+    private static final String FLIGHTS_DIR = System.getProperty("user.home") + "/.pathplanner_flights";
+    private FlightRecorder flightRecorder;
+    private CheckBox recordFlightBox;
+    // A replayed flight owns the plane and the time slider until it is stopped.
+    // Records are decoded from the mapped log as playback reaches them.
+    private FlightReplay flightReplay;
+    private final GeoReference replayGeo = new GeoReference();
+    // A flight that starts within this distance of home replays in the planned path's
+    // frame; one from elsewhere is centred on its first fix and has no deviation
+    private static final double REPLAY_HOME_RANGE = 2000;
+    private boolean replayAtHome;
+    private final FlightTrail flightTrail = new FlightTrail();
+    private final double[] replayPosition = new double[3];
+    private AnimationTimer replayTimer;
+    private double replayTime; // seconds into the flight
+    private double replaySpeed = 1;
+    private long lastReplayNanos;
+
+    // Route planning around obstacles, inside the cube drawn by SceneDecorations
+    private static final double ARENA_HALF_SIZE = 150;
+    private static final double PLANNER_CLEARANCE = 2;
+    private final List<Obstacle> obstacles = new ArrayList<>();
+    private final PlannerSettings plannerSettings = new PlannerSettings();
+    private final TextField obstacleField = new TextField();
+    // Candidates race for the shortest route; whatever is best at the deadline wins
+    private static final long PLAN_DEADLINE_MILLIS = 2000;
+    private static final double[] PLAN_WEIGHTS = {3.0, 1.5, 1.2};
+    private static final double[] PLAN_CLIMB_COSTS = {1.0, 2.0};
+    private final PlannerService plannerService = new PlannerService();
+    private PlannerService.Job planJob;
+
     private enum AppState { PROJECT_BROWSER, PATH_EDITOR }
     private AppState appState = AppState.PROJECT_BROWSER;
     private BorderPane layout;
@@ -116,9 +236,13 @@ public class Visualizer3D extends Application {
 
     @Override
     public void start(Stage stage) {
+        logger.addSink(consoleLines::add);
+        Metrics.startGcMonitor();
+        metricsOverlay.start();
         // Add all 3D objects to sceneRoot
-        sceneRoot.getChildren().addAll(waypointGroup, pathGroup, plane);
-        buildDottedCube(sceneRoot);
+        sceneRoot.getChildren().addAll(waypointLayer, pathGroup, obstacleGroup, plane, fleetView);
+        // Arena cube, ground grid and altitude rings, as three meshes
+        sceneRoot.getChildren().add(SceneDecorations.build(ARENA_HALF_SIZE));
 
         // Add lighting for 3D visibility
         PointLight light = new PointLight(Color.WHITE);
@@ -144,9 +268,14 @@ public class Visualizer3D extends Application {
         subScene.setCamera(camera);
         subScene.setHeight(900);
         subScene.setWidth(600);
+        subScene.widthProperty().addListener((obs, old, w) -> updateLevelOfDetail());
+        subScene.heightProperty().addListener((obs, old, h) -> updateLevelOfDetail());
 
-        log("Camera position: (" + camera.getTranslateX() + ", " + camera.getTranslateY() + ", " + camera.getTranslateZ() + ")");
-        log("SubScene size: W=" + subScene.getWidth() + ", H=" + subScene.getHeight());
+        logger.debug("Camera position: (" + camera.getTranslateX() + ", " + camera.getTranslateY() + ", " + camera.getTranslateZ() + ")");
+        logger.debug("SubScene size: W=" + subScene.getWidth() + ", H=" + subScene.getHeight());
+        sceneView = new StackPane(subScene, metricsOverlay);
+        StackPane.setAlignment(metricsOverlay, Pos.TOP_RIGHT);
+        StackPane.setMargin(metricsOverlay, new Insets(10));
 
         initArcballCameraControls(camera);
 
@@ -160,9 +289,9 @@ public class Visualizer3D extends Application {
         ImageView logo = new ImageView(new Image(getClass().getResource("pathplanner_icon.png").toExternalForm(), 32, 32, true, true)); // Placeholder icon
         Label title = new Label("PathPlanner 3D");
         title.setStyle("-fx-font-size: 20px; -fx-text-fill: #f8f8f2; -fx-font-weight: bold;");
-        Label status = new Label("● Connected");
-        status.setStyle("-fx-text-fill: #4caf50; -fx-font-size: 14px;");
-        titleBar.getChildren().addAll(logo, title, status);
+        connectionStatus = new Label("● Disconnected");
+        connectionStatus.setStyle("-fx-text-fill: #9e9e9e; -fx-font-size: 14px;");
+        titleBar.getChildren().addAll(logo, title, connectionStatus);
 
         // Controls section (styled, grouped, tooltips)
         VBox controlsBox = new VBox(12);
@@ -174,12 +303,37 @@ public class Visualizer3D extends Application {
         clearBtn.setOnAction(e -> clearAll());
         clearBtn.setTooltip(new Tooltip("Remove all waypoints and paths"));
         Button sendBtn = new Button("Send to Arduino");
-        sendBtn.setOnAction(e -> log("[Stub] Send to Arduino clicked")); // Implement as needed
+        sendBtn.setOnAction(e -> sendPathToVehicle());
         sendBtn.setTooltip(new Tooltip("Send the current path to the Arduino"));
         generateBtn.setStyle("-fx-font-size: 14px; -fx-padding: 6 18 6 18; -fx-background-radius: 6; -fx-background-color: #444a54; -fx-text-fill: #fff;");
         clearBtn.setStyle("-fx-font-size: 14px; -fx-padding: 6 18 6 18; -fx-background-radius: 6; -fx-background-color: #444a54; -fx-text-fill: #fff;");
         sendBtn.setStyle("-fx-font-size: 14px; -fx-padding: 6 18 6 18; -fx-background-radius: 6; -fx-background-color: #444a54; -fx-text-fill: #fff;");
-        controlsBox.getChildren().addAll(generateBtn, clearBtn, sendBtn);
+        // Chord tolerance for the adaptive spline: fewer samples on straight legs, more in turns
+        ComboBox<Double> toleranceBox = new ComboBox<>(FXCollections.observableArrayList(0.05, 0.1, 0.25, 0.5, 1.0, 2.0));
+        toleranceBox.setValue(pathTolerance);
+        toleranceBox.setTooltip(new Tooltip("Maximum distance between the drawn path and the true spline"));
+        toleranceBox.setOnAction(e -> {
+            pathTolerance = toleranceBox.getValue();
+            generatePath();
+        });
+        CheckBox flyableBox = new CheckBox("Flyable path");
+        flyableBox.setStyle("-fx-text-fill: #bfbfbf;");
+        flyableBox.setTooltip(new Tooltip("Turns of at least " + aircraftLimits.minTurnRadius + " m radius and climbs within "
+                + aircraftLimits.maxClimbRate + " m/s at " + aircraftLimits.airspeed + " m/s, instead of a spline"));
+        flyableBox.setOnAction(e -> {
+            pathPipeline.setLimits(flyableBox.isSelected() ? aircraftLimits : null);
+            generatePath();
+        });
+        HBox toleranceRow = new HBox(8, new Label("Path tolerance:"), toleranceBox, flyableBox);
+        Button resumeBtn = new Button("Resume Upload");
+        resumeBtn.setTooltip(new Tooltip("Continue a stalled upload from the last acknowledged chunk"));
+        resumeBtn.setOnAction(e -> resumeUpload());
+        sendFlownPathBox = new CheckBox("Send flown path");
+        sendFlownPathBox.setStyle("-fx-text-fill: #bfbfbf;");
+        sendFlownPathBox.setTooltip(new Tooltip("Send the drawn path, simplified to within " + UPLOAD_TOLERANCE + " m, instead of the waypoints"));
+        uploadStatus = new Label("");
+        uploadStatus.setStyle("-fx-text-fill: #bfbfbf;");
+        controlsBox.getChildren().addAll(generateBtn, clearBtn, sendBtn, sendFlownPathBox, resumeBtn, uploadStatus, toleranceRow);
 
         // Waypoint input fields
         HBox waypointInput = new HBox(6);
@@ -211,16 +365,89 @@ public class Visualizer3D extends Application {
         // Telemetry section
         TitledPane telemetryPane = new TitledPane();
         telemetryPane.setText("Telemetry");
-        DashboardPanel dashboard = new DashboardPanel();
-        telemetryPane.setContent(dashboard);
+        dashboard = new DashboardPanel();
+        ComboBox<String> portBox = new ComboBox<>(FXCollections.observableArrayList(SerialReceiver.listPorts()));
+        portBox.getItems().add(SIMULATOR_PORT);
+        portBox.setPromptText("Port");
+        portBox.setOnShowing(e -> {
+            portBox.getItems().setAll(SerialReceiver.listPorts());
+            portBox.getItems().add(SIMULATOR_PORT);
+        });
+        ComboBox<Integer> baudBox = new ComboBox<>(FXCollections.observableArrayList(9600, 57600, 115200, 230400));
+        baudBox.setValue(115200);
+        ComboBox<TelemetryProtocol> protocolBox = new ComboBox<>(FXCollections.observableArrayList(TelemetryProtocol.values()));
+        protocolBox.setValue(TelemetryProtocol.BINARY);
+        Button connectBtn = new Button("Connect");
+        connectBtn.setTooltip(new Tooltip("Open the telemetry link on the selected port"));
+        connectBtn.setOnAction(e -> {
+            if (serialReceiver != null) {
+                disconnectTelemetry();
+            } else if (portBox.getValue() != null) {
+                connectTelemetry(portBox.getValue(), baudBox.getValue(), protocolBox.getValue());
+            }
+            connectBtn.setText(serialReceiver != null ? "Disconnect" : "Connect");
+        });
+        recordFlightBox = new CheckBox("Record flight");
+        recordFlightBox.setSelected(true);
+        recordFlightBox.setStyle("-fx-text-fill: #bfbfbf;");
+        recordFlightBox.setTooltip(new Tooltip("Log telemetry to " + FLIGHTS_DIR + " while connected"));
+        HBox linkRow = new HBox(6, baudBox, protocolBox);
+        Button openFlightBtn = new Button("Replay Flight...");
+        openFlightBtn.setTooltip(new Tooltip("Play back a recorded flight log or telemetry CSV"));
+        openFlightBtn.setOnAction(e -> openFlight());
+        ComboBox<String> replaySpeedBox = new ComboBox<>(FXCollections.observableArrayList("1x", "2x", "5x", "10x", "25x", "50x", "100x"));
+        replaySpeedBox.setValue("1x");
+        replaySpeedBox.setTooltip(new Tooltip("Replay speed"));
+        replaySpeedBox.setOnAction(e -> replaySpeed = Double.parseDouble(replaySpeedBox.getValue().replace("x", "")));
+        Button stopReplayBtn = new Button("Stop");
+        stopReplayBtn.setTooltip(new Tooltip("Stop the replay"));
+        stopReplayBtn.setOnAction(e -> stopReplay());
+        HBox replayRow = new HBox(6, openFlightBtn, replaySpeedBox, stopReplayBtn);
+        Button addFleetBtn = new Button("Add to Fleet");
+        addFleetBtn.setTooltip(new Tooltip("Show the vehicles on the selected port alongside the connected one; each Simulator is one more aircraft"));
+        addFleetBtn.setOnAction(e -> {
+            if (portBox.getValue() != null) addToFleet(portBox.getValue(), baudBox.getValue(), protocolBox.getValue());
+        });
+        Button clearFleetBtn = new Button("Clear Fleet");
+        clearFleetBtn.setTooltip(new Tooltip("Close every fleet link"));
+        clearFleetBtn.setOnAction(e -> clearFleet());
+        fleetStatus = new Label("");
+        fleetStatus.setStyle("-fx-text-fill: #bfbfbf;");
+        HBox fleetRow = new HBox(6, addFleetBtn, clearFleetBtn, fleetStatus);
+        VBox telemetryContent = new VBox(8, dashboard, portBox, linkRow, recordFlightBox, connectBtn, fleetRow, replayRow);
+        telemetryPane.setContent(telemetryContent);
         telemetryPane.setExpanded(true);
         telemetryPane.setCollapsible(true);
         telemetryPane.setTooltip(new Tooltip("Live drone telemetry"));
 
+        // Obstacles and route planning
+        TitledPane obstaclePane = new TitledPane();
+        obstaclePane.setText("Obstacles");
+        obstacleField.setPromptText("box cx cy cz sx sy sz | cyl cx cz r [h] | nofly cx cz r");
+        obstacleField.setOnAction(e -> addObstacle());
+        Button addObstacleBtn = new Button("Add");
+        addObstacleBtn.setTooltip(new Tooltip("Add the obstacle described in the field"));
+        addObstacleBtn.setOnAction(e -> addObstacle());
+        Button clearObstaclesBtn = new Button("Clear");
+        clearObstaclesBtn.setTooltip(new Tooltip("Remove all obstacles"));
+        clearObstaclesBtn.setOnAction(e -> clearObstacles());
+        ComboBox<Double> resolutionBox = new ComboBox<>(FXCollections.observableArrayList(0.3, 0.5, 1.0, 2.0, 5.0));
+        resolutionBox.setValue(plannerSettings.resolution);
+        resolutionBox.setTooltip(new Tooltip("Planner voxel size; 0.3 is a 1000^3 grid"));
+        resolutionBox.setOnAction(e -> plannerSettings.resolution = resolutionBox.getValue());
+        Button planBtn = new Button("Plan Route");
+        planBtn.setTooltip(new Tooltip("Replace the waypoints with a route through them that avoids the obstacles; click again to cancel"));
+        planBtn.setOnAction(e -> planRoute());
+        HBox obstacleRow = new HBox(6, addObstacleBtn, clearObstaclesBtn);
+        HBox planRow = new HBox(6, new Label("Voxel:"), resolutionBox, planBtn);
+        obstaclePane.setContent(new VBox(8, obstacleField, obstacleRow, planRow));
+        obstaclePane.setExpanded(false);
+        obstaclePane.setCollapsible(true);
+
         // Waypoint list with reorder controls
         Label waypointListLabel = new Label("Waypoints:");
         waypointListLabel.setStyle("-fx-text-fill: #bfbfbf; -fx-font-size: 14px;");
-        waypointListBox.setStyle("-fx-background-color: transparent;");
+        initWaypointList();
         updateWaypointListUI();
 
         // Mode toggle (Sim/Real)
@@ -248,7 +475,7 @@ public class Visualizer3D extends Application {
         pathManagerBox.setStyle("-fx-background-color: transparent;");
 
         // Add all to sidebarContent
-        sidebarContent.getChildren().addAll(titleBar, controlsBox, new Label("Waypoint (X Y Z):"), waypointInput, pathButtons, waypointListLabel, waypointListBox, new Label("Console Output:"), consoleOutput, telemetryPane, modeToggleBox, pathManagerBox);
+        sidebarContent.getChildren().addAll(titleBar, controlsBox, new Label("Waypoint (X Y Z):"), waypointInput, pathButtons, waypointListLabel, waypointList, new Label("Console Output:"), consoleOutput, obstaclePane, telemetryPane, modeToggleBox, pathManagerBox);
         VBox.setVgrow(consoleOutput, Priority.ALWAYS);
 
         // Make sidebar scrollable
@@ -260,7 +487,7 @@ public class Visualizer3D extends Application {
         sidebar.setMaxWidth(340);
 
         // Add a default path for visibility
-        if (waypointNodes.isEmpty()) {
+        if (waypoints.isEmpty()) {
             addDefaultPath();
         }
 
@@ -279,7 +506,11 @@ public class Visualizer3D extends Application {
         replayBtn.setTooltip(new Tooltip("Replay animation"));
         replayBtn.setGraphic(new ImageView(new Image(getClass().getResource("replay_icon.png").toExternalForm(), 22, 22, true, true)));
         replayBtn.setOnAction(e -> {
-            simIndex = 0;
+            if (flightReplay != null) {
+                seekReplay(0);
+                return;
+            }
+            simTime = 0;
             if (animationSlider != null) animationSlider.setValue(0);
             updatePlanePosition();
             updateTimeLabel();
@@ -290,13 +521,27 @@ public class Visualizer3D extends Application {
         timeLabel = new Label("Time: 0.00s / 0.00s");
         timeLabel.setStyle("-fx-text-fill: #e0e0e0; -fx-font-size: 15px; -fx-padding: 0 0 0 12px;");
         animationSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
-            if (!isPlaying && currentSimPath != null && !currentSimPath.isEmpty()) {
-                animationStep = (int) (newVal.doubleValue() * (currentSimPath.size() - 1));
+            if (flightReplay != null) {
+                // The replay timer moves the slider too; only a user drag or a paused replay seeks
+                if (animationSlider.isValueChanging() || !isPlaying) seekReplay(newVal.doubleValue());
+                return;
+            }
+            if (!isPlaying && currentSimPath.size > 0) {
+                simTime = newVal.doubleValue();
                 updatePlanePosition();
                 updateTimeLabel();
             }
         });
-        hotbar.getChildren().addAll(playPauseBtn, replayBtn, animationSlider, timeLabel);
+        ToggleButton metricsBtn = new ToggleButton("Metrics");
+        metricsBtn.setTooltip(new Tooltip("Show frame, path, telemetry and GC timings over the view"));
+        metricsBtn.setOnAction(e -> {
+            metricsOverlay.setVisible(metricsBtn.isSelected());
+            if (metricsBtn.isSelected()) metricsOverlay.refresh();
+        });
+        Button dumpMetricsBtn = new Button("Dump Metrics");
+        dumpMetricsBtn.setTooltip(new Tooltip("Save all timings as JSON"));
+        dumpMetricsBtn.setOnAction(e -> dumpMetrics());
+        hotbar.getChildren().addAll(playPauseBtn, replayBtn, animationSlider, timeLabel, metricsBtn, dumpMetricsBtn);
 
         // Layout
         rootPane = new StackPane();
@@ -314,21 +559,21 @@ public class Visualizer3D extends Application {
 
         loadPathsFromDisk();
         showProjectBrowser();
+        startTelemetryTimer();
         log("Application started. Ready to add waypoints.");
     }
 
     private void savePathsToDisk() {
         try {
-            Gson gson = new Gson();
             Map<String, List<Waypoint>> serializable = new HashMap<>();
-            for (Map.Entry<String, List<WaypointNode>> entry : paths.entrySet()) {
+            for (Map.Entry<String, List<Waypoint>> entry : paths.entrySet()) {
                 List<Waypoint> wps = new ArrayList<>();
-                for (WaypointNode node : entry.getValue()) {
-                    wps.add(new Waypoint(node.getWaypoint().x, node.getWaypoint().y, node.getWaypoint().z));
+                for (Waypoint wp : entry.getValue()) {
+                    wps.add(new Waypoint(wp.x, wp.y, wp.z));
                 }
                 serializable.put(entry.getKey(), wps);
             }
-            Files.write(Paths.get(PATHS_FILE), gson.toJson(serializable).getBytes());
+            pathStore.save(Paths.get(PATHS_FILE), serializable);
             log("Paths autosaved to disk.");
         } catch (Exception e) {
             log("Failed to save paths: " + e.getMessage());
@@ -337,18 +582,15 @@ public class Visualizer3D extends Application {
 
     private void loadPathsFromDisk() {
         try {
-            Gson gson = new Gson();
-            if (!Files.exists(Paths.get(PATHS_FILE))) return;
-            String json = new String(Files.readAllBytes(Paths.get(PATHS_FILE)));
-            Type type = new TypeToken<Map<String, List<Waypoint>>>(){}.getType();
-            Map<String, List<Waypoint>> loaded = gson.fromJson(json, type);
+            Map<String, List<Waypoint>> loaded = pathStore.load(Paths.get(PATHS_FILE));
+            if (loaded == null) return;
             paths.clear();
             for (Map.Entry<String, List<Waypoint>> entry : loaded.entrySet()) {
-                List<WaypointNode> nodes = new ArrayList<>();
+                List<Waypoint> wps = new ArrayList<>();
                 for (Waypoint wp : entry.getValue()) {
-                    nodes.add(new WaypointNode(new Waypoint(wp.x, wp.y, wp.z)));
+                    wps.add(new Waypoint(wp.x, wp.y, wp.z));
                 }
-                paths.put(entry.getKey(), nodes);
+                paths.put(entry.getKey(), wps);
             }
             log("Paths loaded from disk.");
         } catch (Exception e) {
@@ -387,74 +629,75 @@ public class Visualizer3D extends Application {
         return box;
     }
 
-    private void updateWaypointListUI() {
-        waypointListBox.getChildren().clear();
-        for (int i = 0; i < waypointNodes.size(); i++) {
-            int idx = i;
-            WaypointNode node = waypointNodes.get(i);
-            Waypoint wp = node.getWaypoint();
-            HBox row = new HBox(6);
-            row.setStyle("-fx-background-color: " + (idx == selectedWaypointIndex ? "#3a3f4b" : "transparent") + "; -fx-padding: 2 0 2 0;");
-            Label coord = new Label(String.format("(%.1f, %.1f, %.1f)", wp.x, wp.y, wp.z));
-            coord.setStyle("-fx-text-fill: #e0e0e0; -fx-font-size: 13px;");
-            Button upBtn = new Button("↑");
-            upBtn.setTooltip(new Tooltip("Move up"));
-            upBtn.setDisable(idx == 0);
-            upBtn.setOnAction(e -> {
-                if (idx > 0) {
-                    swapWaypoints(idx, idx - 1);
-                }
-            });
-            Button downBtn = new Button("↓");
-            downBtn.setTooltip(new Tooltip("Move down"));
-            downBtn.setDisable(idx == waypointNodes.size() - 1);
-            downBtn.setOnAction(e -> {
-                if (idx < waypointNodes.size() - 1) {
-                    swapWaypoints(idx, idx + 1);
-                }
-            });
-            row.getChildren().addAll(coord, upBtn, downBtn);
-            row.setOnMouseClicked(e -> {
-                if (e.getButton() == MouseButton.PRIMARY) {
-                    selectedWaypointIndex = idx;
-                    highlightSelectedWaypoint();
-                    updateWaypointListUI();
+    private void initWaypointList() {
+        waypointList.setStyle("-fx-background-color: transparent;");
+        waypointList.setPrefHeight(240);
+        waypointList.setCellFactory(list -> new ListCell<Waypoint>() {
+            private final Label coord = new Label();
+            private final Button upBtn = new Button("↑");
+            private final Button downBtn = new Button("↓");
+            private final HBox row = new HBox(6, coord, upBtn, downBtn);
+            {
+                coord.setStyle("-fx-text-fill: #e0e0e0; -fx-font-size: 13px;");
+                upBtn.setTooltip(new Tooltip("Move up"));
+                upBtn.setOnAction(e -> {
+                    if (getIndex() > 0) {
+                        swapWaypoints(getIndex(), getIndex() - 1);
+                    }
+                });
+                downBtn.setTooltip(new Tooltip("Move down"));
+                downBtn.setOnAction(e -> {
+                    if (getIndex() < waypoints.size() - 1) {
+                        swapWaypoints(getIndex(), getIndex() + 1);
+                    }
+                });
+            }
+
+            @Override
+            protected void updateItem(Waypoint wp, boolean empty) {
+                super.updateItem(wp, empty);
+                if (empty || wp == null) {
+                    setGraphic(null);
+                    return;
                 }
-            });
-            waypointListBox.getChildren().add(row);
+                coord.setText(String.format("(%.1f, %.1f, %.1f)", wp.x, wp.y, wp.z));
+                upBtn.setDisable(getIndex() == 0);
+                downBtn.setDisable(getIndex() == waypoints.size() - 1);
+                setGraphic(row);
+            }
+        });
+        waypointList.getSelectionModel().selectedIndexProperty().addListener((obs, old, idx) -> {
+            selectedWaypointIndex = idx.intValue();
+            highlightSelectedWaypoint();
+        });
+    }
+
+    private void updateWaypointListUI() {
+        // Replacing the items redraws the visible cells, even where the same waypoints just moved
+        int selected = selectedWaypointIndex;
+        waypointList.getItems().setAll(waypoints);
+        if (selected >= 0 && selected < waypoints.size()) {
+            waypointList.getSelectionModel().select(selected);
+        } else {
+            waypointList.getSelectionModel().clearSelection();
         }
     }
 
     private void swapWaypoints(int i, int j) {
-        // Swap in both lists
-        WaypointNode tmpNode = waypointNodes.get(i);
-        waypointNodes.set(i, waypointNodes.get(j));
-        waypointNodes.set(j, tmpNode);
         Waypoint tmpWp = waypoints.get(i);
         waypoints.set(i, waypoints.get(j));
         waypoints.set(j, tmpWp);
-        // Update 3D order
-        waypointGroup.getChildren().clear();
-        waypointGroup.getChildren().addAll(waypointNodes);
-        generatePath(); // Always update path after reordering
+        waypointLayer.update(i);
+        waypointLayer.update(j);
+        // A swap only touches the segments around i and j
+        updatePathIncrementally(i);
+        updatePathIncrementally(j);
+        paths.put(currentPathName, new ArrayList<>(waypoints));
         updateWaypointListUI();
     }
 
     private void highlightSelectedWaypoint() {
-        for (int i = 0; i < waypointNodes.size(); i++) {
-            WaypointNode node = waypointNodes.get(i);
-            if (i == selectedWaypointIndex) {
-                node.setMaterial(new PhongMaterial(Color.LIME));
-                node.setScaleX(1.5);
-                node.setScaleY(1.5);
-                node.setScaleZ(1.5);
-            } else {
-                node.setMaterial(new PhongMaterial(Color.YELLOW));
-                node.setScaleX(1.0);
-                node.setScaleY(1.0);
-                node.setScaleZ(1.0);
-            }
-        }
+        waypointLayer.setHighlighted(selectedWaypointIndex);
     }
 
     private void addWaypoint() {
@@ -463,44 +706,8 @@ public class Visualizer3D extends Application {
             double y = Double.parseDouble(yField.getText());
             double z = Double.parseDouble(zField.getText());
             Waypoint wp = new Waypoint(x, y, z);
-            WaypointNode node = new WaypointNode(wp);
-            waypointNodes.add(node);
             waypoints.add(wp);
-            node.setOnMousePressed(e -> {
-                node.setScaleX(1.5);
-                node.setScaleY(1.5);
-                node.setScaleZ(1.5);
-                node.setMaterial(new PhongMaterial(Color.LIME));
-            });
-            node.setOnMouseReleased(e -> {
-                node.setScaleX(1.0);
-                node.setScaleY(1.0);
-                node.setScaleZ(1.0);
-                node.setMaterial(new PhongMaterial(Color.YELLOW));
-                generatePath();
-            });
-            node.setOnMouseDragged(e -> {
-                generatePath();
-            });
-            // Add right-click context menu for deletion
-            ContextMenu contextMenu = new ContextMenu();
-            MenuItem deleteItem = new MenuItem("Delete Waypoint");
-            deleteItem.setOnAction(ev -> {
-                waypointGroup.getChildren().remove(node);
-                int idx = waypointNodes.indexOf(node);
-                if (idx >= 0) {
-                    waypointNodes.remove(idx);
-                    waypoints.remove(idx);
-                }
-                generatePath();
-                updateWaypointListUI();
-                log("Deleted waypoint at (" + x + ", " + y + ", " + z + ")");
-            });
-            contextMenu.getItems().add(deleteItem);
-            node.setOnContextMenuRequested(ev -> {
-                contextMenu.show(node, ev.getScreenX(), ev.getScreenY());
-            });
-            waypointGroup.getChildren().add(node);
+            waypointLayer.refresh();
             log("Added waypoint: (" + x + ", " + y + ", " + z + ")");
             updateWaypointListUI();
             generatePath(); // Always update path after adding
@@ -509,128 +716,109 @@ public class Visualizer3D extends Application {
         }
     }
 
+    private void deleteWaypoint(int idx) {
+        if (idx < 0 || idx >= waypoints.size()) return;
+        Waypoint wp = waypoints.remove(idx);
+        if (selectedWaypointIndex == idx) {
+            selectedWaypointIndex = -1;
+        } else if (selectedWaypointIndex > idx) {
+            selectedWaypointIndex--;
+        }
+        waypointLayer.refresh();
+        highlightSelectedWaypoint();
+        generatePath();
+        updateWaypointListUI();
+        log("Deleted waypoint at (" + wp.x + ", " + wp.y + ", " + wp.z + ")");
+    }
+
     private void generatePath() {
         if (animationSlider == null) return; // Prevent NPE if called too early
         pathGroup.getChildren().clear();
-        // Always rebuild waypoints from all nodes, regardless of count
-        waypoints.clear();
-        for (WaypointNode node : waypointNodes) {
-            Waypoint wp = node.getWaypoint();
-            wp.x = node.getTransforms().get(0) instanceof javafx.scene.transform.Translate ? ((javafx.scene.transform.Translate)node.getTransforms().get(0)).getX() : wp.x;
-            wp.y = node.getTransforms().get(0) instanceof javafx.scene.transform.Translate ? ((javafx.scene.transform.Translate)node.getTransforms().get(0)).getY() : wp.y;
-            wp.z = node.getTransforms().get(0) instanceof javafx.scene.transform.Translate ? ((javafx.scene.transform.Translate)node.getTransforms().get(0)).getZ() : wp.z;
-            waypoints.add(new Waypoint(wp.x, wp.y, wp.z));
+        if (waypoints.size() < 2) {
+            pathPipeline.submit(waypoints, pathTolerance, false);
+            return;
         }
-        System.out.println("[DEBUG] Waypoints: " + waypoints.size());
-        for (int i = 0; i < waypoints.size(); i++) {
-            Waypoint wp = waypoints.get(i);
-            System.out.println("[DEBUG] Waypoint " + i + ": (" + wp.x + ", " + wp.y + ", " + wp.z + ")");
-        }
-        if (waypoints.size() < 2) return;
-        // Draw spheres for each waypoint
-        for (Waypoint wp : waypoints) {
-            Sphere s = new Sphere(2.5);
-            s.setMaterial(new PhongMaterial(Color.YELLOW));
-            s.setTranslateX(wp.x);
-            s.setTranslateY(wp.y);
-            s.setTranslateZ(wp.z);
-            pathGroup.getChildren().add(s);
-        }
-        // Catmull-Rom spline for smooth path
-        List<Waypoint> splinePoints = interpolateCatmullRom(waypoints, 40);
-        currentSimPath = splinePoints;
-        animationSteps = currentSimPath.size();
-        animationSlider.setMax(animationSteps - 1);
-        // Draw cylinders connecting each consecutive pair of spline points
-        for (int i = 0; i < splinePoints.size() - 1; i++) {
-            Waypoint a = splinePoints.get(i);
-            Waypoint b = splinePoints.get(i + 1);
-            Cylinder line = create3DLine(a.x, a.y, a.z, b.x, b.y, b.z, 1.2, Color.ORANGE);
-            pathGroup.getChildren().add(line);
-        }
-        log("Generated Catmull-Rom path with " + waypoints.size() + " waypoints and " + animationSteps + " spline points");
+        // The markers are drawn by waypointLayer. Catmull-Rom spline, timing and tube mesh arrive in applyPathFrame
+        pathGroup.getChildren().add(pathTube);
+        pathPipeline.submit(waypoints, pathTolerance, true);
         updateWaypointListUI();
-        paths.put(currentPathName, new ArrayList<>(waypointNodes));
+        paths.put(currentPathName, new ArrayList<>(waypoints));
         if (simMode) startSimAnimation();
     }
 
-    // Catmull-Rom spline interpolation for smooth multi-waypoint paths
-    private List<Waypoint> interpolateCatmullRom(List<Waypoint> wps, int stepsPerSegment) {
-        List<Waypoint> result = new ArrayList<>();
-        if (wps.size() < 2) return result;
-        // For endpoints, duplicate the first and last point
-        List<Waypoint> pts = new ArrayList<>();
-        pts.add(wps.get(0));
-        pts.addAll(wps);
-        pts.add(wps.get(wps.size() - 1));
-        for (int i = 0; i < pts.size() - 3; i++) {
-            Waypoint p0 = pts.get(i);
-            Waypoint p1 = pts.get(i + 1);
-            Waypoint p2 = pts.get(i + 2);
-            Waypoint p3 = pts.get(i + 3);
-            for (int s = 0; s < stepsPerSegment; s++) {
-                double t = s / (double) stepsPerSegment;
-                double t2 = t * t;
-                double t3 = t2 * t;
-                double x = 0.5 * ((2 * p1.x) + (-p0.x + p2.x) * t + (2*p0.x - 5*p1.x + 4*p2.x - p3.x) * t2 + (-p0.x + 3*p1.x - 3*p2.x + p3.x) * t3);
-                double y = 0.5 * ((2 * p1.y) + (-p0.y + p2.y) * t + (2*p0.y - 5*p1.y + 4*p2.y - p3.y) * t2 + (-p0.y + 3*p1.y - 3*p2.y + p3.y) * t3);
-                double z = 0.5 * ((2 * p1.z) + (-p0.z + p2.z) * t + (2*p0.z - 5*p1.z + 4*p2.z - p3.z) * t2 + (-p0.z + 3*p1.z - 3*p2.z + p3.z) * t3);
-                result.add(new Waypoint(x, y, z));
-            }
+    // Moves one waypoint; the pipeline re-meshes only the spline segments that depend on it
+    private void updatePathIncrementally(int index) {
+        if (animationSlider == null || index < 0 || index >= waypoints.size()) return;
+        pathPipeline.submit(waypoints, pathTolerance, false);
+    }
+
+    // Swaps in a path computed by the pipeline, on the FX thread. Only the tube rings
+    // that changed are uploaded, unless frames were dropped since the last one shown.
+    private void applyPathFrame(PathPipeline.Frame frame) {
+        long start = System.nanoTime();
+        if (frame.sequence == shownPathSequence + 1) {
+            pathTube.show(frame.tube, frame.changedFrom, frame.changedTo);
+        } else {
+            pathTube.show(frame.tube, 0, frame.tube.rings - 1);
+        }
+        Metrics.MESH_UPLOAD.recordSince(start);
+        shownPathSequence = frame.sequence;
+        PathPipeline.Frame previous = pathFrame;
+        pathFrame = frame;
+        currentSimPath = frame.samples;
+        arcLength = frame.arcLength;
+        pathIndex = frame.index;
+        pathPipeline.recycle(previous);
+        updatePathTiming();
+        if (frame.announce && frame.flyable) {
+            log(String.format("Generated flyable path through %d waypoints: %.0f m, %.0f s at %.0f m/s, %d climb turns",
+                    frame.controlCount, arcLength.getTotalLength(), frame.duration, aircraftLimits.airspeed, frame.climbTurns));
+        } else if (frame.announce) {
+            log("Generated Catmull-Rom path with " + frame.controlCount + " waypoints and " + frame.samples.size + " spline points");
         }
-        result.add(wps.get(wps.size() - 1));
-        System.out.println("[DEBUG] Catmull-Rom points: " + result.size());
-        return result;
     }
 
-    // Helper to create a 3D line (cylinder) between two points
-    private Cylinder create3DLine(double x1, double y1, double z1, double x2, double y2, double z2, double radius, Color color) {
-        double dx = x2 - x1, dy = y2 - y1, dz = z2 - z1;
-        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
-        Cylinder cylinder = new Cylinder(radius, length);
-        cylinder.setMaterial(new PhongMaterial(color));
-        cylinder.setTranslateX((x1 + x2) / 2);
-        cylinder.setTranslateY((y1 + y2) / 2);
-        cylinder.setTranslateZ((z1 + z2) / 2);
-        // Calculate rotation
-        double phi = Math.atan2(dy, Math.sqrt(dx * dx + dz * dz));
-        double theta = Math.atan2(dx, dz);
-        cylinder.getTransforms().addAll(
-            new Rotate(-Math.toDegrees(theta), Rotate.Y_AXIS),
-            new Rotate(Math.toDegrees(phi), Rotate.X_AXIS)
-        );
-        return cylinder;
+    // Resizes the time slider so the sim flies the path at a constant speed
+    private void updatePathTiming() {
+        if (flightReplay != null) return; // the slider belongs to the replay until it stops
+        double totalTime = arcLength.getTotalLength() / simSpeed;
+        animationSlider.setMax(totalTime);
+        if (simTime > totalTime) simTime = totalTime;
+        updateTimeLabel();
     }
 
     private void clearAll() {
         waypoints.clear();
-        waypointNodes.clear();
-        waypointGroup.getChildren().clear();
+        waypointLayer.refresh();
         pathGroup.getChildren().clear();
         selectedWaypointIndex = -1;
         updateWaypointListUI();
         log("Cleared all waypoints and paths");
         // Save to current path
-        paths.put(currentPathName, new ArrayList<>(waypointNodes));
+        paths.put(currentPathName, new ArrayList<>(waypoints));
         if (simMode) startSimAnimation();
     }
 
     private void startSimAnimation() {
         if (simAnimation != null) simAnimation.stop();
-        simIndex = 0;
+        simTime = 0;
+        lastFrameNanos = 0;
         isPlaying = true;
         if (animationSlider != null) animationSlider.setValue(0);
         updateTimeLabel();
         simAnimation = new AnimationTimer() {
             @Override
             public void handle(long now) {
-                if (!simMode || currentSimPath == null || currentSimPath.size() < 2) return;
+                // Advance by wall-clock time so the speed does not depend on frame rate or sample spacing
+                double dt = lastFrameNanos == 0 ? 0 : Math.min(0.1, (now - lastFrameNanos) / 1e9);
+                lastFrameNanos = now;
+                if (!simMode || flightReplay != null || currentSimPath.size < 2) return;
                 if (isPlaying) {
-                    if (simIndex >= currentSimPath.size()) simIndex = 0; // Loop
-                    animationSlider.setValue(simIndex);
+                    simTime += dt;
+                    if (simTime > getTotalSimTime()) simTime = 0; // Loop
+                    animationSlider.setValue(simTime);
                     updatePlanePosition();
                     updateTimeLabel();
-                    simIndex++;
                 }
             }
         };
@@ -641,73 +829,380 @@ public class Visualizer3D extends Application {
         if (simAnimation != null) simAnimation.stop();
     }
 
-    private void buildDottedCube(Group group) {
-        final double size = 300;
-        final int steps = 20;
-        Group lines = new Group();
-        for (int x = 0; x <= 1; x++) {
-            for (int y = 0; y <= 1; y++) {
-                for (int z = 0; z <= 1; z++) {
-                    for (int dx = 0; dx <= 1; dx++) {
-                        for (int dy = 0; dy <= 1; dy++) {
-                            for (int dz = 0; dz <= 1; dz++) {
-                                if (dx + dy + dz != 1) continue;
-                                for (int i = 0; i < steps; i += 2) {
-                                    double t1 = i / (double) steps;
-                                    double t2 = (i + 1) / (double) steps;
-                                    double x1 = size * (x + dx * t1) - size / 2;
-                                    double y1 = size * (y + dy * t1) - size / 2;
-                                    double z1 = size * (z + dz * t1) - size / 2;
-                                    double x2 = size * (x + dx * t2) - size / 2;
-                                    double y2 = size * (y + dy * t2) - size / 2;
-                                    double z2 = size * (z + dz * t2) - size / 2;
-
-                                    Cylinder line = create3DLine(x1, y1, z1, x2, y2, z2);
-                                    lines.getChildren().add(line);
-                                }
-                            }
-                        }
-                    }
+    private void startTelemetryTimer() {
+        telemetryTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                flushConsole();
+                int shown = fleetView.update();
+                if (shown != fleetShown) {
+                    fleetShown = shown;
+                    fleetStatus.setText(shown == 0 ? "" : shown + (shown == 1 ? " vehicle" : " vehicles"));
+                }
+                // At most one UI update per frame, however fast the link is
+                Telemetry t = telemetryMailbox.poll();
+                if (t == null) return;
+                dashboard.update(t);
+                if (!simMode && flightReplay == null && t.hasPosition()) {
+                    geoReference.toScene(t.lat, t.lon, t.alt, telemetryPosition);
+                    plane.setTranslateX(telemetryPosition[0]);
+                    plane.setTranslateY(telemetryPosition[1]);
+                    plane.setTranslateZ(telemetryPosition[2]);
+                    plane.setAttitude(t.heading, t.pitch, t.roll);
+                    trackDeviation(telemetryPosition, t.timeMillis, true);
                 }
             }
+        };
+        telemetryTimer.start();
+    }
+
+    // Shows how far the aircraft is from the planned path; record adds it to the flight's
+    // stats. position must be in the planned path's frame, i.e. around geoReference's home.
+    private void trackDeviation(double[] position, long time, boolean record) {
+        if (!pathIndex.closest(position[0], position[1], position[2], pathHit)) {
+            dashboard.updateDeviation(Double.NaN);
+            return;
         }
-        group.getChildren().add(lines);
+        dashboard.updateDeviation(pathHit.distance);
+        if (record) deviationStats.add(pathHit.distance, pathHit.along, time);
     }
 
-    private Cylinder create3DLine(double x1, double y1, double z1, double x2, double y2, double z2) {
-        double dx = x2 - x1, dy = y2 - y1, dz = z2 - z1;
-        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+    private void openFlight() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Replay Flight");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Flight Logs", "*.log", "*.idx"),
+                new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        java.io.File flights = new java.io.File(FLIGHTS_DIR);
+        if (flights.isDirectory()) fileChooser.setInitialDirectory(flights);
+        java.io.File file = fileChooser.showOpenDialog(null);
+        if (file == null) return;
+        if (!file.getName().toLowerCase().endsWith(".csv")) {
+            startReplay(file.toPath().getParent());
+            return;
+        }
+        // A CSV is converted to a flight log first, off the FX thread since it may be large
+        String name = file.getName().replaceFirst("(?i)\\.csv$", "");
+        java.nio.file.Path dir = Paths.get(FLIGHTS_DIR, "import-" + name + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()));
+        log("Importing " + file.getName() + "...");
+        Thread importer = new Thread(() -> {
+            try {
+                long rows = CsvFlightImporter.importCsv(file.toPath(), dir);
+                Platform.runLater(() -> {
+                    log("Imported " + rows + " rows to " + dir);
+                    startReplay(dir);
+                });
+            } catch (IOException ex) {
+                Platform.runLater(() -> log("Failed to import " + file.getName() + ": " + ex.getMessage()));
+            }
+        }, "csv-import");
+        importer.setDaemon(true);
+        importer.start();
+    }
 
-        Cylinder cylinder = new Cylinder(0.5, length);
-        cylinder.setMaterial(new PhongMaterial(Color.GRAY));
-        cylinder.setTranslateX((x1 + x2) / 2);
-        cylinder.setTranslateY((y1 + y2) / 2);
-        cylinder.setTranslateZ((z1 + z2) / 2);
+    private void startReplay(java.nio.file.Path dir) {
+        stopReplay();
+        try {
+            flightReplay = new FlightReplay(dir);
+        } catch (Exception e) {
+            log("Failed to open flight log: " + e.getMessage());
+            return;
+        }
+        Telemetry fix = new Telemetry();
+        replayAtHome = false;
+        if (flightReplay.firstFix(fix)) {
+            geoReference.toScene(fix.lat, fix.lon, fix.alt, replayPosition);
+            double fromHome = Math.hypot(replayPosition[0], replayPosition[2]);
+            if (fromHome <= REPLAY_HOME_RANGE) {
+                replayGeo.setOrigin(geoReference.getOriginLat(), geoReference.getOriginLon(), geoReference.getOriginAlt());
+                replayAtHome = true;
+            } else {
+                replayGeo.setOrigin(fix.lat, fix.lon, fix.alt);
+                log(String.format("Flight starts %.1f km from home; replaying around its first fix, without deviation", fromHome / 1000));
+            }
+        } else {
+            replayGeo.clearOrigin();
+            log("Flight log has no position fixes near the start");
+        }
+        stopSimAnimation();
+        plane.resetAttitude();
+        deviationStats.reset();
+        sceneRoot.getChildren().add(flightTrail);
+        replayTime = 0;
+        lastReplayNanos = 0;
+        isPlaying = true;
+        animationSlider.setMax(flightReplay.getDuration() / 1000.0);
+        seekReplay(0);
+        replayTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                double dt = lastReplayNanos == 0 ? 0 : Math.min(0.1, (now - lastReplayNanos) / 1e9);
+                lastReplayNanos = now;
+                if (!isPlaying || flightReplay == null) return;
+                replayTime = Math.min(replayTime + dt * replaySpeed, flightReplay.getDuration() / 1000.0);
+                showReplayFrame(false);
+                animationSlider.setValue(replayTime);
+            }
+        };
+        replayTimer.start();
+        log("Replaying " + dir.getFileName() + ": " + flightReplay.getReader().size() + " samples, "
+                + String.format("%.1f", flightReplay.getDuration() / 1000.0) + "s");
+    }
 
-        double angleX = Math.toDegrees(Math.atan2(dy, dz));
-        double angleY = Math.toDegrees(Math.atan2(dx, dz));
+    private void seekReplay(double seconds) {
+        if (flightReplay == null) return;
+        replayTime = Math.max(0, Math.min(seconds, flightReplay.getDuration() / 1000.0));
+        showReplayFrame(true);
+        if (animationSlider.getValue() != replayTime) animationSlider.setValue(replayTime);
+    }
 
-        cylinder.getTransforms().addAll(
-                new Rotate(angleX, Rotate.X_AXIS),
-                new Rotate(angleY, Rotate.Y_AXIS)
-        );
+    // Moves the plane to the sample at replayTime; a seek redraws the trail up to it
+    private void showReplayFrame(boolean seeked) {
+        long before = flightReplay.getPosition();
+        Telemetry t = flightReplay.seek((long) (replayTime * 1000));
+        long position = flightReplay.getPosition();
+        updateTimeLabel();
+        if (position == before && !seeked) return;
+        dashboard.update(t);
+        if (!replayGeo.hasOrigin() || !t.hasPosition()) return;
+        replayGeo.toScene(t.lat, t.lon, t.alt, replayPosition);
+        plane.setTranslateX(replayPosition[0]);
+        plane.setTranslateY(replayPosition[1]);
+        plane.setTranslateZ(replayPosition[2]);
+        plane.setAttitude(t.heading, t.pitch, t.roll);
+        if (seeked || position < before) {
+            flightTrail.rebuild(flightReplay.getReader(), replayGeo, position);
+        } else {
+            flightTrail.append(replayPosition[0], replayPosition[1], replayPosition[2]);
+        }
+        // Only straight playback counts towards the report, so seeking back doesn't count a stretch twice
+        if (replayAtHome) {
+            trackDeviation(replayPosition, t.timeMillis, !seeked && position > before);
+        } else {
+            dashboard.updateDeviation(Double.NaN);
+        }
+    }
+
+    private void stopReplay() {
+        if (flightReplay == null) return;
+        if (replayTimer != null) replayTimer.stop();
+        replayTimer = null;
+        flightReplay.close();
+        flightReplay = null;
+        flightTrail.reset();
+        sceneRoot.getChildren().remove(flightTrail);
+        plane.resetAttitude();
+        if (deviationStats.getCount() > 0) log(deviationStats.report());
+        updatePathTiming();
+        if (simMode) startSimAnimation();
+        log("Replay stopped");
+    }
+
+    private void connectTelemetry(String portName, int baudRate, TelemetryProtocol protocol) {
+        SerialReceiver receiver;
+        if (SIMULATOR_PORT.equals(portName)) {
+            LoopbackTransport[] ends = LoopbackTransport.pair(LinkProfile.serial(baudRate, 20, 0), System.nanoTime());
+            simulatedAircraft = new SimulatedAircraft(ends[1], protocol, 20);
+            simulatedAircraft.setOrigin(geoReference.getOriginLat(), geoReference.getOriginLon(), geoReference.getOriginAlt());
+            simulatedAircraft.start();
+            receiver = new SerialReceiver(ends[0], protocol);
+        } else {
+            receiver = new SerialReceiver(portName, baudRate, protocol);
+        }
+        if (!receiver.isOpen()) {
+            log("Failed to open " + portName);
+            return;
+        }
+        deviationStats.reset();
+        receiver.addListener(telemetryMailbox);
+        if (recordFlightBox.isSelected()) {
+            startFlightRecorder(receiver);
+        }
+        receiver.start();
+        serialReceiver = receiver;
+        serialTransmitter = new SerialTransmitter(receiver.getTransport());
+        if (protocol == TelemetryProtocol.BINARY) {
+            if (missionUploader == null) missionUploader = new MissionUploader(serialTransmitter);
+            missionUploader.setTransmitter(serialTransmitter);
+            receiver.setFrameListener(missionUploader);
+        }
+        connectionStatus.setText("● Connected");
+        connectionStatus.setStyle("-fx-text-fill: #4caf50; -fx-font-size: 14px;");
+        log("Connected to " + portName + " at " + baudRate + " baud (" + protocol + ")");
+    }
+
+    private void addToFleet(String portName, int baudRate, TelemetryProtocol protocol) {
+        if (SIMULATOR_PORT.equals(portName)) {
+            int k = fleetSimulators.size();
+            LoopbackTransport[] ends = LoopbackTransport.pair(LinkProfile.serial(baudRate, 20, 0), System.nanoTime());
+            SimulatedAircraft aircraft = new SimulatedAircraft(ends[1], protocol, 50);
+            aircraft.setVehicleId(k + 1);
+            // Circle centres on a grid, each 5 m higher than the last, so the planes don't fly through each other
+            aircraft.setOrigin(geoReference.getOriginLat() + 0.0003 * (k % 5), geoReference.getOriginLon() + 0.0004 * (k / 5),
+                    geoReference.getOriginAlt() + 5 * k);
+            aircraft.start();
+            fleetSimulators.add(aircraft);
+            fleetManager.add(ends[0], protocol);
+            log("Added simulated vehicle " + (k + 1) + " to the fleet");
+        } else if (fleetManager.addPort(portName, baudRate, protocol)) {
+            log("Added " + portName + " to the fleet at " + baudRate + " baud (" + protocol + ")");
+        } else {
+            log("Failed to open " + portName);
+        }
+    }
+
+    private void clearFleet() {
+        if (fleetManager.getLinkCount() == 0) return;
+        fleetManager.removeAll();
+        for (SimulatedAircraft aircraft : fleetSimulators) aircraft.close();
+        fleetSimulators.clear();
+        log("Closed all fleet links after " + fleetManager.getMessages() + " samples");
+    }
 
-        return cylinder;
+    private void startFlightRecorder(SerialReceiver receiver) {
+        String name = "flight-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        try {
+            flightRecorder = new FlightRecorder(Paths.get(FLIGHTS_DIR, name));
+            receiver.addListener(flightRecorder);
+        } catch (IOException e) {
+            log("Flight recording disabled: " + e.getMessage());
+            flightRecorder = null;
+        }
+    }
+
+    private void disconnectTelemetry() {
+        if (serialReceiver == null) return;
+        if (missionUploader != null) missionUploader.cancel();
+        // Let queued commands go out before the receiver closes the shared port
+        serialTransmitter.close();
+        serialTransmitter = null;
+        serialReceiver.close();
+        serialReceiver = null;
+        if (flightRecorder != null) {
+            flightRecorder.close();
+            log("Recorded " + flightRecorder.getRecorded() + " samples to " + flightRecorder.getDirectory()
+                    + (flightRecorder.getDropped() > 0 ? " (" + flightRecorder.getDropped() + " dropped)" : ""));
+            flightRecorder = null;
+        }
+        if (simulatedAircraft != null) {
+            simulatedAircraft.close();
+            simulatedAircraft = null;
+        }
+        if (deviationStats.getCount() > 0) log(deviationStats.report());
+        connectionStatus.setText("● Disconnected");
+        connectionStatus.setStyle("-fx-text-fill: #9e9e9e; -fx-font-size: 14px;");
+        log("Disconnected telemetry");
+    }
+
+    private void sendPathToVehicle() {
+        if (serialTransmitter == null) {
+            log("Connect a telemetry port before sending");
+            return;
+        }
+        List<Waypoint> mission = waypoints;
+        if (sendFlownPathBox.isSelected() && currentSimPath.size > 1) {
+            pathSimplifier.douglasPeucker(currentSimPath, UPLOAD_TOLERANCE, uploadSamples);
+            mission = uploadSamples.toWaypoints();
+            log("Simplified " + currentSimPath.size + " path samples to " + mission.size() + " waypoints");
+        }
+        if (serialReceiver.getProtocol() == TelemetryProtocol.BINARY) {
+            missionUploader.upload(mission, 0, uploadListener());
+            log("Uploading " + mission.size() + " waypoints in " + missionUploader.getChunkCount() + " chunks");
+            return;
+        }
+        // Encoded on this thread, so later edits can't race the writer
+        if (serialTransmitter.sendWaypoints(mission)) {
+            log("Queued " + mission.size() + " waypoints for " + currentPathName);
+        } else {
+            log("Link busy, path not sent; try again");
+        }
+    }
+
+    private void resumeUpload() {
+        if (serialTransmitter == null || missionUploader == null || !missionUploader.resume(uploadListener())) {
+            log("Nothing to resume");
+            return;
+        }
+        log("Resuming upload at " + missionUploader.getAckedCount() + "/" + missionUploader.getChunkCount() + " chunks");
+    }
+
+    private MissionUploader.UploadListener uploadListener() {
+        return new MissionUploader.UploadListener() {
+            @Override
+            public void onProgress(int ackedChunks, int totalChunks) {
+                Platform.runLater(() -> uploadStatus.setText("Uploaded " + ackedChunks + "/" + totalChunks + " chunks"));
+            }
+
+            @Override
+            public void onFinished(boolean success) {
+                Platform.runLater(() -> {
+                    uploadStatus.setText(success ? "Upload complete" : "Upload stalled, resume when the link is back");
+                    log(success ? "Mission upload complete" : "Mission upload stalled at "
+                            + missionUploader.getAckedCount() + "/" + missionUploader.getChunkCount() + " chunks");
+                });
+            }
+        };
+    }
+
+    @Override
+    public void stop() {
+        if (telemetryTimer != null) telemetryTimer.stop();
+        metricsOverlay.stop();
+        plannerService.close();
+        pathPipeline.shutdown();
+        clearFleet();
+        fleetManager.close();
+        stopReplay();
+        disconnectTelemetry();
+        logger.close();
+        try {
+            logger.join(500); // let the last lines reach System.out
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     private void initArcballCameraControls(PerspectiveCamera camera) {
+        // Pressing on a waypoint drags it; anywhere else orbits the camera
         subScene.setOnMousePressed(e -> {
             mouseOldX = e.getSceneX();
             mouseOldY = e.getSceneY();
+            draggedWaypoint = e.getButton() == MouseButton.PRIMARY ? waypointLayer.pick(subScene, e.getX(), e.getY()) : -1;
+            if (draggedWaypoint >= 0) waypointLayer.setHighlighted(draggedWaypoint);
         });
         subScene.setOnMouseDragged(e -> {
             double dx = e.getSceneX() - mouseOldX;
-            // Only allow yaw (horizontal orbit), no pitch
-            cameraYaw += dx * 0.5;
-            updateCameraPosition(camera);
+            double dy = e.getSceneY() - mouseOldY;
+            if (draggedWaypoint >= 0 && draggedWaypoint < waypoints.size()) {
+                Waypoint wp = waypoints.get(draggedWaypoint);
+                wp.x += dx * 0.2;
+                wp.y -= dy * 0.2; // Y is inverted in 3D
+                waypointLayer.update(draggedWaypoint);
+                updatePathIncrementally(draggedWaypoint);
+            } else {
+                // Only allow yaw (horizontal orbit), no pitch
+                cameraYaw += dx * 0.5;
+                updateCameraPosition(camera);
+            }
             mouseOldX = e.getSceneX();
             mouseOldY = e.getSceneY();
         });
+        subScene.setOnMouseReleased(e -> {
+            if (draggedWaypoint < 0) return;
+            draggedWaypoint = -1;
+            highlightSelectedWaypoint();
+            updateWaypointListUI();
+            paths.put(currentPathName, new ArrayList<>(waypoints));
+        });
+        ContextMenu waypointMenu = new ContextMenu();
+        MenuItem deleteItem = new MenuItem("Delete Waypoint");
+        waypointMenu.getItems().add(deleteItem);
+        subScene.setOnContextMenuRequested(e -> {
+            int idx = waypointLayer.pick(subScene, e.getX(), e.getY());
+            if (idx < 0) return;
+            deleteItem.setOnAction(ev -> deleteWaypoint(idx));
+            waypointMenu.show(subScene, e.getScreenX(), e.getScreenY());
+        });
         subScene.setOnScroll(event -> {
             double zoomFactor = 1.05;
             if (event.getDeltaY() < 0) {
@@ -746,16 +1241,50 @@ public class Visualizer3D extends Application {
             new Rotate(lookYaw, Rotate.Y_AXIS),
             new Rotate(lookPitch, Rotate.X_AXIS)
         );
+        updateLevelOfDetail();
     }
 
+    // Coarser markers and tube chunks further from the camera, and no chunks outside its view
+    private void updateLevelOfDetail() {
+        if (subScene == null) return; // camera placed before the subScene exists
+        waypointLayer.setCoarse(cameraDistance > COARSE_MARKER_DISTANCE);
+        pathTube.updateView(subScene.getCamera(), subScene.getWidth(), subScene.getHeight());
+    }
+
+    // Safe from any thread; the line reaches the console within a frame
     private void log(String message) {
-        consoleOutput.appendText(message + "\n");
-        System.out.println(message);
+        logger.info(message);
+    }
+
+    private void flushConsole() {
+        String line = consoleLines.poll();
+        if (line == null) return;
+        StringBuilder text = new StringBuilder();
+        for (; line != null; line = consoleLines.poll()) {
+            text.append(line).append('\n');
+        }
+        consoleOutput.appendText(text.toString());
+    }
+
+    private void dumpMetrics() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Metrics as JSON");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("JSON Files", "*.json"));
+        fileChooser.setInitialFileName("metrics.json");
+        java.io.File file = fileChooser.showSaveDialog(null);
+        if (file == null) return;
+        try {
+            Metrics.REGISTRY.writeJson(file.toPath());
+            log("Saved metrics to: " + file.getAbsolutePath());
+        } catch (IOException e) {
+            log("Failed to save metrics: " + e.getMessage());
+        }
     }
 
     private void switchMode(boolean sim) {
         simMode = sim;
         if (simMode) {
+            plane.resetAttitude();
             startSimAnimation();
         } else {
             stopSimAnimation();
@@ -770,9 +1299,8 @@ public class Visualizer3D extends Application {
         String name = "Path " + pathCounter;
         paths.put(name, new ArrayList<>());
         currentPathName = name;
-        waypointNodes.clear();
         waypoints.clear();
-        waypointGroup.getChildren().clear();
+        waypointLayer.refresh();
         pathGroup.getChildren().clear();
         updatePathListUI();
         updateWaypointListUI();
@@ -802,20 +1330,17 @@ public class Visualizer3D extends Application {
 
     private void selectPath(String name) {
         // Save current waypoints to current path
-        paths.put(currentPathName, new ArrayList<>(waypointNodes));
+        paths.put(currentPathName, new ArrayList<>(waypoints));
         // Switch to new path
         currentPathName = name;
-        waypointNodes.clear();
         waypoints.clear();
-        waypointGroup.getChildren().clear();
         pathGroup.getChildren().clear();
-        for (WaypointNode node : paths.get(name)) {
-            waypointNodes.add(new WaypointNode(new Waypoint(node.getWaypoint().x, node.getWaypoint().y, node.getWaypoint().z)));
-        }
-        for (WaypointNode node : waypointNodes) {
-            waypoints.add(node.getWaypoint());
-            waypointGroup.getChildren().add(node);
+        for (Waypoint wp : paths.get(name)) {
+            waypoints.add(new Waypoint(wp.x, wp.y, wp.z));
         }
+        selectedWaypointIndex = -1;
+        waypointLayer.refresh();
+        highlightSelectedWaypoint();
         generatePath();
         updatePathListUI();
         updateWaypointListUI();
@@ -831,8 +1356,8 @@ public class Visualizer3D extends Application {
         Optional<String> result = dialog.showAndWait();
         result.ifPresent(newName -> {
             if (!newName.trim().isEmpty() && !paths.containsKey(newName)) {
-                List<WaypointNode> nodes = paths.remove(name);
-                paths.put(newName, nodes);
+                List<Waypoint> wps = paths.remove(name);
+                paths.put(newName, wps);
                 if (currentPathName.equals(name)) currentPathName = newName;
                 updatePathListUI();
                 log("Renamed path to: " + newName);
@@ -854,12 +1379,9 @@ public class Visualizer3D extends Application {
     private void addDefaultPath() {
         double[][] pts = { { -100, 0, -100 }, { 0, 50, 0 }, { 100, 0, 100 } };
         for (double[] pt : pts) {
-            Waypoint wp = new Waypoint(pt[0], pt[1], pt[2]);
-            WaypointNode node = new WaypointNode(wp);
-            waypointNodes.add(node);
-            waypoints.add(wp);
-            waypointGroup.getChildren().add(node);
+            waypoints.add(new Waypoint(pt[0], pt[1], pt[2]));
         }
+        waypointLayer.refresh();
         generatePath();
     }
 
@@ -871,8 +1393,7 @@ public class Visualizer3D extends Application {
         if (file != null) {
             try (FileWriter writer = new FileWriter(file)) {
                 writer.write("x,y,z\n");
-                for (WaypointNode node : waypointNodes) {
-                    Waypoint wp = node.getWaypoint();
+                for (Waypoint wp : waypoints) {
                     writer.write(wp.x + "," + wp.y + "," + wp.z + "\n");
                 }
                 log("Exported path to: " + file.getAbsolutePath());
@@ -890,7 +1411,7 @@ public class Visualizer3D extends Application {
         if (file != null) {
             try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
                 String line;
-                List<WaypointNode> importedNodes = new ArrayList<>();
+                List<Waypoint> imported = new ArrayList<>();
                 boolean first = true;
                 while ((line = reader.readLine()) != null) {
                     if (first && line.toLowerCase().contains("x") && line.toLowerCase().contains("y") && line.toLowerCase().contains("z")) {
@@ -903,24 +1424,14 @@ public class Visualizer3D extends Application {
                         double x = Double.parseDouble(parts[0].trim());
                         double y = Double.parseDouble(parts[1].trim());
                         double z = Double.parseDouble(parts[2].trim());
-                        Waypoint wp = new Waypoint(x, y, z);
-                        WaypointNode node = new WaypointNode(wp);
-                        importedNodes.add(node);
+                        imported.add(new Waypoint(x, y, z));
                     } catch (NumberFormatException ex) {
                         // skip invalid lines
                     }
                 }
-                if (!importedNodes.isEmpty()) {
-                    waypointNodes.clear();
-                    waypoints.clear();
-                    waypointGroup.getChildren().clear();
-                    for (WaypointNode node : importedNodes) {
-                        waypointNodes.add(node);
-                        waypoints.add(node.getWaypoint());
-                        waypointGroup.getChildren().add(node);
-                    }
-                    generatePath();
-                    log("Imported " + importedNodes.size() + " waypoints from: " + file.getName());
+                if (!imported.isEmpty()) {
+                    replaceWaypoints(imported);
+                    log("Imported " + imported.size() + " waypoints from: " + file.getName());
                 } else {
                     log("No valid waypoints found in: " + file.getName());
                 }
@@ -930,18 +1441,141 @@ public class Visualizer3D extends Application {
         }
     }
 
+    private void replaceWaypoints(List<Waypoint> replacement) {
+        waypoints.clear();
+        waypoints.addAll(replacement);
+        selectedWaypointIndex = -1;
+        waypointLayer.refresh();
+        highlightSelectedWaypoint();
+        generatePath();
+    }
+
+    // Parses one of: box cx cy cz sx sy sz | cyl cx cz r [height] | nofly cx cz r
+    private void addObstacle() {
+        String[] parts = obstacleField.getText().trim().toLowerCase().split("[\\s,]+");
+        try {
+            double[] v = new double[parts.length - 1];
+            for (int i = 1; i < parts.length; i++) v[i - 1] = Double.parseDouble(parts[i]);
+            Obstacle obstacle;
+            switch (parts[0]) {
+                case "box":
+                    obstacle = BoxObstacle.centered(v[0], v[1], v[2], v[3], v[4], v[5]);
+                    break;
+                case "cyl":
+                    // Standing on the floor of the arena (y points down), full height by default
+                    double height = v.length > 3 ? v[3] : 2 * ARENA_HALF_SIZE;
+                    obstacle = new CylinderObstacle(v[0], v[1], v[2], ARENA_HALF_SIZE - height, ARENA_HALF_SIZE);
+                    break;
+                case "nofly":
+                    obstacle = CylinderObstacle.noFlyZone(v[0], v[1], v[2]);
+                    break;
+                default:
+                    log("Unknown obstacle type: " + parts[0]);
+                    return;
+            }
+            obstacles.add(obstacle);
+            obstacleGroup.getChildren().add(createObstacleShape(obstacle));
+            obstacleField.clear();
+            log("Added obstacle: " + String.join(" ", parts));
+        } catch (Exception e) {
+            log("Invalid obstacle: " + obstacleField.getText());
+        }
+    }
+
+    private void clearObstacles() {
+        obstacles.clear();
+        obstacleGroup.getChildren().clear();
+        log("Cleared all obstacles");
+    }
+
+    // Translucent so waypoints and the path stay visible inside and behind them
+    private Shape3D createObstacleShape(Obstacle obstacle) {
+        Shape3D shape;
+        Color color = Color.rgb(220, 70, 60, 0.35);
+        if (obstacle instanceof BoxObstacle) {
+            BoxObstacle b = (BoxObstacle) obstacle;
+            shape = new Box(b.maxX - b.minX, b.maxY - b.minY, b.maxZ - b.minZ);
+            shape.setTranslateX((b.minX + b.maxX) / 2);
+            shape.setTranslateY((b.minY + b.maxY) / 2);
+            shape.setTranslateZ((b.minZ + b.maxZ) / 2);
+        } else {
+            CylinderObstacle c = (CylinderObstacle) obstacle;
+            if (Double.isInfinite(c.minY)) color = Color.rgb(255, 160, 40, 0.25);
+            // No-fly zones are unbounded; draw them across the arena
+            double top = Math.max(c.minY, -ARENA_HALF_SIZE), bottom = Math.min(c.maxY, ARENA_HALF_SIZE);
+            shape = new Cylinder(c.radius, bottom - top, 48);
+            shape.setTranslateX(c.cx);
+            shape.setTranslateY((top + bottom) / 2);
+            shape.setTranslateZ(c.cz);
+        }
+        shape.setMaterial(new PhongMaterial(color));
+        return shape;
+    }
+
+    // Plans through the current waypoints in order with several candidate settings on
+    // the planner service's threads, then replaces them with the shortest route
+    private void planRoute() {
+        if (planJob != null && !planJob.getResult().isDone()) {
+            planJob.cancel();
+            log("Route planning cancelled");
+            return;
+        }
+        if (waypoints.size() < 2) {
+            log("Add at least two waypoints to plan a route");
+            return;
+        }
+        List<Waypoint> stops = new ArrayList<>();
+        for (Waypoint wp : waypoints) {
+            stops.add(new Waypoint(wp.x, wp.y, wp.z));
+        }
+        List<PlannerSettings> candidates = new ArrayList<>();
+        for (double weight : PLAN_WEIGHTS) {
+            for (double climbCost : PLAN_CLIMB_COSTS) {
+                PlannerSettings candidate = plannerSettings.copy();
+                candidate.heuristicWeight = weight;
+                candidate.climbCost = climbCost;
+                candidates.add(candidate);
+            }
+        }
+        ObstacleMap map = new ObstacleMap(obstacles, ARENA_HALF_SIZE, PLANNER_CLEARANCE);
+        log("Planning route with " + candidates.size() + " candidates...");
+        long start = System.nanoTime();
+        PlannerService.Job job = plannerService.submit(map, stops, candidates, PLAN_DEADLINE_MILLIS);
+        planJob = job;
+        job.getResult().whenComplete((best, error) -> Platform.runLater(() -> {
+            double millis = (System.nanoTime() - start) / 1e6;
+            if (job.getResult().isCancelled()) return; // already logged
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                log("Planning failed: " + cause.getMessage());
+                return;
+            }
+            if (best == null) {
+                log(String.format("No route found (%.0f ms)", millis));
+                return;
+            }
+            replaceWaypoints(best.route);
+            log(String.format("Planned route with %d waypoints, %.1f long (weight %.1f, climb cost %.1f, %d voxels expanded, %.0f ms%s)",
+                    best.route.size(), best.length, best.settings.heuristicWeight, best.settings.climbCost, best.expanded, millis,
+                    job.getRemaining() > 0 ? ", deadline reached" : ""));
+        }));
+    }
+
     private void updatePlanePosition() {
-        if (currentSimPath == null || currentSimPath.isEmpty()) return;
-        int idx = Math.max(0, Math.min(simIndex, currentSimPath.size() - 1));
-        Waypoint wp = currentSimPath.get(idx);
-        plane.setTranslateX(wp.x);
-        plane.setTranslateY(wp.y);
-        plane.setTranslateZ(wp.z);
+        if (arcLength.size() == 0) return;
+        arcLength.pointAt(simTime * simSpeed, planePosition);
+        plane.setTranslateX(planePosition[0]);
+        plane.setTranslateY(planePosition[1]);
+        plane.setTranslateZ(planePosition[2]);
+    }
+
+    private double getTotalSimTime() {
+        return arcLength.getTotalLength() / simSpeed;
     }
 
     private void updateTimeLabel() {
-        double currentTime = simIndex * secondsPerStep;
-        double totalTime = (animationSteps - 1) * secondsPerStep;
+        double currentTime = flightReplay != null ? replayTime : simTime;
+        double totalTime = flightReplay != null ? flightReplay.getDuration() / 1000.0 : getTotalSimTime();
         if (timeLabel != null) {
             timeLabel.setText(String.format("Time: %.2fs / %.2fs", currentTime, totalTime));
         }
@@ -1009,17 +1643,17 @@ public class Visualizer3D extends Application {
         return card;
     }
 
-    private void drawPathPreview(Canvas canvas, List<WaypointNode> nodes) {
+    private void drawPathPreview(Canvas canvas, List<Waypoint> route) {
         GraphicsContext gc = canvas.getGraphicsContext2D();
         gc.setFill(javafx.scene.paint.Color.web("#23272e"));
         gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
-        if (nodes == null || nodes.size() < 2) return;
+        if (route == null || route.size() < 2) return;
         // Find bounds
         double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
         double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
-        for (WaypointNode node : nodes) {
-            double x = node.getWaypoint().x;
-            double y = node.getWaypoint().y;
+        for (Waypoint wp : route) {
+            double x = wp.x;
+            double y = wp.y;
             if (x < minX) minX = x;
             if (x > maxX) maxX = x;
             if (y < minY) minY = y;
@@ -1031,18 +1665,18 @@ public class Visualizer3D extends Application {
         // Draw path
         gc.setStroke(javafx.scene.paint.Color.ORANGE);
         gc.setLineWidth(2.0);
-        for (int i = 0; i < nodes.size() - 1; i++) {
-            double x1 = pad + (nodes.get(i).getWaypoint().x - minX) * scaleX;
-            double y1 = pad + (nodes.get(i).getWaypoint().y - minY) * scaleY;
-            double x2 = pad + (nodes.get(i + 1).getWaypoint().x - minX) * scaleX;
-            double y2 = pad + (nodes.get(i + 1).getWaypoint().y - minY) * scaleY;
+        for (int i = 0; i < route.size() - 1; i++) {
+            double x1 = pad + (route.get(i).x - minX) * scaleX;
+            double y1 = pad + (route.get(i).y - minY) * scaleY;
+            double x2 = pad + (route.get(i + 1).x - minX) * scaleX;
+            double y2 = pad + (route.get(i + 1).y - minY) * scaleY;
             gc.strokeLine(x1, canvas.getHeight() - y1, x2, canvas.getHeight() - y2);
         }
         // Draw waypoints
         gc.setFill(javafx.scene.paint.Color.YELLOW);
-        for (WaypointNode node : nodes) {
-            double x = pad + (node.getWaypoint().x - minX) * scaleX;
-            double y = pad + (node.getWaypoint().y - minY) * scaleY;
+        for (Waypoint wp : route) {
+            double x = pad + (wp.x - minX) * scaleX;
+            double y = pad + (wp.y - minY) * scaleY;
             gc.fillOval(x - 3, canvas.getHeight() - y - 3, 6, 6);
         }
     }
@@ -1060,7 +1694,7 @@ public class Visualizer3D extends Application {
         layout.setTop(topBar);
         // Restore sidebar, hotbar, and subScene
         layout.setLeft(sidebar);
-        layout.setCenter(subScene);
+        layout.setCenter(sceneView);
         layout.setBottom(null); // hotbar will be set by path editor logic
         layout.setBottom(hotbar);
     }
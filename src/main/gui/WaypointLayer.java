@@ -0,0 +1,210 @@
+package main.gui;
+
+import javafx.geometry.Point3D;
+import javafx.scene.Camera;
+import javafx.scene.Group;
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.SubScene;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.Sphere;
+import javafx.scene.shape.TriangleMesh;
+import main.path.Waypoint;
+import main.path.WaypointIndex;
+
+import java.util.List;
+
+// Draws every waypoint of a path as a small icosahedron in one TriangleMesh, plus a
+// single Sphere for the selected one, so 10k waypoints cost two nodes rather than
+// 10k Spheres with their own materials. Nothing here is pickable by JavaFX; the
+// owner asks pick() which marker is under the mouse, answered by casting a ray
+// through a WaypointIndex. Call everything on the FX thread.
+public class WaypointLayer extends Group {
+    public static final double RADIUS = 2.5;
+    // Marker shapes, finest first: an icosahedron, and an octahedron for when the
+    // camera is far enough away that a marker is a few pixels across
+    private static final float[][] SHAPE_POINTS = new float[2][];
+    private static final int[][] SHAPE_FACES = {
+            {
+                    0, 11, 5, 0, 5, 1, 0, 1, 7, 0, 7, 10, 0, 10, 11,
+                    1, 5, 9, 5, 11, 4, 11, 10, 2, 10, 7, 6, 7, 1, 8,
+                    3, 9, 4, 3, 4, 2, 3, 2, 6, 3, 6, 8, 3, 8, 9,
+                    4, 9, 5, 2, 4, 11, 6, 2, 10, 8, 6, 7, 9, 8, 1
+            },
+            {
+                    0, 2, 4, 2, 1, 4, 1, 3, 4, 3, 0, 4,
+                    2, 0, 5, 1, 2, 5, 3, 1, 5, 0, 3, 5
+            }
+    };
+    static {
+        double t = (1 + Math.sqrt(5)) / 2;
+        SHAPE_POINTS[0] = shape(new double[][] {
+                {-1, t, 0}, {1, t, 0}, {-1, -t, 0}, {1, -t, 0},
+                {0, -1, t}, {0, 1, t}, {0, -1, -t}, {0, 1, -t},
+                {t, 0, -1}, {t, 0, 1}, {-t, 0, -1}, {-t, 0, 1}
+        }, SHAPE_FACES[0]);
+        SHAPE_POINTS[1] = shape(new double[][] {
+                {1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}
+        }, SHAPE_FACES[1]);
+    }
+
+    private final List<Waypoint> waypoints;
+    private final TriangleMesh mesh = new TriangleMesh();
+    private final Sphere highlight = new Sphere(RADIUS * 1.5);
+    private final WaypointIndex index = new WaypointIndex();
+    private final float[] marker = new float[SHAPE_POINTS[0].length];
+    private boolean indexDirty = true;
+    private int highlighted = -1;
+    private int detail;
+
+    // Shows the waypoints of the given list, which the owner edits and then calls
+    // refresh() or update() for
+    public WaypointLayer(List<Waypoint> waypoints) {
+        this.waypoints = waypoints;
+        mesh.getTexCoords().addAll(0, 0);
+        MeshView markers = new MeshView(mesh);
+        markers.setMaterial(new PhongMaterial(Color.YELLOW));
+        markers.setCullFace(CullFace.NONE);
+        highlight.setMaterial(new PhongMaterial(Color.LIME));
+        highlight.setVisible(false);
+        getChildren().addAll(markers, highlight);
+        setMouseTransparent(true);
+    }
+
+    // Rebuilds every marker after waypoints were added, removed or replaced
+    public void refresh() {
+        buildMesh();
+        indexDirty = true;
+        if (highlighted >= waypoints.size()) highlighted = -1;
+        placeHighlight();
+    }
+
+    // Moves one marker to where its waypoint now is
+    public void update(int i) {
+        int length = SHAPE_POINTS[detail].length;
+        if (i < 0 || i >= waypoints.size() || mesh.getPoints().size() != waypoints.size() * length) {
+            refresh();
+            return;
+        }
+        writeMarker(waypoints.get(i));
+        mesh.getPoints().set(i * length, marker, 0, length);
+        indexDirty = true;
+        if (i == highlighted) placeHighlight();
+    }
+
+    // Octahedra instead of icosahedra, for when the camera is far away
+    public void setCoarse(boolean coarse) {
+        int level = coarse ? 1 : 0;
+        if (level == detail) return;
+        detail = level;
+        buildMesh();
+    }
+
+    // Marks waypoint i as selected, or none for -1
+    public void setHighlighted(int i) {
+        highlighted = i >= 0 && i < waypoints.size() ? i : -1;
+        placeHighlight();
+    }
+
+    public int getHighlighted() {
+        return highlighted;
+    }
+
+    // The waypoint under (x, y) in subScene's coordinates, or -1. The ray starts at
+    // the camera and goes through that pixel of the near plane.
+    public int pick(SubScene subScene, double x, double y) {
+        Camera camera = subScene.getCamera();
+        if (!(camera instanceof PerspectiveCamera) || subScene.getWidth() <= 0 || subScene.getHeight() <= 0) return -1;
+        PerspectiveCamera perspective = (PerspectiveCamera) camera;
+        if (indexDirty) {
+            index.build(waypoints, RADIUS);
+            indexDirty = false;
+        }
+        double width = subScene.getWidth(), height = subScene.getHeight();
+        double t = Math.tan(Math.toRadians(perspective.getFieldOfView()) / 2);
+        double sx, sy;
+        if (perspective.isVerticalFieldOfView()) {
+            sy = t;
+            sx = t * width / height;
+        } else {
+            sx = t;
+            sy = t * height / width;
+        }
+        Point3D direction = new Point3D((2 * x / width - 1) * sx, (2 * y / height - 1) * sy, 1);
+        // The camera's scene is the subScene; from there into this layer's space
+        Point3D origin = sceneToLocal(camera.localToScene(Point3D.ZERO));
+        Point3D through = sceneToLocal(camera.localToScene(direction));
+        if (origin == null || through == null) return -1;
+        Point3D d = through.subtract(origin);
+        return index.raycast(origin.getX(), origin.getY(), origin.getZ(), d.getX(), d.getY(), d.getZ());
+    }
+
+    private void placeHighlight() {
+        if (highlighted < 0) {
+            highlight.setVisible(false);
+            return;
+        }
+        Waypoint wp = waypoints.get(highlighted);
+        highlight.setTranslateX(wp.x);
+        highlight.setTranslateY(wp.y);
+        highlight.setTranslateZ(wp.z);
+        highlight.setVisible(true);
+    }
+
+    private void buildMesh() {
+        int count = waypoints.size();
+        float[] shape = SHAPE_POINTS[detail];
+        int[] shapeFaces = SHAPE_FACES[detail];
+        int vertices = shape.length / 3;
+        float[] points = new float[count * shape.length];
+        int[] faces = new int[count * shapeFaces.length * 2];
+        int f = 0;
+        for (int i = 0; i < count; i++) {
+            writeMarker(waypoints.get(i));
+            System.arraycopy(marker, 0, points, i * shape.length, shape.length);
+            int base = i * vertices;
+            for (int k : shapeFaces) {
+                faces[f++] = base + k;
+                faces[f++] = 0;
+            }
+        }
+        mesh.getPoints().setAll(points);
+        // No smoothing groups means one for the whole mesh; markers share no vertices, so each looks round
+        mesh.getFaces().setAll(faces);
+    }
+
+    private void writeMarker(Waypoint wp) {
+        float[] shape = SHAPE_POINTS[detail];
+        for (int v = 0; v < shape.length; v += 3) {
+            marker[v] = (float) (wp.x + shape[v]);
+            marker[v + 1] = (float) (wp.y + shape[v + 1]);
+            marker[v + 2] = (float) (wp.z + shape[v + 2]);
+        }
+    }
+
+    // Scales the vertices onto a sphere of RADIUS and winds every face so its normal
+    // points outwards
+    private static float[] shape(double[][] v, int[] faces) {
+        float[] points = new float[v.length * 3];
+        for (int i = 0; i < v.length; i++) {
+            double scale = RADIUS / Math.sqrt(v[i][0] * v[i][0] + v[i][1] * v[i][1] + v[i][2] * v[i][2]);
+            for (int k = 0; k < 3; k++) points[i * 3 + k] = (float) (v[i][k] * scale);
+        }
+        for (int f = 0; f < faces.length; f += 3) {
+            double[] a = v[faces[f]], b = v[faces[f + 1]], c = v[faces[f + 2]];
+            double ux = b[0] - a[0], uy = b[1] - a[1], uz = b[2] - a[2];
+            double wx = c[0] - a[0], wy = c[1] - a[1], wz = c[2] - a[2];
+            double nx = uy * wz - uz * wy;
+            double ny = uz * wx - ux * wz;
+            double nz = ux * wy - uy * wx;
+            if (nx * a[0] + ny * a[1] + nz * a[2] < 0) {
+                int t = faces[f + 1];
+                faces[f + 1] = faces[f + 2];
+                faces[f + 2] = t;
+            }
+        }
+        return points;
+    }
+}
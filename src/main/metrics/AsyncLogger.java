@@ -0,0 +1,137 @@
+package main.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Takes log messages from any thread without blocking it: a message below the
+// level is discarded before anything is built (check isEnabled() first when the
+// message itself is costly), and the rest are queued for a "log-writer" thread
+// that prints them to System.out and hands them to the sinks. A full queue drops
+// the message and counts it in Metrics.LOG_DROPPED, so a burst of logging can
+// slow down nothing but the log.
+//
+// The level comes from the pathplanner.log system property (DEBUG, INFO, WARN or
+// ERROR) unless set; INFO by default.
+public class AsyncLogger {
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final int QUEUE_CAPACITY = 4096;
+
+    private static class Entry {
+        final Level level;
+        final String message;
+
+        Entry(Level level, String message) {
+            this.level = level;
+            this.message = message;
+        }
+    }
+
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final List<Consumer<String>> sinks = new CopyOnWriteArrayList<>();
+    private final Thread writer;
+    private volatile Level level;
+    private volatile boolean running = true;
+
+    public AsyncLogger() {
+        this(levelFromProperty());
+    }
+
+    public AsyncLogger(Level level) {
+        this.level = level;
+        writer = new Thread(this::writeLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public boolean isEnabled(Level messageLevel) {
+        return messageLevel.compareTo(level) >= 0;
+    }
+
+    public void log(Level messageLevel, String message) {
+        if (!isEnabled(messageLevel) || !running) return;
+        if (!queue.offer(new Entry(messageLevel, message))) Metrics.LOG_DROPPED.increment();
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    // Gets every message that passes the level, on the writer thread, in order
+    public void addSink(Consumer<String> sink) {
+        sinks.add(sink);
+    }
+
+    // Stops taking messages; those already queued are still written
+    public void close() {
+        running = false;
+        writer.interrupt();
+    }
+
+    // Waits for the writer to finish after close()
+    public void join(long millis) throws InterruptedException {
+        writer.join(millis);
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        StringBuilder out = new StringBuilder();
+        while (running || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                if (running) continue;
+            }
+            queue.drainTo(batch);
+            // One print per batch rather than per message
+            for (Entry entry : batch) {
+                if (entry.level != Level.INFO) out.append(entry.level).append(' ');
+                out.append(entry.message).append('\n');
+            }
+            if (out.length() > 0) System.out.print(out);
+            out.setLength(0);
+            for (Entry entry : batch) {
+                for (Consumer<String> sink : sinks) {
+                    try {
+                        sink.accept(entry.message);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private static Level levelFromProperty() {
+        try {
+            return Level.valueOf(System.getProperty("pathplanner.log", "INFO").trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+}
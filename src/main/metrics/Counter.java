@@ -0,0 +1,34 @@
+package main.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Events counted from any number of threads. A LongAdder, so threads that count
+// at once don't contend on one cache line.
+public class Counter {
+    private final String name;
+    private final LongAdder count = new LongAdder();
+
+    public Counter(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long n) {
+        count.add(n);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+
+    public void reset() {
+        count.reset();
+    }
+}
@@ -0,0 +1,39 @@
+package main.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// A level sampled now and then, such as a queue's depth: the latest value and the
+// highest seen since the last reset. Lock-free; set() from any thread.
+public class Gauge {
+    private final String name;
+    private final AtomicLong value = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public Gauge(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void set(long level) {
+        value.set(level);
+        long previous;
+        while (level > (previous = max.get()) && !max.compareAndSet(previous, level)) {
+            // another thread raised it; try again against the new value
+        }
+    }
+
+    public long get() {
+        return value.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public void reset() {
+        max.set(value.get());
+    }
+}
@@ -0,0 +1,99 @@
+package main.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts of durations in nanoseconds, bucketed the way HdrHistogram does it: every
+// power of two is split into SUB_BUCKETS linear buckets, so any value from 1 ns to
+// hours is kept to within about 3% in a fixed 15 KB array. record() is a few
+// atomic adds and never locks or allocates, so it is cheap enough for the FX pulse,
+// the path worker and the serial threads to call on every event.
+//
+// Readers see a slightly torn view while writers run, which is fine for monitoring.
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucket(nanos));
+        count.increment();
+        sum.add(nanos);
+        long previous;
+        while (nanos > (previous = max.get()) && !max.compareAndSet(previous, nanos)) {
+            // another thread raised it; try again against the new value
+        }
+    }
+
+    // Records the time since start, a System.nanoTime() value
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    // The value at fraction p (0..1) of the recorded values, as the top of its
+    // bucket; 0 when empty
+    public long getPercentile(double p) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += counts.get(i);
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    // Values below SUB_BUCKETS get a bucket each; above, the top SUB_BITS + 1 bits pick it
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        return ((SUB_BUCKETS + sub) << (exponent - SUB_BITS)) + width - 1;
+    }
+}
@@ -0,0 +1,59 @@
+package main.metrics;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+// The application's instruments, shared by every thread that records into them.
+//  fx.pulse         - time between FX pulses (frame time), recorded by MetricsOverlay
+//  path.compute     - spline or trajectory, timing table, index and tube, on the path worker
+//  path.meshUpload  - swapping a computed tube into the scene, on the FX thread
+//  telemetry.decode - decoding one read's worth of bytes on a receive thread
+//  gc.pause         - each stop-the-world collection, once startGcMonitor() has run
+//  serial.txQueue   - messages waiting in a SerialTransmitter's queue
+public final class Metrics {
+    public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    public static final LatencyHistogram FX_PULSE = REGISTRY.histogram("fx.pulse");
+    public static final LatencyHistogram PATH_COMPUTE = REGISTRY.histogram("path.compute");
+    public static final LatencyHistogram MESH_UPLOAD = REGISTRY.histogram("path.meshUpload");
+    public static final LatencyHistogram TELEMETRY_DECODE = REGISTRY.histogram("telemetry.decode");
+    public static final LatencyHistogram GC_PAUSE = REGISTRY.histogram("gc.pause");
+    public static final Gauge SERIAL_QUEUE = REGISTRY.gauge("serial.txQueue");
+    // Path frames computed but overtaken before the FX thread showed them
+    public static final Counter PATH_FRAMES_DROPPED = REGISTRY.counter("path.framesDropped");
+    // Log messages dropped because the logger's queue was full
+    public static final Counter LOG_DROPPED = REGISTRY.counter("log.dropped");
+
+    // Same as com.sun.management.GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION,
+    // read through CompositeData so only java.management is needed
+    private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+    private static boolean gcMonitorStarted;
+
+    private Metrics() {
+    }
+
+    // Records the duration of every collection the JVM reports into GC_PAUSE.
+    // Concurrent cycles (G1's "Concurrent GC", ZGC's "Cycles") run alongside the
+    // application, so they are left out. Durations come in whole milliseconds.
+    public static synchronized void startGcMonitor() {
+        if (gcMonitorStarted) return;
+        gcMonitorStarted = true;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(gc instanceof NotificationEmitter)) continue;
+            if (gc.getName().contains("Concurrent") || gc.getName().contains("Cycles")) continue;
+            ((NotificationEmitter) gc).addNotificationListener(Metrics::onGc, null, null);
+        }
+    }
+
+    private static void onGc(Notification notification, Object handback) {
+        if (!GC_NOTIFICATION.equals(notification.getType())) return;
+        if (!(notification.getUserData() instanceof CompositeData)) return;
+        Object gcInfo = ((CompositeData) notification.getUserData()).get("gcInfo");
+        if (!(gcInfo instanceof CompositeData)) return;
+        Object millis = ((CompositeData) gcInfo).get("duration");
+        if (millis instanceof Number) GC_PAUSE.record(((Number) millis).longValue() * 1_000_000);
+    }
+}
@@ -0,0 +1,113 @@
+package main.metrics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Named histograms, gauges and counters, kept in the order they were registered so
+// the overlay and the JSON dump list them the same way every time. Registering is
+// rare and may lock; recording into what it returns never does.
+public class MetricsRegistry {
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private final List<LatencyHistogram> histograms = new CopyOnWriteArrayList<>();
+    private final List<Gauge> gauges = new CopyOnWriteArrayList<>();
+    private final List<Counter> counters = new CopyOnWriteArrayList<>();
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    public LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = new LatencyHistogram(name);
+        histograms.add(histogram);
+        return histogram;
+    }
+
+    public Gauge gauge(String name) {
+        Gauge gauge = new Gauge(name);
+        gauges.add(gauge);
+        return gauge;
+    }
+
+    public Counter counter(String name) {
+        Counter counter = new Counter(name);
+        counters.add(counter);
+        return counter;
+    }
+
+    public List<LatencyHistogram> getHistograms() {
+        return histograms;
+    }
+
+    public List<Gauge> getGauges() {
+        return gauges;
+    }
+
+    public List<Counter> getCounters() {
+        return counters;
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) histogram.reset();
+        for (Gauge gauge : gauges) gauge.reset();
+        for (Counter counter : counters) counter.reset();
+    }
+
+    // One line per instrument, durations in milliseconds, for a text overlay
+    public List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        for (LatencyHistogram h : histograms) {
+            lines.add(String.format("%-18s n %7d  p50 %7.2f  p99 %7.2f  max %7.2f ms", h.getName(), h.getCount(),
+                    h.getPercentile(0.5) / 1e6, h.getPercentile(0.99) / 1e6, h.getMax() / 1e6));
+        }
+        for (Gauge g : gauges) {
+            lines.add(String.format("%-18s now %5d  max %5d", g.getName(), g.get(), g.getMax()));
+        }
+        for (Counter c : counters) {
+            lines.add(String.format("%-18s %d", c.getName(), c.get()));
+        }
+        return lines;
+    }
+
+    // Everything as JSON; histogram values in nanoseconds
+    public String toJson() {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("timeMillis", System.currentTimeMillis());
+        Map<String, Object> histogramMap = new LinkedHashMap<>();
+        for (LatencyHistogram h : histograms) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("count", h.getCount());
+            entry.put("mean", h.getMean());
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                entry.put(PERCENTILE_NAMES[i], h.getPercentile(PERCENTILES[i]));
+            }
+            entry.put("max", h.getMax());
+            histogramMap.put(h.getName(), entry);
+        }
+        root.put("histogramsNanos", histogramMap);
+        Map<String, Object> gaugeMap = new LinkedHashMap<>();
+        for (Gauge g : gauges) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("value", g.get());
+            entry.put("max", g.getMax());
+            gaugeMap.put(g.getName(), entry);
+        }
+        root.put("gauges", gaugeMap);
+        Map<String, Object> counterMap = new LinkedHashMap<>();
+        for (Counter c : counters) counterMap.put(c.getName(), c.get());
+        root.put("counters", counterMap);
+        return gson.toJson(root);
+    }
+
+    public void writeJson(Path path) throws IOException {
+        Files.writeString(path, toJson(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+package main.path;
+
+// What the aircraft can fly, for TrajectoryGenerator. Plain fields in metres and
+// seconds (1 scene unit = 1 m). The defaults suit a small foam plane.
+public class AircraftLimits {
+    private static final double GRAVITY = 9.81;
+
+    // Cruise airspeed, held through the whole trajectory (m/s)
+    public double airspeed = 12;
+    // Tightest level turn (m)
+    public double minTurnRadius = 20;
+    // Vertical speed limits, both positive (m/s)
+    public double maxClimbRate = 2.5;
+    public double maxDescentRate = 3.5;
+
+    public AircraftLimits copy() {
+        AircraftLimits c = new AircraftLimits();
+        c.airspeed = airspeed;
+        c.minTurnRadius = minTurnRadius;
+        c.maxClimbRate = maxClimbRate;
+        c.maxDescentRate = maxDescentRate;
+        return c;
+    }
+
+    // Radius of a coordinated level turn at the given airspeed and bank angle
+    public static double turnRadius(double airspeed, double bankDegrees) {
+        return airspeed * airspeed / (GRAVITY * Math.tan(Math.toRadians(bankDegrees)));
+    }
+
+    // Steepest flight path angle as a rise over horizontal run
+    double climbGradient() {
+        return gradient(maxClimbRate);
+    }
+
+    double descentGradient() {
+        return gradient(maxDescentRate);
+    }
+
+    private double gradient(double verticalRate) {
+        double v = Math.min(verticalRate, airspeed * 0.99);
+        return v / Math.sqrt(airspeed * airspeed - v * v);
+    }
+}
@@ -0,0 +1,97 @@
+package main.path;
+
+// Cumulative chord length over a sampled path, for moving along it by distance
+// instead of by sample index. Lookups binary-search the table (O(log n)) and
+// interpolate linearly inside the sample interval. Rebuild after the samples change.
+public class ArcLengthTable {
+    private double[] cumulative = new double[0];
+    private PathSamples samples;
+    private int size;
+
+    public void build(PathSamples samples) {
+        this.samples = samples;
+        size = samples.size;
+        if (cumulative.length < size) {
+            cumulative = new double[Math.max(size, cumulative.length + (cumulative.length >> 1))];
+        }
+        if (size == 0) return;
+        cumulative[0] = 0;
+        for (int i = 1; i < size; i++) {
+            double dx = samples.x[i] - samples.x[i - 1];
+            double dy = samples.y[i] - samples.y[i - 1];
+            double dz = samples.z[i] - samples.z[i - 1];
+            cumulative[i] = cumulative[i - 1] + Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+    }
+
+    public double getTotalLength() {
+        return size == 0 ? 0 : cumulative[size - 1];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Distance along the path at sample i
+    public double distanceAt(int i) {
+        return cumulative[i];
+    }
+
+    // Index of the sample interval [i, i + 1] containing distance, clamped to the path
+    public int intervalAt(double distance) {
+        int lo = 0, hi = size - 2;
+        if (hi < 0) return 0;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (cumulative[mid] <= distance) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    // Writes the point at the given distance (clamped to [0, length]) into out[0..2]
+    public void pointAt(double distance, double[] out) {
+        if (size == 0) {
+            throw new IllegalStateException("Arc length table is empty");
+        }
+        if (size == 1) {
+            out[0] = samples.x[0];
+            out[1] = samples.y[0];
+            out[2] = samples.z[0];
+            return;
+        }
+        double d = Math.max(0, Math.min(getTotalLength(), distance));
+        int i = intervalAt(d);
+        double span = cumulative[i + 1] - cumulative[i];
+        double f = span > 0 ? (d - cumulative[i]) / span : 0;
+        out[0] = samples.x[i] + (samples.x[i + 1] - samples.x[i]) * f;
+        out[1] = samples.y[i] + (samples.y[i + 1] - samples.y[i]) * f;
+        out[2] = samples.z[i] + (samples.z[i + 1] - samples.z[i]) * f;
+    }
+
+    // Replaces out with points spaced evenly by distance, always including both ends
+    public void resampleByDistance(double spacing, PathSamples out) {
+        if (spacing <= 0) {
+            throw new IllegalArgumentException("Spacing must be positive: " + spacing);
+        }
+        double length = getTotalLength();
+        int count = size == 0 ? 0 : (int) Math.ceil(length / spacing) + 1;
+        out.ensureCapacity(count);
+        double[] point = new double[3];
+        for (int k = 0; k < count; k++) {
+            pointAt(Math.min(length, k * spacing), point);
+            out.x[k] = point[0];
+            out.y[k] = point[1];
+            out.z[k] = point[2];
+        }
+        out.size = count;
+    }
+
+    // Fixed-rate setpoints for flying the path at a constant speed
+    public void resampleByTime(double speed, double rateHz, PathSamples out) {
+        resampleByDistance(speed / rateHz, out);
+    }
+}
@@ -1,36 +1,144 @@
 package main.path;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class BezierCurve {
-    private final List<Waypoint> controlPoints;
+// Single Bezier curve through all control points. Evaluation uses the Bernstein
+// form with Horner's rule, which is O(n) per sample and allocation free. Very high
+// degrees fall back to de Casteljau on a preallocated scratch buffer, because the
+// Bernstein weights underflow there. Instances are not thread safe.
+public class BezierCurve implements Curve {
+    private static final int MAX_HORNER_DEGREE = 30;
+    private static final int DEFAULT_STEPS = 100;
+
+    private final int degree;
+    private final double[] px, py, pz;
+    // Control points pre-multiplied by their binomial coefficient, for Horner's rule
+    private final double[] bx, by, bz;
+    private final double[] scratchX, scratchY, scratchZ;
 
     public BezierCurve(List<Waypoint> controlPoints) {
-        this.controlPoints = controlPoints;
+        int n = controlPoints.size();
+        if (n == 0) {
+            throw new IllegalArgumentException("A Bezier curve needs at least one control point");
+        }
+        degree = n - 1;
+        px = new double[n];
+        py = new double[n];
+        pz = new double[n];
+        for (int i = 0; i < n; i++) {
+            Waypoint wp = controlPoints.get(i);
+            px[i] = wp.x;
+            py[i] = wp.y;
+            pz[i] = wp.z;
+        }
+        if (degree <= MAX_HORNER_DEGREE) {
+            bx = new double[n];
+            by = new double[n];
+            bz = new double[n];
+            double binomial = 1;
+            for (int i = 0; i < n; i++) {
+                bx[i] = binomial * px[i];
+                by[i] = binomial * py[i];
+                bz[i] = binomial * pz[i];
+                binomial = binomial * (degree - i) / (i + 1);
+            }
+            scratchX = scratchY = scratchZ = null;
+        } else {
+            bx = by = bz = null;
+            scratchX = new double[n];
+            scratchY = new double[n];
+            scratchZ = new double[n];
+        }
     }
 
     public List<Waypoint> getInterpolatedPoints() {
-        List<Waypoint> curve = new ArrayList<>();
-        int steps = 100;
-        for (int i = 0; i <= steps; i++) {
-            double t = i / (double) steps;
-            curve.add(deCasteljau(controlPoints, t));
+        PathSamples samples = new PathSamples();
+        sample(DEFAULT_STEPS + 1, samples);
+        return samples.toWaypoints();
+    }
+
+    // As few points as keep every chord within tolerance of the curve, capped at maxSteps + 1
+    public List<Waypoint> getInterpolatedPoints(double tolerance, int maxSteps) {
+        PathSamples samples = new PathSamples();
+        sample(stepsForTolerance(tolerance, maxSteps) + 1, samples);
+        return samples.toWaypoints();
+    }
+
+    // |B''| <= n (n - 1) * max |P[i+2] - 2 P[i+1] + P[i]| bounds the second derivative
+    public int stepsForTolerance(double tolerance, int maxSteps) {
+        double maxSecondDifference = 0;
+        for (int i = 0; i + 2 <= degree; i++) {
+            double dx = px[i + 2] - 2 * px[i + 1] + px[i];
+            double dy = py[i + 2] - 2 * py[i + 1] + py[i];
+            double dz = pz[i + 2] - 2 * pz[i + 1] + pz[i];
+            maxSecondDifference = Math.max(maxSecondDifference, Math.sqrt(dx * dx + dy * dy + dz * dz));
         }
-        return curve;
+        double bound = (double) degree * (degree - 1) * maxSecondDifference;
+        return Tessellation.stepsForTolerance(bound, tolerance, maxSteps);
     }
 
-    private Waypoint deCasteljau(List<Waypoint> points, double t) {
-        List<Waypoint> tmp = new ArrayList<>(points);
-        int n = tmp.size();
+    @Override
+    public void evaluate(double t, double[] xs, double[] ys, double[] zs, int index) {
+        if (bx == null) {
+            deCasteljau(t, xs, ys, zs, index);
+        } else if (t <= 0.5) {
+            // sum b_i * t^i (1-t)^(n-i) = (1-t)^n * sum b_i * u^i with u = t / (1 - t)
+            double u = t / (1 - t);
+            double x = bx[degree], y = by[degree], z = bz[degree];
+            for (int i = degree - 1; i >= 0; i--) {
+                x = x * u + bx[i];
+                y = y * u + by[i];
+                z = z * u + bz[i];
+            }
+            double scale = pow(1 - t, degree);
+            xs[index] = x * scale;
+            ys[index] = y * scale;
+            zs[index] = z * scale;
+        } else {
+            // Mirror image for t > 0.5 so the ratio stays below one
+            double v = (1 - t) / t;
+            double x = bx[0], y = by[0], z = bz[0];
+            for (int i = 1; i <= degree; i++) {
+                x = x * v + bx[i];
+                y = y * v + by[i];
+                z = z * v + bz[i];
+            }
+            double scale = pow(t, degree);
+            xs[index] = x * scale;
+            ys[index] = y * scale;
+            zs[index] = z * scale;
+        }
+    }
+
+    private void deCasteljau(double t, double[] xs, double[] ys, double[] zs, int index) {
+        int n = degree + 1;
+        System.arraycopy(px, 0, scratchX, 0, n);
+        System.arraycopy(py, 0, scratchY, 0, n);
+        System.arraycopy(pz, 0, scratchZ, 0, n);
+        double s = 1 - t;
         for (int r = 1; r < n; r++) {
             for (int i = 0; i < n - r; i++) {
-                double x = (1 - t) * tmp.get(i).x + t * tmp.get(i + 1).x;
-                double y = (1 - t) * tmp.get(i).y + t * tmp.get(i + 1).y;
-                double z = (1 - t) * tmp.get(i).z + t * tmp.get(i + 1).z;
-                tmp.set(i, new Waypoint(x, y, z));
+                scratchX[i] = s * scratchX[i] + t * scratchX[i + 1];
+                scratchY[i] = s * scratchY[i] + t * scratchY[i + 1];
+                scratchZ[i] = s * scratchZ[i] + t * scratchZ[i + 1];
             }
         }
-        return tmp.get(0);
+        xs[index] = scratchX[0];
+        ys[index] = scratchY[0];
+        zs[index] = scratchZ[0];
+    }
+
+    private static double pow(double base, int exponent) {
+        double result = 1;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) result *= base;
+            base *= base;
+            exponent >>= 1;
+        }
+        return result;
+    }
+
+    public int getDegree() {
+        return degree;
     }
 }
@@ -0,0 +1,42 @@
+package main.path;
+
+// Axis-aligned box, e.g. a building or a hangar.
+public class BoxObstacle implements Obstacle {
+    public final double minX, minY, minZ, maxX, maxY, maxZ;
+
+    public BoxObstacle(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = Math.min(minX, maxX);
+        this.minY = Math.min(minY, maxY);
+        this.minZ = Math.min(minZ, maxZ);
+        this.maxX = Math.max(minX, maxX);
+        this.maxY = Math.max(minY, maxY);
+        this.maxZ = Math.max(minZ, maxZ);
+    }
+
+    // Box of the given size centred on (cx, cy, cz)
+    public static BoxObstacle centered(double cx, double cy, double cz, double sx, double sy, double sz) {
+        return new BoxObstacle(cx - sx / 2, cy - sy / 2, cz - sz / 2, cx + sx / 2, cy + sy / 2, cz + sz / 2);
+    }
+
+    @Override
+    public boolean contains(double x, double y, double z, double margin) {
+        return x >= minX - margin && x <= maxX + margin
+                && y >= minY - margin && y <= maxY + margin
+                && z >= minZ - margin && z <= maxZ + margin;
+    }
+
+    @Override
+    public boolean intersectsCube(double x, double y, double z, double half, double margin) {
+        return contains(x, y, z, margin + half);
+    }
+
+    @Override
+    public boolean containsCube(double x, double y, double z, double half, double margin) {
+        return contains(x, y, z, margin - half);
+    }
+
+    @Override
+    public double[] getBounds() {
+        return new double[] { minX, minY, minZ, maxX, maxY, maxZ };
+    }
+}
@@ -0,0 +1,244 @@
+package main.path;
+
+import java.util.List;
+
+// Catmull-Rom spline through a list of control points. Segment k runs from control
+// point k to k + 1 and depends on points k - 1 .. k + 2 (the end points are
+// duplicated), so moving one control point only dirties up to four segments and
+// update() recomputes just those.
+//
+// Segments are sampled either with a fixed number of steps, or adaptively: each
+// segment gets the fewest steps that keep the polyline within a chord tolerance
+// of the curve (see Tessellation). When an edit changes a segment's step count the
+// samples after it are shifted in place.
+//
+// Each segment's cubic is stored as Horner coefficients (a t^3 + b t^2 + c t + d
+// per axis), refreshed whenever a control point moves, so evaluate() is a handful
+// of multiply-adds and never allocates.
+public class CatmullRomSpline implements Curve {
+    private static final int COEFFS = 12;
+
+    private final int fixedSteps;
+    private final int maxSteps;
+    private double tolerance;
+    private final PathSamples samples = new PathSamples();
+    private double[] cx = new double[0];
+    private double[] cy = new double[0];
+    private double[] cz = new double[0];
+    private double[] coeffs = new double[0];
+    // Sample index of the first sample of each segment; entry [segments] is the final sample
+    private int[] segmentStart = new int[0];
+    private int controlCount;
+
+    // Dirty segment range, inclusive; empty when dirtyFrom > dirtyTo
+    private int dirtyFrom = Integer.MAX_VALUE;
+    private int dirtyTo = -1;
+    // Sample range rewritten by the last update(), inclusive
+    private int updatedFrom = 0;
+    private int updatedTo = -1;
+
+    public CatmullRomSpline(int stepsPerSegment) {
+        this.fixedSteps = stepsPerSegment;
+        this.maxSteps = stepsPerSegment;
+    }
+
+    // Adaptive sampling: chords stay within tolerance, using at most maxStepsPerSegment per segment
+    public CatmullRomSpline(double tolerance, int maxStepsPerSegment) {
+        this.fixedSteps = 0;
+        this.maxSteps = maxStepsPerSegment;
+        setTolerance(tolerance);
+    }
+
+    public void setTolerance(double tolerance) {
+        if (fixedSteps > 0) {
+            throw new IllegalStateException("Spline uses a fixed step count");
+        }
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("Tolerance must be positive: " + tolerance);
+        }
+        this.tolerance = tolerance;
+        int segments = getSegmentCount();
+        if (segments > 0) {
+            dirtyFrom = 0;
+            dirtyTo = segments - 1;
+        }
+    }
+
+    public void setControlPoints(List<Waypoint> points) {
+        controlCount = points.size();
+        if (cx.length < controlCount) {
+            cx = new double[controlCount];
+            cy = new double[controlCount];
+            cz = new double[controlCount];
+        }
+        for (int i = 0; i < controlCount; i++) {
+            Waypoint wp = points.get(i);
+            cx[i] = wp.x;
+            cy[i] = wp.y;
+            cz[i] = wp.z;
+        }
+        int segments = getSegmentCount();
+        if (coeffs.length < segments * COEFFS) {
+            coeffs = new double[segments * COEFFS];
+        }
+        if (segmentStart.length < segments + 1) {
+            segmentStart = new int[segments + 1];
+        }
+        for (int k = 0; k < segments; k++) {
+            computeCoefficients(k);
+        }
+        // Lay out every segment from scratch; update() fills in the samples
+        for (int k = 0; k < segments; k++) {
+            segmentStart[k + 1] = segmentStart[k] + stepsFor(k);
+        }
+        samples.size = controlCount < 2 ? 0 : segmentStart[segments] + 1;
+        samples.ensureCapacity(samples.size);
+        dirtyFrom = 0;
+        dirtyTo = segments - 1;
+    }
+
+    public void setControlPoint(int index, double x, double y, double z) {
+        if (index < 0 || index >= controlCount) {
+            throw new IndexOutOfBoundsException("Control point " + index + " of " + controlCount);
+        }
+        if (cx[index] == x && cy[index] == y && cz[index] == z) return;
+        cx[index] = x;
+        cy[index] = y;
+        cz[index] = z;
+        int last = getSegmentCount() - 1;
+        if (last < 0) return;
+        int from = Math.max(0, index - 2);
+        int to = Math.min(last, index + 1);
+        for (int k = from; k <= to; k++) {
+            computeCoefficients(k);
+        }
+        dirtyFrom = Math.min(dirtyFrom, from);
+        dirtyTo = Math.max(dirtyTo, to);
+    }
+
+    // Recomputes the dirty segments. Returns false when nothing changed.
+    public boolean update() {
+        if (dirtyFrom > dirtyTo) return false;
+        int segments = getSegmentCount();
+        int oldEnd = segmentStart[dirtyTo + 1];
+        int newEnd = segmentStart[dirtyFrom];
+        for (int k = dirtyFrom; k <= dirtyTo; k++) {
+            newEnd += stepsFor(k);
+        }
+        int delta = newEnd - oldEnd;
+        if (delta != 0) {
+            // Step counts changed: move everything after the dirty range, final sample included
+            int tail = samples.size - oldEnd;
+            samples.ensureCapacity(samples.size + delta);
+            System.arraycopy(samples.x, oldEnd, samples.x, newEnd, tail);
+            System.arraycopy(samples.y, oldEnd, samples.y, newEnd, tail);
+            System.arraycopy(samples.z, oldEnd, samples.z, newEnd, tail);
+            samples.size += delta;
+            for (int k = dirtyTo + 2; k <= segments; k++) {
+                segmentStart[k] += delta;
+            }
+        }
+        for (int k = dirtyFrom; k <= dirtyTo; k++) {
+            int steps = stepsFor(k);
+            segmentStart[k + 1] = segmentStart[k] + steps;
+            sampleSegment(k, steps, samples.x, samples.y, samples.z, segmentStart[k]);
+        }
+        int last = samples.size - 1;
+        if (dirtyTo == segments - 1) {
+            samples.x[last] = cx[controlCount - 1];
+            samples.y[last] = cy[controlCount - 1];
+            samples.z[last] = cz[controlCount - 1];
+        }
+        updatedFrom = segmentStart[dirtyFrom];
+        updatedTo = delta == 0 ? Math.min(last, segmentStart[dirtyTo + 1]) : last;
+        dirtyFrom = Integer.MAX_VALUE;
+        dirtyTo = -1;
+        return true;
+    }
+
+    private int stepsFor(int k) {
+        if (fixedSteps > 0) return fixedSteps;
+        int c = k * COEFFS;
+        double bound = Tessellation.cubicSecondDerivativeBound(
+                coeffs[c], coeffs[c + 1], coeffs[c + 4], coeffs[c + 5], coeffs[c + 8], coeffs[c + 9]);
+        return Tessellation.stepsForTolerance(bound, tolerance, maxSteps);
+    }
+
+    @Override
+    public void evaluate(double t, double[] xs, double[] ys, double[] zs, int index) {
+        if (controlCount == 0) {
+            throw new IllegalStateException("Spline has no control points");
+        }
+        int segments = getSegmentCount();
+        if (segments == 0) {
+            xs[index] = cx[0];
+            ys[index] = cy[0];
+            zs[index] = cz[0];
+            return;
+        }
+        double u = Math.max(0, Math.min(1, t)) * segments;
+        int k = Math.min((int) u, segments - 1);
+        evaluateSegment(k, u - k, xs, ys, zs, index);
+    }
+
+    // Writes the point at local parameter t of segment k
+    public void evaluateSegment(int k, double t, double[] xs, double[] ys, double[] zs, int index) {
+        int c = k * COEFFS;
+        xs[index] = ((coeffs[c] * t + coeffs[c + 1]) * t + coeffs[c + 2]) * t + coeffs[c + 3];
+        ys[index] = ((coeffs[c + 4] * t + coeffs[c + 5]) * t + coeffs[c + 6]) * t + coeffs[c + 7];
+        zs[index] = ((coeffs[c + 8] * t + coeffs[c + 9]) * t + coeffs[c + 10]) * t + coeffs[c + 11];
+    }
+
+    // Writes steps samples of segment k (t = 0 inclusive to 1 exclusive) starting at offset
+    public void sampleSegment(int k, int steps, double[] xs, double[] ys, double[] zs, int offset) {
+        for (int s = 0; s < steps; s++) {
+            evaluateSegment(k, s / (double) steps, xs, ys, zs, offset + s);
+        }
+    }
+
+    private void computeCoefficients(int k) {
+        int i0 = Math.max(k - 1, 0);
+        int i3 = Math.min(k + 2, controlCount - 1);
+        int c = k * COEFFS;
+        writeCoefficients(cx[i0], cx[k], cx[k + 1], cx[i3], c);
+        writeCoefficients(cy[i0], cy[k], cy[k + 1], cy[i3], c + 4);
+        writeCoefficients(cz[i0], cz[k], cz[k + 1], cz[i3], c + 8);
+    }
+
+    // 0.5 * (2 p1 + (-p0 + p2) t + (2 p0 - 5 p1 + 4 p2 - p3) t^2 + (-p0 + 3 p1 - 3 p2 + p3) t^3)
+    private void writeCoefficients(double p0, double p1, double p2, double p3, int c) {
+        coeffs[c] = 0.5 * (-p0 + 3 * p1 - 3 * p2 + p3);
+        coeffs[c + 1] = 0.5 * (2 * p0 - 5 * p1 + 4 * p2 - p3);
+        coeffs[c + 2] = 0.5 * (-p0 + p2);
+        coeffs[c + 3] = p1;
+    }
+
+    public PathSamples getSamples() {
+        return samples;
+    }
+
+    public int getControlCount() {
+        return controlCount;
+    }
+
+    public int getSegmentCount() {
+        return Math.max(0, controlCount - 1);
+    }
+
+    // Sample index where segment k starts; k == getSegmentCount() gives the final sample
+    public int getSegmentStart(int k) {
+        return segmentStart[k];
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public int getUpdatedFrom() {
+        return updatedFrom;
+    }
+
+    public int getUpdatedTo() {
+        return updatedTo;
+    }
+}
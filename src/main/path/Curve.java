@@ -0,0 +1,27 @@
+package main.path;
+
+// A parametric curve over t in [0, 1] that writes into caller-owned buffers.
+// Implementations must not allocate while evaluating, so sampling can run on
+// hot paths (rendering, live flight) without producing garbage.
+public interface Curve {
+    // Writes the point at t into xs/ys/zs at index
+    void evaluate(double t, double[] xs, double[] ys, double[] zs, int index);
+
+    // Writes count samples, evenly spaced in t from 0 to 1 inclusive, starting at offset
+    default void sample(int count, double[] xs, double[] ys, double[] zs, int offset) {
+        if (count == 1) {
+            evaluate(0, xs, ys, zs, offset);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            evaluate(i / (double) (count - 1), xs, ys, zs, offset + i);
+        }
+    }
+
+    // Replaces the contents of out with count samples; only grows out when it is too small
+    default void sample(int count, PathSamples out) {
+        out.ensureCapacity(count);
+        sample(count, out.x, out.y, out.z, 0);
+        out.size = count;
+    }
+}
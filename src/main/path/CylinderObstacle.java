@@ -0,0 +1,53 @@
+package main.path;
+
+// Vertical cylinder between minY and maxY, e.g. a tree, a mast or, spanning the
+// whole arena height, a circular no-fly zone.
+public class CylinderObstacle implements Obstacle {
+    public final double cx, cz, radius, minY, maxY;
+
+    public CylinderObstacle(double cx, double cz, double radius, double minY, double maxY) {
+        this.cx = cx;
+        this.cz = cz;
+        this.radius = radius;
+        this.minY = Math.min(minY, maxY);
+        this.maxY = Math.max(minY, maxY);
+    }
+
+    // Unbounded in height, so nothing can fly over or under it
+    public static CylinderObstacle noFlyZone(double cx, double cz, double radius) {
+        return new CylinderObstacle(cx, cz, radius, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    @Override
+    public boolean contains(double x, double y, double z, double margin) {
+        if (y < minY - margin || y > maxY + margin) return false;
+        double dx = x - cx, dz = z - cz;
+        double r = radius + margin;
+        return dx * dx + dz * dz <= r * r;
+    }
+
+    @Override
+    public boolean intersectsCube(double x, double y, double z, double half, double margin) {
+        if (y + half < minY - margin || y - half > maxY + margin) return false;
+        // Nearest point of the cube's square footprint to the axis
+        double dx = Math.max(0, Math.abs(x - cx) - half);
+        double dz = Math.max(0, Math.abs(z - cz) - half);
+        double r = radius + margin;
+        return dx * dx + dz * dz <= r * r;
+    }
+
+    @Override
+    public boolean containsCube(double x, double y, double z, double half, double margin) {
+        if (y - half < minY - margin || y + half > maxY + margin) return false;
+        // Farthest corner of the footprint from the axis
+        double dx = Math.abs(x - cx) + half;
+        double dz = Math.abs(z - cz) + half;
+        double r = radius + margin;
+        return dx * dx + dz * dz <= r * r;
+    }
+
+    @Override
+    public double[] getBounds() {
+        return new double[] { cx - radius, minY, cz - radius, cx + radius, maxY, cz + radius };
+    }
+}
@@ -0,0 +1,74 @@
+package main.path;
+
+// Running summary of cross-track error over a flight: mean, RMS, maximum and
+// percentiles from a fixed histogram (BIN wide, errors past the last bin land in
+// it), so a multi-hour flight costs the same few kilobytes as a short one.
+public class DeviationStats {
+    private static final double BIN = 0.1; // m
+    private static final int BINS = 5000;  // up to 500 m
+
+    private final long[] histogram = new long[BINS];
+    private long count;
+    private double sum, sumSq;
+    private double max;
+    private double maxAlong;
+    private long maxTime;
+
+    public void reset() {
+        java.util.Arrays.fill(histogram, 0);
+        count = 0;
+        sum = 0;
+        sumSq = 0;
+        max = 0;
+        maxAlong = 0;
+        maxTime = 0;
+    }
+
+    // distance: cross-track error; along: where on the path it happened; time: sample time in ms
+    public void add(double distance, double along, long time) {
+        count++;
+        sum += distance;
+        sumSq += distance * distance;
+        if (distance > max) {
+            max = distance;
+            maxAlong = along;
+            maxTime = time;
+        }
+        histogram[Math.min(BINS - 1, (int) (distance / BIN))]++;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    public double getRms() {
+        return count == 0 ? 0 : Math.sqrt(sumSq / count);
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    // Upper edge of the histogram bin holding the given fraction (0..1) of samples
+    public double getPercentile(double fraction) {
+        if (count == 0) return 0;
+        long target = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BINS; i++) {
+            seen += histogram[i];
+            if (seen >= target) return (i + 1) * BIN;
+        }
+        return BINS * BIN;
+    }
+
+    public String report() {
+        if (count == 0) return "No deviation samples";
+        return String.format("Deviation over %d samples: mean %.2f m, RMS %.2f m, p50 %.1f m, p95 %.1f m, "
+                        + "max %.2f m at %.0f m along the path (t=%d ms)",
+                count, getMean(), getRms(), getPercentile(0.5), getPercentile(0.95), max, maxAlong, maxTime);
+    }
+}
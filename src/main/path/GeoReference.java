@@ -0,0 +1,87 @@
+package main.path;
+
+// Maps GPS fixes onto scene coordinates on a flat tangent plane around an origin
+// fix (equirectangular, which is well within a metre over the few kilometres a
+// foam plane covers). Scene axes: x east, y down as in JavaFX, z north; 1 unit = 1 m.
+//
+// The planned path lives in the frame of home(), so live telemetry, the fleet and
+// the simulated aircraft all use that same origin rather than whatever fix comes first.
+public class GeoReference {
+    private static final double EARTH_RADIUS = 6371008.8;
+    private static final double METERS_PER_DEGREE = EARTH_RADIUS * Math.PI / 180;
+    // Home when the pathplanner.home system property isn't set
+    public static final double DEFAULT_HOME_LAT = 47.6;
+    public static final double DEFAULT_HOME_LON = -122.3;
+    public static final double DEFAULT_HOME_ALT = 0;
+
+    private double originLat, originLon, originAlt;
+    private double metersPerDegreeLon;
+    private boolean hasOrigin;
+
+    // The scene origin the planned path is drawn around: the pathplanner.home system
+    // property as "lat,lon" or "lat,lon,alt", or the default home
+    public static GeoReference home() {
+        GeoReference geo = new GeoReference();
+        geo.setOrigin(DEFAULT_HOME_LAT, DEFAULT_HOME_LON, DEFAULT_HOME_ALT);
+        String property = System.getProperty("pathplanner.home");
+        if (property == null || property.trim().isEmpty()) return geo;
+        try {
+            String[] parts = property.split(",");
+            if (parts.length < 2 || parts.length > 3) throw new NumberFormatException(property);
+            double lat = Double.parseDouble(parts[0].trim());
+            double lon = Double.parseDouble(parts[1].trim());
+            double alt = parts.length == 3 ? Double.parseDouble(parts[2].trim()) : 0;
+            if (Math.abs(lat) > 90 || Math.abs(lon) > 180) throw new NumberFormatException(property);
+            geo.setOrigin(lat, lon, alt);
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring pathplanner.home=" + property + ", expected lat,lon[,alt]");
+        }
+        return geo;
+    }
+
+    public void setOrigin(double lat, double lon, double alt) {
+        originLat = lat;
+        originLon = lon;
+        originAlt = Double.isNaN(alt) ? 0 : alt;
+        metersPerDegreeLon = METERS_PER_DEGREE * Math.cos(Math.toRadians(lat));
+        hasOrigin = true;
+    }
+
+    public double getOriginLat() {
+        return originLat;
+    }
+
+    public double getOriginLon() {
+        return originLon;
+    }
+
+    public double getOriginAlt() {
+        return originAlt;
+    }
+
+    public void clearOrigin() {
+        hasOrigin = false;
+    }
+
+    public boolean hasOrigin() {
+        return hasOrigin;
+    }
+
+    // Writes x, y, z into out[0..2]; a missing altitude maps to the origin's
+    public void toScene(double lat, double lon, double alt, double[] out) {
+        double dLon = lon - originLon;
+        // Take the short way round the antimeridian
+        if (dLon > 180) dLon -= 360;
+        else if (dLon < -180) dLon += 360;
+        out[0] = dLon * metersPerDegreeLon;
+        out[1] = Double.isNaN(alt) ? 0 : -(alt - originAlt);
+        out[2] = (lat - originLat) * METERS_PER_DEGREE;
+    }
+
+    // Inverse of toScene: writes lat, lon, alt into out[0..2]
+    public void toGeodetic(double x, double y, double z, double[] out) {
+        out[0] = originLat + z / METERS_PER_DEGREE;
+        out[1] = originLon + x / metersPerDegreeLon;
+        out[2] = originAlt - y;
+    }
+}
@@ -0,0 +1,17 @@
+package main.path;
+
+// A volume the planner must keep out of, in scene coordinates (y down). The cube
+// tests take an axis-aligned cube by centre and half edge, as used for voxels.
+public interface Obstacle {
+    // True if (x, y, z) lies inside the obstacle grown by margin on every side
+    boolean contains(double x, double y, double z, double margin);
+
+    // True if any part of the cube lies inside the obstacle grown by margin
+    boolean intersectsCube(double x, double y, double z, double half, double margin);
+
+    // True if all of the cube lies inside the obstacle grown by margin
+    boolean containsCube(double x, double y, double z, double half, double margin);
+
+    // Axis-aligned bounds as {minX, minY, minZ, maxX, maxY, maxZ}
+    double[] getBounds();
+}
@@ -0,0 +1,111 @@
+package main.path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Read-only lookup of which points are unsafe to fly through: outside the arena
+// cube, or within `clearance` of an obstacle. Obstacles are bucketed on a coarse
+// grid over the arena, so a point test only looks at the few obstacles near it
+// rather than all of them. Nothing changes after construction, so one map can be
+// shared by any number of planner threads.
+public class ObstacleMap {
+    private static final int BUCKETS = 16; // per axis
+
+    private final List<Obstacle> obstacles;
+    private final double halfSize;
+    private final double clearance;
+    private final double bucketSize;
+    private final Obstacle[][] buckets = new Obstacle[BUCKETS * BUCKETS * BUCKETS][];
+
+    // The arena is the cube [-halfSize, halfSize] on every axis, as drawn by the visualizer
+    public ObstacleMap(List<? extends Obstacle> obstacles, double halfSize, double clearance) {
+        this.obstacles = List.copyOf(obstacles);
+        this.halfSize = halfSize;
+        this.clearance = clearance;
+        this.bucketSize = 2 * halfSize / BUCKETS;
+        List<List<Obstacle>> lists = new ArrayList<>(buckets.length);
+        for (int i = 0; i < buckets.length; i++) lists.add(new ArrayList<>());
+        for (Obstacle o : this.obstacles) {
+            double[] b = o.getBounds();
+            int x0 = bucket(b[0] - clearance), x1 = bucket(b[3] + clearance);
+            int y0 = bucket(b[1] - clearance), y1 = bucket(b[4] + clearance);
+            int z0 = bucket(b[2] - clearance), z1 = bucket(b[5] + clearance);
+            for (int x = x0; x <= x1; x++) {
+                for (int y = y0; y <= y1; y++) {
+                    for (int z = z0; z <= z1; z++) {
+                        lists.get((x * BUCKETS + y) * BUCKETS + z).add(o);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = lists.get(i).toArray(new Obstacle[0]);
+        }
+    }
+
+    public List<Obstacle> getObstacles() {
+        return obstacles;
+    }
+
+    public double getHalfSize() {
+        return halfSize;
+    }
+
+    public double getClearance() {
+        return clearance;
+    }
+
+    public boolean isBlocked(double x, double y, double z) {
+        if (Math.abs(x) > halfSize || Math.abs(y) > halfSize || Math.abs(z) > halfSize) return true;
+        for (Obstacle o : buckets[(bucket(x) * BUCKETS + bucket(y)) * BUCKETS + bucket(z)]) {
+            if (o.contains(x, y, z, clearance)) return true;
+        }
+        return false;
+    }
+
+    // True if any part of the voxel (centre and half edge) is blocked
+    public boolean isCubeBlocked(double x, double y, double z, double half) {
+        if (Math.abs(x) + half > halfSize || Math.abs(y) + half > halfSize || Math.abs(z) + half > halfSize) return true;
+        int x0 = bucket(x - half), x1 = bucket(x + half);
+        int y0 = bucket(y - half), y1 = bucket(y + half);
+        int z0 = bucket(z - half), z1 = bucket(z + half);
+        for (int bx = x0; bx <= x1; bx++) {
+            for (int by = y0; by <= y1; by++) {
+                for (int bz = z0; bz <= z1; bz++) {
+                    for (Obstacle o : buckets[(bx * BUCKETS + by) * BUCKETS + bz]) {
+                        if (o.intersectsCube(x, y, z, half, clearance)) return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // True if all of the voxel is blocked, i.e. no route can pass through any of it
+    public boolean isCubeSolid(double x, double y, double z, double half) {
+        if (Math.abs(x) > halfSize || Math.abs(y) > halfSize || Math.abs(z) > halfSize) return true;
+        // An obstacle holding the whole cube holds its centre, so the centre's bucket is enough
+        for (Obstacle o : buckets[(bucket(x) * BUCKETS + bucket(y)) * BUCKETS + bucket(z)]) {
+            if (o.containsCube(x, y, z, half, clearance)) return true;
+        }
+        return false;
+    }
+
+    // Tests cubes of edge step centred along the segment no more than step apart, ends
+    // included. Together they cover the whole segment, so no corner can slip between.
+    public boolean isSegmentClear(double ax, double ay, double az, double bx, double by, double bz, double step) {
+        double dx = bx - ax, dy = by - ay, dz = bz - az;
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        int steps = Math.max(1, (int) Math.ceil(length / step));
+        for (int i = 0; i <= steps; i++) {
+            double f = i / (double) steps;
+            if (isCubeBlocked(ax + dx * f, ay + dy * f, az + dz * f, step / 2)) return false;
+        }
+        return true;
+    }
+
+    private int bucket(double v) {
+        int b = (int) Math.floor((v + halfSize) / bucketSize);
+        return b < 0 ? 0 : (b >= BUCKETS ? BUCKETS - 1 : b);
+    }
+}
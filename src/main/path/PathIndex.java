@@ -0,0 +1,197 @@
+package main.path;
+
+// Bounding volume hierarchy over the segments of a sampled path, for finding the
+// closest point on the path to an arbitrary point (cross-track error). Samples of
+// a path are already spatially coherent in index order, so the tree is built by
+// halving index ranges rather than sorting: O(n) to build, cheap enough to redo on
+// every edit. A query descends nearest box first and skips every box farther away
+// than the best segment so far, which is O(log n) for points near the path.
+public class PathIndex {
+    private static final int LEAF_SEGMENTS = 4;
+
+    private PathSamples samples;
+    private int segmentCount;
+    private double[] cumulative = new double[0];
+
+    // Nodes as parallel arrays; a leaf has left == -1 and covers segments [first, last)
+    private double[] minX = new double[0], minY = new double[0], minZ = new double[0];
+    private double[] maxX = new double[0], maxY = new double[0], maxZ = new double[0];
+    private int[] left = new int[0], right = new int[0];
+    private int[] first = new int[0], last = new int[0];
+    private int nodeCount;
+    private int[] stack = new int[64];
+
+    public void build(PathSamples samples) {
+        this.samples = samples;
+        segmentCount = Math.max(0, samples.size - 1);
+        if (cumulative.length < samples.size) {
+            cumulative = new double[samples.size];
+        }
+        for (int i = 1; i < samples.size; i++) {
+            double dx = samples.x[i] - samples.x[i - 1];
+            double dy = samples.y[i] - samples.y[i - 1];
+            double dz = samples.z[i] - samples.z[i - 1];
+            cumulative[i] = cumulative[i - 1] + Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+        nodeCount = 0;
+        if (segmentCount == 0) return;
+        // A binary tree has fewer than twice as many nodes as leaves, and every leaf holds a segment
+        ensureNodes(2 * segmentCount);
+        buildNode(0, segmentCount);
+    }
+
+    public boolean isEmpty() {
+        return segmentCount == 0;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    // Finds the closest point on the path to (px, py, pz); false if the path has no segments
+    public boolean closest(double px, double py, double pz, Hit hit) {
+        if (segmentCount == 0) return false;
+        double best = Double.POSITIVE_INFINITY;
+        int bestSegment = 0;
+        double bestT = 0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (boxDistanceSq(node, px, py, pz) >= best) continue;
+            if (left[node] < 0) {
+                for (int s = first[node]; s < last[node]; s++) {
+                    double t = segmentParameter(s, px, py, pz);
+                    double d = segmentDistanceSq(s, t, px, py, pz);
+                    if (d < best) {
+                        best = d;
+                        bestSegment = s;
+                        bestT = t;
+                    }
+                }
+                continue;
+            }
+            // Push the farther child first so the nearer one is searched first and tightens the bound
+            int a = left[node], b = right[node];
+            double da = boxDistanceSq(a, px, py, pz), db = boxDistanceSq(b, px, py, pz);
+            if (top + 2 > stack.length) stack = java.util.Arrays.copyOf(stack, stack.length * 2);
+            if (da <= db) {
+                stack[top++] = b;
+                stack[top++] = a;
+            } else {
+                stack[top++] = a;
+                stack[top++] = b;
+            }
+        }
+        int s = bestSegment;
+        hit.segment = s;
+        hit.t = bestT;
+        hit.x = samples.x[s] + (samples.x[s + 1] - samples.x[s]) * bestT;
+        hit.y = samples.y[s] + (samples.y[s + 1] - samples.y[s]) * bestT;
+        hit.z = samples.z[s] + (samples.z[s + 1] - samples.z[s]) * bestT;
+        hit.distance = Math.sqrt(best);
+        hit.along = cumulative[s] + (cumulative[s + 1] - cumulative[s]) * bestT;
+        return true;
+    }
+
+    // Reference answer for checking the tree: tests every segment
+    public boolean closestLinear(double px, double py, double pz, Hit hit) {
+        if (segmentCount == 0) return false;
+        double best = Double.POSITIVE_INFINITY;
+        for (int s = 0; s < segmentCount; s++) {
+            double t = segmentParameter(s, px, py, pz);
+            double d = segmentDistanceSq(s, t, px, py, pz);
+            if (d < best) {
+                best = d;
+                hit.segment = s;
+                hit.t = t;
+            }
+        }
+        int s = hit.segment;
+        hit.x = samples.x[s] + (samples.x[s + 1] - samples.x[s]) * hit.t;
+        hit.y = samples.y[s] + (samples.y[s + 1] - samples.y[s]) * hit.t;
+        hit.z = samples.z[s] + (samples.z[s + 1] - samples.z[s]) * hit.t;
+        hit.distance = Math.sqrt(best);
+        hit.along = cumulative[s] + (cumulative[s + 1] - cumulative[s]) * hit.t;
+        return true;
+    }
+
+    // Leaves take their box from their samples and parents merge their children's, so each sample is read once
+    private int buildNode(int from, int to) {
+        int node = nodeCount++;
+        first[node] = from;
+        last[node] = to;
+        if (to - from <= LEAF_SEGMENTS) {
+            left[node] = -1;
+            right[node] = -1;
+            double x0 = Double.POSITIVE_INFINITY, y0 = x0, z0 = x0;
+            double x1 = Double.NEGATIVE_INFINITY, y1 = x1, z1 = x1;
+            // Segments [from, to) span samples [from, to]
+            for (int i = from; i <= to; i++) {
+                double x = samples.x[i], y = samples.y[i], z = samples.z[i];
+                if (x < x0) x0 = x;
+                if (x > x1) x1 = x;
+                if (y < y0) y0 = y;
+                if (y > y1) y1 = y;
+                if (z < z0) z0 = z;
+                if (z > z1) z1 = z;
+            }
+            minX[node] = x0; minY[node] = y0; minZ[node] = z0;
+            maxX[node] = x1; maxY[node] = y1; maxZ[node] = z1;
+            return node;
+        }
+        int mid = (from + to) >>> 1;
+        int a = buildNode(from, mid);
+        int b = buildNode(mid, to);
+        left[node] = a;
+        right[node] = b;
+        minX[node] = Math.min(minX[a], minX[b]);
+        minY[node] = Math.min(minY[a], minY[b]);
+        minZ[node] = Math.min(minZ[a], minZ[b]);
+        maxX[node] = Math.max(maxX[a], maxX[b]);
+        maxY[node] = Math.max(maxY[a], maxY[b]);
+        maxZ[node] = Math.max(maxZ[a], maxZ[b]);
+        return node;
+    }
+
+    private void ensureNodes(int count) {
+        if (minX.length >= count) return;
+        minX = new double[count]; minY = new double[count]; minZ = new double[count];
+        maxX = new double[count]; maxY = new double[count]; maxZ = new double[count];
+        left = new int[count]; right = new int[count];
+        first = new int[count]; last = new int[count];
+    }
+
+    private double boxDistanceSq(int node, double px, double py, double pz) {
+        double dx = Math.max(0, Math.max(minX[node] - px, px - maxX[node]));
+        double dy = Math.max(0, Math.max(minY[node] - py, py - maxY[node]));
+        double dz = Math.max(0, Math.max(minZ[node] - pz, pz - maxZ[node]));
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // Parameter in [0, 1] of the point on segment s closest to p
+    private double segmentParameter(int s, double px, double py, double pz) {
+        double ax = samples.x[s], ay = samples.y[s], az = samples.z[s];
+        double ux = samples.x[s + 1] - ax, uy = samples.y[s + 1] - ay, uz = samples.z[s + 1] - az;
+        double lenSq = ux * ux + uy * uy + uz * uz;
+        if (lenSq == 0) return 0;
+        double t = ((px - ax) * ux + (py - ay) * uy + (pz - az) * uz) / lenSq;
+        return t < 0 ? 0 : (t > 1 ? 1 : t);
+    }
+
+    private double segmentDistanceSq(int s, double t, double px, double py, double pz) {
+        double dx = samples.x[s] + (samples.x[s + 1] - samples.x[s]) * t - px;
+        double dy = samples.y[s] + (samples.y[s + 1] - samples.y[s]) * t - py;
+        double dz = samples.z[s] + (samples.z[s + 1] - samples.z[s]) * t - pz;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // Result of a closest-point query; reuse one per caller
+    public static class Hit {
+        public double x, y, z;   // closest point on the path
+        public double distance;  // from the query point
+        public double along;     // distance along the path to the closest point
+        public int segment;      // samples [segment, segment + 1]
+        public double t;         // position within the segment, 0..1
+    }
+}
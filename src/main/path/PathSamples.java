@@ -0,0 +1,42 @@
+package main.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Growable struct-of-arrays buffer of sampled path points. Callers own the
+// buffer and hand it to curves to fill, so resampling reuses the same arrays.
+public class PathSamples {
+    public double[] x = new double[0];
+    public double[] y = new double[0];
+    public double[] z = new double[0];
+    public int size;
+
+    public void ensureCapacity(int capacity) {
+        if (x.length >= capacity) return;
+        int newCapacity = Math.max(capacity, x.length + (x.length >> 1));
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        z = Arrays.copyOf(z, newCapacity);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(double px, double py, double pz) {
+        ensureCapacity(size + 1);
+        x[size] = px;
+        y[size] = py;
+        z[size] = pz;
+        size++;
+    }
+
+    public List<Waypoint> toWaypoints() {
+        List<Waypoint> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new Waypoint(x[i], y[i], z[i]));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,183 @@
+package main.path;
+
+import java.util.Arrays;
+
+// Thins a densely sampled path down to the few points an onboard controller needs
+// to fly it, always keeping the first and last sample.
+//
+//  douglasPeucker - Ramer-Douglas-Peucker: keeps a sample only where dropping it
+//                   would leave some part of the path more than the tolerance
+//                   from the straight lines between kept samples. Split ranges go
+//                   on an explicit stack rather than the call stack, so a million
+//                   samples can't overflow it. O(n log n) for typical paths.
+//  visvalingam    - Visvalingam-Whyatt: drops the sample spanning the smallest
+//                   triangle with its neighbours until only maxPoints are left,
+//                   for fitting a fixed waypoint budget. O(n log n) with a heap.
+//
+// A simplifier keeps its scratch arrays between calls, so use one per thread.
+public class PathSimplifier {
+    private int[] stack = new int[64];
+    private boolean[] keep = new boolean[0];
+    // Visvalingam: neighbours still in the path, and a min-heap of samples by area
+    private int[] prev = new int[0], next = new int[0];
+    private int[] heap = new int[0], heapPos = new int[0];
+    private double[] area = new double[0];
+    private int heapSize;
+
+    // Writes the kept samples of in to out (which must be a different buffer) and
+    // returns how many there are. tolerance is a distance in scene units.
+    public int douglasPeucker(PathSamples in, double tolerance, PathSamples out) {
+        out.clear();
+        int n = in.size;
+        if (n <= 2) return copyAll(in, out);
+        if (keep.length < n) keep = new boolean[n];
+        Arrays.fill(keep, 0, n, false);
+        keep[0] = true;
+        keep[n - 1] = true;
+        double tolerance2 = tolerance * tolerance;
+        double[] x = in.x, y = in.y, z = in.z;
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double ax = x[first], ay = y[first], az = z[first];
+            double dx = x[last] - ax, dy = y[last] - ay, dz = z[last] - az;
+            double length2 = dx * dx + dy * dy + dz * dz;
+            double worst = -1;
+            int worstIndex = -1;
+            for (int i = first + 1; i < last; i++) {
+                double px = x[i] - ax, py = y[i] - ay, pz = z[i] - az;
+                double t = length2 > 0 ? (px * dx + py * dy + pz * dz) / length2 : 0;
+                if (t < 0) t = 0;
+                else if (t > 1) t = 1;
+                double ex = px - t * dx, ey = py - t * dy, ez = pz - t * dz;
+                double d2 = ex * ex + ey * ey + ez * ez;
+                if (d2 > worst) {
+                    worst = d2;
+                    worstIndex = i;
+                }
+            }
+            if (worst <= tolerance2) continue;
+            keep[worstIndex] = true;
+            if (top + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            if (worstIndex - first > 1) {
+                stack[top++] = first;
+                stack[top++] = worstIndex;
+            }
+            if (last - worstIndex > 1) {
+                stack[top++] = worstIndex;
+                stack[top++] = last;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) out.add(x[i], y[i], z[i]);
+        }
+        return out.size;
+    }
+
+    // Writes the maxPoints (at least 2) most significant samples of in to out and
+    // returns how many there are, fewer if in had fewer
+    public int visvalingam(PathSamples in, int maxPoints, PathSamples out) {
+        out.clear();
+        int n = in.size;
+        if (n <= Math.max(2, maxPoints)) return copyAll(in, out);
+        ensureVisvalingam(n);
+        for (int i = 0; i < n; i++) {
+            prev[i] = i - 1;
+            next[i] = i + 1;
+        }
+        heapSize = 0;
+        for (int i = 1; i < n - 1; i++) {
+            area[i] = triangleArea(in, i - 1, i, i + 1);
+            heap[heapSize] = i;
+            heapPos[i] = heapSize++;
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) siftDown(i);
+
+        int remaining = n;
+        double floor = 0;
+        while (remaining > Math.max(2, maxPoints)) {
+            int i = heap[0];
+            removeTop();
+            // A neighbour's area never drops below the one just removed, so points
+            // aren't taken out in an order that undoes earlier, more significant ones
+            floor = Math.max(floor, area[i]);
+            int p = prev[i], q = next[i];
+            next[p] = q;
+            prev[q] = p;
+            remaining--;
+            if (p > 0) updateArea(in, p, floor);
+            if (q < n - 1) updateArea(in, q, floor);
+        }
+        for (int i = 0; i < n; i = next[i]) {
+            out.add(in.x[i], in.y[i], in.z[i]);
+        }
+        return out.size;
+    }
+
+    private void updateArea(PathSamples in, int i, double floor) {
+        double old = area[i];
+        area[i] = Math.max(floor, triangleArea(in, prev[i], i, next[i]));
+        if (area[i] < old) siftUp(heapPos[i]);
+        else siftDown(heapPos[i]);
+    }
+
+    private static double triangleArea(PathSamples s, int a, int b, int c) {
+        double ux = s.x[b] - s.x[a], uy = s.y[b] - s.y[a], uz = s.z[b] - s.z[a];
+        double vx = s.x[c] - s.x[a], vy = s.y[c] - s.y[a], vz = s.z[c] - s.z[a];
+        double cx = uy * vz - uz * vy, cy = uz * vx - ux * vz, cz = ux * vy - uy * vx;
+        return 0.5 * Math.sqrt(cx * cx + cy * cy + cz * cz);
+    }
+
+    private void removeTop() {
+        heapSize--;
+        if (heapSize == 0) return;
+        heap[0] = heap[heapSize];
+        heapPos[heap[0]] = 0;
+        siftDown(0);
+    }
+
+    private void siftUp(int pos) {
+        int item = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >> 1;
+            if (area[heap[parent]] <= area[item]) break;
+            heap[pos] = heap[parent];
+            heapPos[heap[pos]] = pos;
+            pos = parent;
+        }
+        heap[pos] = item;
+        heapPos[item] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int item = heap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && area[heap[child + 1]] < area[heap[child]]) child++;
+            if (area[heap[child]] >= area[item]) break;
+            heap[pos] = heap[child];
+            heapPos[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = item;
+        heapPos[item] = pos;
+    }
+
+    private void ensureVisvalingam(int n) {
+        if (prev.length >= n) return;
+        prev = new int[n];
+        next = new int[n];
+        heap = new int[n];
+        heapPos = new int[n];
+        area = new double[n];
+    }
+
+    private static int copyAll(PathSamples in, PathSamples out) {
+        for (int i = 0; i < in.size; i++) out.add(in.x[i], in.y[i], in.z[i]);
+        return out.size;
+    }
+}
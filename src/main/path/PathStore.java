@@ -0,0 +1,37 @@
+package main.path;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+// JSON persistence for named waypoint lists, kept free of JavaFX so it can be
+// used (and benchmarked) headless.
+public class PathStore {
+    private static final Type PATHS_TYPE = new TypeToken<Map<String, List<Waypoint>>>(){}.getType();
+
+    private final Gson gson = new Gson();
+
+    public String toJson(Map<String, List<Waypoint>> paths) {
+        return gson.toJson(paths);
+    }
+
+    public Map<String, List<Waypoint>> fromJson(String json) {
+        return gson.fromJson(json, PATHS_TYPE);
+    }
+
+    public void save(Path file, Map<String, List<Waypoint>> paths) throws IOException {
+        Files.write(file, toJson(paths).getBytes());
+    }
+
+    // Returns null when the file does not exist
+    public Map<String, List<Waypoint>> load(Path file) throws IOException {
+        if (!Files.exists(file)) return null;
+        return fromJson(new String(Files.readAllBytes(file)));
+    }
+}
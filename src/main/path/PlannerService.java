@@ -0,0 +1,136 @@
+package main.path;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Plans the same stops with several candidate PlannerSettings at once and keeps
+// the shortest route. Candidates run on the service's ForkJoinPool, each with its
+// own VoxelPlanner over the one read-only ObstacleMap. A job ends when every
+// candidate has finished, or at its deadline with the best route found so far.
+//
+// Nothing here blocks the caller: results arrive through the job's future, on a
+// pool thread, so a UI has to hop back onto its own thread to use them.
+public class PlannerService implements AutoCloseable {
+    private final ForkJoinPool pool;
+
+    public PlannerService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public PlannerService(int parallelism) {
+        // Worker threads of a ForkJoinPool are daemons, so an idle service never holds up exit
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    // A route and the candidate that found it
+    public static class Result {
+        public final List<Waypoint> route;
+        public final PlannerSettings settings;
+        public final double length;
+        public final long expanded;
+
+        Result(List<Waypoint> route, PlannerSettings settings, long expanded) {
+            this.route = route;
+            this.settings = settings;
+            this.expanded = expanded;
+            double total = 0;
+            for (int i = 1; i < route.size(); i++) {
+                Waypoint a = route.get(i - 1), b = route.get(i);
+                double dx = b.x - a.x, dy = b.y - a.y, dz = b.z - a.z;
+                total += Math.sqrt(dx * dx + dy * dy + dz * dz);
+            }
+            this.length = total;
+        }
+    }
+
+    public class Job {
+        private final List<VoxelPlanner> planners = new ArrayList<>();
+        private final AtomicReference<Result> best = new AtomicReference<>();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        private Job(int candidates) {
+            remaining = new AtomicInteger(candidates);
+            // However the job ends, stop whatever is still searching
+            result.whenComplete((r, e) -> {
+                for (VoxelPlanner planner : planners) planner.cancel();
+            });
+        }
+
+        // Completes with the shortest route, or null if no candidate found one in
+        // time. Completes exceptionally if a stop is inside an obstacle, and is
+        // cancelled by cancel().
+        public CompletableFuture<Result> getResult() {
+            return result;
+        }
+
+        // Shortest route so far, or null
+        public Result getBest() {
+            return best.get();
+        }
+
+        // Candidates still searching
+        public int getRemaining() {
+            return remaining.get();
+        }
+
+        public void cancel() {
+            result.cancel(false);
+        }
+
+        private void offer(Result candidate) {
+            Result current;
+            do {
+                current = best.get();
+                if (current != null && current.length <= candidate.length) return;
+            } while (!best.compareAndSet(current, candidate));
+        }
+
+        private void finished() {
+            if (remaining.decrementAndGet() == 0) result.complete(best.get());
+        }
+    }
+
+    // Starts planning through stops in order with each of the candidates, giving up
+    // on those still searching after timeoutMillis
+    public Job submit(ObstacleMap map, List<Waypoint> stops, List<PlannerSettings> candidates, long timeoutMillis) {
+        Job job = new Job(candidates.size());
+        List<Waypoint> fixedStops = List.copyOf(stops);
+        for (PlannerSettings settings : candidates) {
+            job.planners.add(new VoxelPlanner(map, settings));
+        }
+        // Greediest first: when there are more candidates than cores, the fast ones
+        // still finish before a tight deadline
+        job.planners.sort((a, b) -> Double.compare(b.getSettings().heuristicWeight, a.getSettings().heuristicWeight));
+        for (VoxelPlanner planner : job.planners) {
+            pool.execute(() -> {
+                try {
+                    if (job.result.isDone()) return;
+                    List<Waypoint> route = planner.planThrough(fixedStops);
+                    if (route != null) job.offer(new Result(route, planner.getSettings(), planner.getExpanded()));
+                } catch (InterruptedException e) {
+                    // Cancelled or past the deadline; the job has already completed
+                } catch (Exception e) {
+                    job.result.completeExceptionally(e);
+                } finally {
+                    job.finished();
+                }
+            });
+        }
+        if (candidates.isEmpty()) job.result.complete(null);
+        // Run by the timer thread itself: the pool may be busy with the very searches it ends
+        CompletableFuture.delayedExecutor(timeoutMillis, TimeUnit.MILLISECONDS, Runnable::run)
+                .execute(() -> job.result.complete(job.best.get()));
+        return job;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,32 @@
+package main.path;
+
+// Tuning for VoxelPlanner. Plain fields, copied by the planner when it starts.
+public class PlannerSettings {
+    // Edge of one voxel in scene units; 0.3 over the 300-unit arena is a 1000^3 grid
+    public double resolution = 1.0;
+    // Inflation of the heuristic. 1 gives shortest paths; above 1 expands far fewer
+    // voxels for a path at most that factor longer, before smoothing.
+    public double heuristicWeight = 1.5;
+    // Extra cost per unit of vertical travel relative to horizontal, e.g. 2 to prefer detours over climbs
+    public double climbCost = 1.0;
+    // Give up after this many voxel expansions, over all levels of one leg. At full
+    // resolution a search expands a few hundred thousand voxels a second, so a leg
+    // with no route fails in under a second rather than flooding the grid.
+    public int maxExpansions = 300_000;
+    // Give up once one level's search has touched this many voxels (about 50 bytes
+    // each, with the open heap), however few of them it has expanded
+    public int maxNodes = 1_000_000;
+    // Replace grid staircases with straight segments where they are clear
+    public boolean smooth = true;
+
+    public PlannerSettings copy() {
+        PlannerSettings c = new PlannerSettings();
+        c.resolution = resolution;
+        c.heuristicWeight = heuristicWeight;
+        c.climbCost = climbCost;
+        c.maxExpansions = maxExpansions;
+        c.maxNodes = maxNodes;
+        c.smooth = smooth;
+        return c;
+    }
+}
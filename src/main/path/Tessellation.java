@@ -0,0 +1,26 @@
+package main.path;
+
+// Step counts for flattening curves into polylines within a distance tolerance.
+// A chord over a parameter step h deviates from the curve by at most M * h^2 / 8,
+// where M bounds the second derivative, so straight stretches need a single step
+// and tight turns get as many as the tolerance demands.
+public final class Tessellation {
+    private Tessellation() {}
+
+    public static int stepsForTolerance(double maxSecondDerivative, double tolerance, int maxSteps) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("Tolerance must be positive: " + tolerance);
+        }
+        double steps = Math.ceil(Math.sqrt(maxSecondDerivative / (8 * tolerance)));
+        return (int) Math.max(1, Math.min(maxSteps, steps));
+    }
+
+    // Second derivative bound for a cubic a t^3 + b t^2 + c t + d on [0, 1]. The second
+    // derivative 6 a t + 2 b is linear, so its largest magnitude is at an end point.
+    public static double cubicSecondDerivativeBound(double ax, double bx, double ay, double by, double az, double bz) {
+        double start = Math.sqrt(4 * (bx * bx + by * by + bz * bz));
+        double ex = 6 * ax + 2 * bx, ey = 6 * ay + 2 * by, ez = 6 * az + 2 * bz;
+        double end = Math.sqrt(ex * ex + ey * ey + ez * ez);
+        return Math.max(start, end);
+    }
+}
@@ -0,0 +1,33 @@
+package main.path;
+
+import java.util.Arrays;
+
+// A flyable path from TrajectoryGenerator: positions sampled along it, and when the
+// aircraft reaches each one flying at the limits' airspeed. Reused between runs.
+public class Trajectory {
+    public final PathSamples samples = new PathSamples();
+    // Seconds from the start at each sample
+    public double[] time = new double[0];
+    // Sample index of each waypoint the trajectory passes through
+    public int[] waypointSample = new int[0];
+    // Full circles added to legs too steep to fly straight, to gain or lose height
+    public int climbTurns;
+
+    public double getDuration() {
+        return samples.size == 0 ? 0 : time[samples.size - 1];
+    }
+
+    void clear(int waypoints) {
+        samples.clear();
+        climbTurns = 0;
+        if (waypointSample.length < waypoints) waypointSample = new int[waypoints];
+    }
+
+    void add(double x, double y, double z, double t) {
+        if (time.length <= samples.size) {
+            time = Arrays.copyOf(time, Math.max(16, time.length + (time.length >> 1)));
+        }
+        time[samples.size] = t;
+        samples.add(x, y, z);
+    }
+}
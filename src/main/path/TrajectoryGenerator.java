@@ -0,0 +1,253 @@
+package main.path;
+
+import java.util.List;
+
+// Turns a waypoint list into a path a fixed-wing aircraft can actually fly, for the
+// limits it was made with. Seen from above, each leg between waypoints is a Dubins
+// path: the shortest of turn-straight-turn or turn-turn-turn at the minimum turn
+// radius, leaving the first waypoint and reaching the next with the heading that
+// bisects the legs on either side. Height changes evenly along the leg. A leg too
+// short to climb or descend that far within the rate limits first circles its first
+// turn as many full times as it needs, like an aircraft spiralling up.
+//
+// Each leg is worked out in closed form and sampled once, turns only as finely as
+// the tolerance needs and straights not at all, so 500 waypoints take under a
+// millisecond and it can re-run on every edit. A generator keeps
+// scratch state, so use one per thread.
+public class TrajectoryGenerator {
+    private static final double TWO_PI = 2 * Math.PI;
+    // Turn of each segment of each word: 1 left, -1 right, 0 straight
+    private static final int[][] WORDS = {
+            {1, 0, 1}, {1, 0, -1}, {-1, 0, 1}, {-1, 0, -1}, {-1, 1, -1}, {1, -1, 1}
+    }; // LSL, LSR, RSL, RSR, RLR, LRL
+
+    private final AircraftLimits limits;
+    private double tolerance = 0.25;
+    private double[] heading = new double[0];
+    // Segment lengths of the current leg in turn radii, and the best word's
+    private final double[] lengths = new double[3];
+    private final double[] best = new double[3];
+
+    public TrajectoryGenerator(AircraftLimits limits) {
+        this.limits = limits.copy();
+    }
+
+    public AircraftLimits getLimits() {
+        return limits;
+    }
+
+    // Largest distance between the samples and the true turns (scene units), as for
+    // an adaptive CatmullRomSpline
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public Trajectory generate(List<Waypoint> waypoints) {
+        double[] xyz = new double[waypoints.size() * 3];
+        for (int i = 0; i < waypoints.size(); i++) {
+            Waypoint wp = waypoints.get(i);
+            xyz[i * 3] = wp.x;
+            xyz[i * 3 + 1] = wp.y;
+            xyz[i * 3 + 2] = wp.z;
+        }
+        Trajectory trajectory = new Trajectory();
+        generate(xyz, waypoints.size(), trajectory);
+        return trajectory;
+    }
+
+    // xyz holds x, y, z for each of count waypoints
+    public void generate(double[] xyz, int count, Trajectory out) {
+        out.clear(count);
+        if (count == 0) return;
+        computeHeadings(xyz, count);
+        out.add(xyz[0], xyz[1], xyz[2], 0);
+        out.waypointSample[0] = 0;
+        double time = 0;
+        for (int i = 0; i + 1 < count; i++) {
+            time = leg(xyz, i, time, out);
+            out.waypointSample[i + 1] = out.samples.size - 1;
+        }
+    }
+
+    // Appends the samples after waypoint i up to and including waypoint i + 1
+    private double leg(double[] xyz, int i, double time, Trajectory out) {
+        double r = limits.minTurnRadius;
+        double x0 = xyz[i * 3], y0 = xyz[i * 3 + 1], z0 = xyz[i * 3 + 2];
+        double x1 = xyz[i * 3 + 3], y1 = xyz[i * 3 + 4], z1 = xyz[i * 3 + 5];
+        int word = shortestWord(x0, z0, heading[i], x1, z1, heading[i + 1], r);
+        double horizontal = (best[0] + best[1] + best[2]) * r;
+        double rise = y0 - y1; // y points down
+        double gradient = rise >= 0 ? limits.climbGradient() : limits.descentGradient();
+        double needed = Math.abs(rise) / gradient;
+        if (needed > horizontal) {
+            int turns = (int) Math.ceil((needed - horizontal) / (TWO_PI * r));
+            best[0] += TWO_PI * turns;
+            horizontal += TWO_PI * r * turns;
+            out.climbTurns += turns;
+        }
+        if (horizontal == 0) return time; // repeated waypoint
+        double slope = rise / horizontal;
+        double secondsPerUnit = Math.sqrt(1 + slope * slope) / limits.airspeed;
+        // Turn angle per sample that keeps each chord within tolerance of its arc
+        double maxAngle = Math.min(Math.PI / 8, 2 * Math.acos(Math.max(-1, 1 - tolerance / r)));
+
+        double px = x0, pz = z0, ph = heading[i];
+        double travelled = 0;
+        for (int k = 0; k < 3; k++) {
+            double length = best[k];
+            if (length == 0) continue;
+            int turn = WORDS[word][k];
+            int steps = turn == 0 ? 1 : (int) Math.ceil(length / maxAngle);
+            double sin0 = Math.sin(ph), cos0 = Math.cos(ph);
+            double ex = px, ez = pz;
+            for (int j = 1; j <= steps; j++) {
+                double s = length * j / steps;
+                if (turn > 0) {
+                    ex = px + r * (Math.sin(ph + s) - sin0);
+                    ez = pz + r * (cos0 - Math.cos(ph + s));
+                } else if (turn < 0) {
+                    ex = px + r * (sin0 - Math.sin(ph - s));
+                    ez = pz + r * (Math.cos(ph - s) - cos0);
+                } else {
+                    ex = px + r * s * cos0;
+                    ez = pz + r * s * sin0;
+                }
+                double along = travelled + s * r;
+                out.add(ex, y0 - rise * along / horizontal, ez, time + along * secondsPerUnit);
+            }
+            travelled += length * r;
+            px = ex;
+            pz = ez;
+            ph += turn * length;
+        }
+        // Land exactly on the waypoint rather than wherever rounding left the last sample
+        int last = out.samples.size - 1;
+        out.samples.x[last] = x1;
+        out.samples.y[last] = y1;
+        out.samples.z[last] = z1;
+        return time + horizontal * secondsPerUnit;
+    }
+
+    // Heading at each waypoint, seen from above as an angle from +x towards +z:
+    // along the bisector of the legs in and out, or the one leg at the ends
+    private void computeHeadings(double[] xyz, int count) {
+        if (heading.length < count) heading = new double[count];
+        double previous = 0;
+        for (int i = 0; i < count; i++) {
+            double hx = 0, hz = 0;
+            if (i > 0) {
+                double dx = xyz[i * 3] - xyz[i * 3 - 3], dz = xyz[i * 3 + 2] - xyz[i * 3 - 1];
+                double len = Math.sqrt(dx * dx + dz * dz);
+                if (len > 1e-9) {
+                    hx += dx / len;
+                    hz += dz / len;
+                }
+            }
+            double ox = 0, oz = 0;
+            if (i + 1 < count) {
+                double dx = xyz[i * 3 + 3] - xyz[i * 3], dz = xyz[i * 3 + 5] - xyz[i * 3 + 2];
+                double len = Math.sqrt(dx * dx + dz * dz);
+                if (len > 1e-9) {
+                    ox = dx / len;
+                    oz = dz / len;
+                }
+            }
+            hx += ox;
+            hz += oz;
+            if (hx * hx + hz * hz < 1e-12) {
+                // Doubling straight back, or no horizontal legs at all
+                hx = ox;
+                hz = oz;
+            }
+            heading[i] = hx == 0 && hz == 0 ? previous : Math.atan2(hz, hx);
+            previous = heading[i];
+        }
+    }
+
+    // Fills best with the segment lengths of the shortest Dubins word (in turn
+    // radii) and returns that word. Closed forms after Shkel and Lumelsky, in the
+    // frame where the line from start to goal is the x axis.
+    private int shortestWord(double x0, double z0, double h0, double x1, double z1, double h1, double r) {
+        double dx = x1 - x0, dz = z1 - z0;
+        double d = Math.sqrt(dx * dx + dz * dz) / r;
+        double theta = d > 0 ? mod2pi(Math.atan2(dz, dx)) : 0;
+        double a = mod2pi(h0 - theta), b = mod2pi(h1 - theta);
+        double sa = Math.sin(a), sb = Math.sin(b), ca = Math.cos(a), cb = Math.cos(b);
+        double cab = Math.cos(a - b), dd = d * d;
+        int bestWord = -1;
+        double bestLength = Double.POSITIVE_INFINITY;
+        for (int word = 0; word < WORDS.length; word++) {
+            if (!word(word, a, b, d, dd, sa, sb, ca, cb, cab)) continue;
+            double length = lengths[0] + lengths[1] + lengths[2];
+            if (length < bestLength) {
+                bestLength = length;
+                bestWord = word;
+                System.arraycopy(lengths, 0, best, 0, 3);
+            }
+        }
+        return bestWord;
+    }
+
+    // Segment lengths of one word into lengths; false if the word can't join the poses
+    private boolean word(int word, double a, double b, double d, double dd,
+                         double sa, double sb, double ca, double cb, double cab) {
+        double p2, tmp, p;
+        switch (word) {
+            case 0: // LSL
+                p2 = 2 + dd - 2 * cab + 2 * d * (sa - sb);
+                if (p2 < 0) return false;
+                tmp = Math.atan2(cb - ca, d + sa - sb);
+                lengths[0] = mod2pi(tmp - a);
+                lengths[1] = Math.sqrt(p2);
+                lengths[2] = mod2pi(b - tmp);
+                return true;
+            case 1: // LSR
+                p2 = -2 + dd + 2 * cab + 2 * d * (sa + sb);
+                if (p2 < 0) return false;
+                p = Math.sqrt(p2);
+                tmp = Math.atan2(-ca - cb, d + sa + sb) - Math.atan2(-2, p);
+                lengths[0] = mod2pi(tmp - a);
+                lengths[1] = p;
+                lengths[2] = mod2pi(tmp - b);
+                return true;
+            case 2: // RSL
+                p2 = -2 + dd + 2 * cab - 2 * d * (sa + sb);
+                if (p2 < 0) return false;
+                p = Math.sqrt(p2);
+                tmp = Math.atan2(ca + cb, d - sa - sb) - Math.atan2(2, p);
+                lengths[0] = mod2pi(a - tmp);
+                lengths[1] = p;
+                lengths[2] = mod2pi(b - tmp);
+                return true;
+            case 3: // RSR
+                p2 = 2 + dd - 2 * cab + 2 * d * (sb - sa);
+                if (p2 < 0) return false;
+                tmp = Math.atan2(ca - cb, d - sa + sb);
+                lengths[0] = mod2pi(a - tmp);
+                lengths[1] = Math.sqrt(p2);
+                lengths[2] = mod2pi(tmp - b);
+                return true;
+            case 4: // RLR
+                tmp = (6 - dd + 2 * cab + 2 * d * (sa - sb)) / 8;
+                if (Math.abs(tmp) > 1) return false;
+                p = mod2pi(TWO_PI - Math.acos(tmp));
+                lengths[0] = mod2pi(a - Math.atan2(ca - cb, d - sa + sb) + p / 2);
+                lengths[1] = p;
+                lengths[2] = mod2pi(a - b - lengths[0] + p);
+                return true;
+            default: // LRL
+                tmp = (6 - dd + 2 * cab + 2 * d * (sb - sa)) / 8;
+                if (Math.abs(tmp) > 1) return false;
+                p = mod2pi(TWO_PI - Math.acos(tmp));
+                lengths[0] = mod2pi(-a - Math.atan2(ca - cb, d + sa - sb) + p / 2);
+                lengths[1] = p;
+                lengths[2] = mod2pi(b - a - lengths[0] + p);
+                return true;
+        }
+    }
+
+    private static double mod2pi(double angle) {
+        double m = angle % TWO_PI;
+        return m < 0 ? m + TWO_PI : m;
+    }
+}
@@ -0,0 +1,484 @@
+package main.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Finds a collision-free route between two points with A* over a voxel grid that
+// covers the ObstacleMap's arena. The grid is never allocated: voxels come into
+// existence in a hash table only when the search touches them, and each one is
+// tested against the obstacle map once. Moves go to all 26 neighbours.
+//
+// At full resolution, A* floods every voxel in front of a large obstacle, which on
+// a 1000^3 grid is millions of expansions. So the search starts coarse:
+//  1. On a 32^3 grid where a voxel is free only if all of it is. In open scenes
+//     this finds a route in a millisecond that is already collision-free at full
+//     resolution.
+//  2. Failing that, on a 64^3 grid where a voxel is blocked only if all of it is.
+//     This relaxation can't miss a real route, so failing here ends the search;
+//     otherwise the route's voxels and their neighbours make a corridor, and the
+//     remaining searches stay inside it.
+//  3. On the 64^3 grid again, free only if all of the voxel is.
+//  4. At full resolution, again free only if all of the voxel is, so the straight
+//     moves between neighbouring free voxels are clear too. Voxels inside a wholly
+//     free corridor voxel skip the obstacle test. Only if the corridor's gaps turn
+//     out to be too narrow does this search cover the whole arena, and then only
+//     with what is left of the budget.
+// Inside the corridor the heuristic aims at the next corridor voxel on the way to
+// the goal and adds the distance on from there, rather than aiming straight at the
+// goal; otherwise the search fills every part of the corridor that lies nearer the
+// goal than the gap does.
+// The route is then smoothed by replacing runs of voxels with straight segments
+// wherever the obstacle map says they are clear.
+//
+// Every leg is bounded by PlannerSettings.maxExpansions, counted over all
+// levels, and maxNodes, the voxels one level may touch; running out of either
+// ends the leg with no route. That bounds both the time and the memory a leg
+// with no route can take, even on a 1000^3 grid.
+//
+// A planner holds per-search scratch state, so use one per thread. The
+// ObstacleMap itself can be shared.
+public class VoxelPlanner {
+    private static final byte OPEN = 1, CLOSED = 2, BLOCKED = 3;
+    private static final int[] DX = new int[26], DY = new int[26], DZ = new int[26];
+    static {
+        int n = 0;
+        for (int x = -1; x <= 1; x++) {
+            for (int y = -1; y <= 1; y++) {
+                for (int z = -1; z <= 1; z++) {
+                    if (x == 0 && y == 0 && z == 0) continue;
+                    DX[n] = x; DY[n] = y; DZ[n] = z;
+                    n++;
+                }
+            }
+        }
+    }
+    private static final double SQRT2 = Math.sqrt(2), SQRT3 = Math.sqrt(3);
+    private static final int COARSEST_CELLS = 32;
+    private static final int CORRIDOR_CELLS = 64;
+
+    private final ObstacleMap map;
+    private final PlannerSettings settings;
+    private final double[] stepCost = new double[26];
+    // The level being searched
+    private int cells; // per axis
+    private double cellSize;
+    private int test;
+    // How a voxel is tested at the current level
+    private static final int TEST_ANY_BLOCKED = 1, TEST_ALL_BLOCKED = 2;
+
+    // Voxels touched by the current search, in discovery order
+    private long[] nodeKey = new long[1 << 16];
+    private float[] nodeG = new float[1 << 16];
+    private int[] nodeParent = new int[1 << 16];
+    private byte[] nodeState = new byte[1 << 16];
+    private int nodeCount;
+    // Open addressing from voxel key to node number + 1
+    private long[] tableKey = new long[1 << 17];
+    private int[] tableNode = new int[1 << 17];
+    // Binary heap of open nodes; stale entries are skipped when popped
+    private int[] heapNode = new int[1 << 14];
+    private float[] heapF = new float[1 << 14];
+    private int heapSize;
+    private long expanded;
+    // The last search stopped on the budget rather than running out of voxels
+    private boolean exhausted;
+    private volatile boolean cancelled;
+    // Per corridor voxel: distance to the goal through the corridor, in corridor
+    // voxels, and the next corridor voxel on that way (-1 at the goal)
+    private float[] corridorDistance;
+    private int[] corridorNext;
+    // Per corridor voxel: nothing blocked within it, nor within a voxel of this level around it
+    private boolean[] corridorFree;
+
+    public VoxelPlanner(ObstacleMap map, PlannerSettings settings) {
+        this.map = map;
+        this.settings = settings.copy();
+        for (int i = 0; i < 26; i++) {
+            double dy = DY[i] * this.settings.climbCost;
+            stepCost[i] = Math.sqrt(DX[i] * DX[i] + dy * dy + DZ[i] * DZ[i]);
+        }
+    }
+
+    public ObstacleMap getMap() {
+        return map;
+    }
+
+    // The planner's own copy; changing it changes later searches
+    public PlannerSettings getSettings() {
+        return settings;
+    }
+
+    // Voxels per axis at full resolution
+    public int getGridSize() {
+        return (int) Math.ceil(2 * map.getHalfSize() / settings.resolution);
+    }
+
+    // Voxels expanded by the last search, over all levels
+    public long getExpanded() {
+        return expanded;
+    }
+
+    // Makes the current and any later search throw InterruptedException, from any
+    // thread. For pools such as ForkJoinPool whose task cancellation doesn't interrupt.
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // Plans through each stop in turn. Returns null if any leg has no route.
+    public List<Waypoint> planThrough(List<Waypoint> stops) throws InterruptedException {
+        List<Waypoint> route = new ArrayList<>();
+        long total = 0;
+        for (int i = 0; i + 1 < stops.size(); i++) {
+            List<Waypoint> leg = plan(stops.get(i), stops.get(i + 1));
+            total += expanded;
+            if (leg == null) return null;
+            // Each leg starts where the previous one ended
+            route.addAll(route.isEmpty() ? leg : leg.subList(1, leg.size()));
+        }
+        expanded = total;
+        return route;
+    }
+
+    // Returns the route from start to goal, both included, or null if there is none.
+    // Throws IllegalArgumentException if start or goal is itself blocked, and
+    // InterruptedException if the calling thread is interrupted or cancel() is called mid-search.
+    public List<Waypoint> plan(Waypoint start, Waypoint goal) throws InterruptedException {
+        if (map.isBlocked(start.x, start.y, start.z)) {
+            throw new IllegalArgumentException("Start is inside an obstacle or outside the arena: " + start);
+        }
+        if (map.isBlocked(goal.x, goal.y, goal.z)) {
+            throw new IllegalArgumentException("Goal is inside an obstacle or outside the arena: " + goal);
+        }
+        expanded = 0;
+        // Nothing in the way: no search needed
+        if (map.isSegmentClear(start.x, start.y, start.z, goal.x, goal.y, goal.z, settings.resolution / 2)) {
+            return new ArrayList<>(List.of(new Waypoint(start.x, start.y, start.z), new Waypoint(goal.x, goal.y, goal.z)));
+        }
+        int fine = getGridSize();
+        if (fine > COARSEST_CELLS) {
+            useLevel(COARSEST_CELLS, TEST_ANY_BLOCKED);
+            List<Waypoint> route = search(start, goal, false);
+            if (route != null) return finish(route);
+        }
+        boolean corridor = false;
+        if (fine > CORRIDOR_CELLS) {
+            useLevel(CORRIDOR_CELLS, TEST_ALL_BLOCKED);
+            List<Waypoint> relaxed = search(start, goal, false);
+            if (relaxed == null) return null;
+            buildCorridor(relaxed, goal);
+            corridor = true;
+            useLevel(CORRIDOR_CELLS, TEST_ANY_BLOCKED);
+            List<Waypoint> route = search(start, goal, true);
+            if (route != null) return finish(route);
+        }
+        useLevel(fine, TEST_ANY_BLOCKED);
+        List<Waypoint> route = search(start, goal, corridor);
+        if (route == null && corridor && !exhausted) {
+            route = search(start, goal, false);
+        }
+        return route == null ? null : finish(route);
+    }
+
+    private void useLevel(int level, int test) {
+        cells = level;
+        cellSize = 2 * map.getHalfSize() / level;
+        this.test = test;
+    }
+
+    private boolean isBlocked(int x, int y, int z) {
+        if (test == TEST_ALL_BLOCKED) return map.isCubeSolid(center(x), center(y), center(z), cellSize / 2);
+        return map.isCubeBlocked(center(x), center(y), center(z), cellSize / 2);
+    }
+
+    private List<Waypoint> finish(List<Waypoint> route) {
+        return settings.smooth ? smooth(route) : route;
+    }
+
+    // Fills corridorDistance and corridorNext over the voxels of a route at the
+    // corridor level and their neighbours; distance is infinite outside them
+    private void buildCorridor(List<Waypoint> route, Waypoint goal) {
+        int n = CORRIDOR_CELLS;
+        if (corridorDistance == null) {
+            corridorDistance = new float[n * n * n];
+            corridorNext = new int[n * n * n];
+            corridorFree = new boolean[n * n * n];
+        }
+        float[] distance = corridorDistance;
+        Arrays.fill(distance, Float.POSITIVE_INFINITY);
+        // NaN marks corridor voxels not yet reached
+        for (Waypoint wp : route) {
+            int x = cell(wp.x), y = cell(wp.y), z = cell(wp.z);
+            for (int i = Math.max(0, x - 1); i <= Math.min(n - 1, x + 1); i++) {
+                for (int j = Math.max(0, y - 1); j <= Math.min(n - 1, y + 1); j++) {
+                    for (int k = Math.max(0, z - 1); k <= Math.min(n - 1, z + 1); k++) {
+                        int c = (i * n + j) * n + k;
+                        if (distance[c] == Float.POSITIVE_INFINITY) {
+                            distance[c] = Float.NaN;
+                            // Voxels of finer levels centred in this one may stick out of it a little
+                            corridorFree[c] = !map.isCubeBlocked(center(i), center(j), center(k), cellSize / 2 + settings.resolution);
+                        }
+                    }
+                }
+            }
+        }
+        // Dijkstra out from the goal over the corridor, reusing the search heap
+        heapSize = 0;
+        int goalCell = (cell(goal.x) * n + cell(goal.y)) * n + cell(goal.z);
+        distance[goalCell] = 0;
+        corridorNext[goalCell] = -1;
+        push(goalCell, 0);
+        while (heapSize > 0) {
+            float d = heapF[0];
+            int c = pop();
+            if (d > distance[c]) continue;
+            int cx = c / (n * n), cy = c / n % n, cz = c % n;
+            for (int i = 0; i < 26; i++) {
+                int nx = cx + DX[i], ny = cy + DY[i], nz = cz + DZ[i];
+                if (nx < 0 || ny < 0 || nz < 0 || nx >= n || ny >= n || nz >= n) continue;
+                int next = (nx * n + ny) * n + nz;
+                float nd = (float) (d + stepCost[i]);
+                float old = distance[next];
+                if (old == Float.POSITIVE_INFINITY || nd >= old) continue; // outside, or no better (NaN compares false)
+                distance[next] = nd;
+                corridorNext[next] = c;
+                push(next, nd);
+            }
+        }
+    }
+
+    // Route through the current level, or null. With a corridor, only voxels whose
+    // centres fall inside it are searched.
+    private List<Waypoint> search(Waypoint start, Waypoint goal, boolean corridor) throws InterruptedException {
+        int sx = cell(start.x), sy = cell(start.y), sz = cell(start.z);
+        int gx = cell(goal.x), gy = cell(goal.y), gz = cell(goal.z);
+        // A coarse end voxel that is only partly free can't be trusted to reach the exact
+        // end point. At full resolution the end points are known to be free and the
+        // end voxels are taken as they are.
+        boolean fine = cells == getGridSize();
+        if (!fine && test == TEST_ANY_BLOCKED && (isBlocked(sx, sy, sz) || isBlocked(gx, gy, gz))) {
+            return null;
+        }
+        long goalKey = key(gx, gy, gz);
+        long scale = 2L * cells; // fine centre (2i + 1) / 2cells -> corridor cell
+        double ratio = cells / (double) CORRIDOR_CELLS; // voxels of this level per corridor voxel
+        double weight = settings.heuristicWeight;
+        reset();
+        exhausted = expanded >= settings.maxExpansions;
+        if (exhausted) return null;
+
+        int startNode = node(key(sx, sy, sz));
+        nodeState[startNode] = OPEN;
+        nodeG[startNode] = 0;
+        nodeParent[startNode] = -1;
+        push(startNode, (float) (weight * heuristic(sx - gx, sy - gy, sz - gz)));
+
+        int goalNode = -1;
+        while (heapSize > 0) {
+            int current = pop();
+            if (nodeState[current] == CLOSED) continue;
+            nodeState[current] = CLOSED;
+            long k = nodeKey[current];
+            if (k == goalKey) {
+                goalNode = current;
+                break;
+            }
+            if ((++expanded & 1023) == 0) {
+                if (cancelled || Thread.currentThread().isInterrupted()) throw new InterruptedException("Planning cancelled");
+            }
+            // One expansion adds at most 26 nodes and heap entries, so this bounds both
+            if (expanded >= settings.maxExpansions || nodeCount >= settings.maxNodes || heapSize >= settings.maxNodes) {
+                exhausted = true;
+                break;
+            }
+            int cx = (int) (k / ((long) cells * cells)), cy = (int) (k / cells % cells), cz = (int) (k % cells);
+            float g = nodeG[current];
+            for (int i = 0; i < 26; i++) {
+                int nx = cx + DX[i], ny = cy + DY[i], nz = cz + DZ[i];
+                if (nx < 0 || ny < 0 || nz < 0 || nx >= cells || ny >= cells || nz >= cells) continue;
+                int c = -1;
+                if (corridor) {
+                    int n = CORRIDOR_CELLS;
+                    int ix = (int) ((2L * nx + 1) * n / scale), iy = (int) ((2L * ny + 1) * n / scale), iz = (int) ((2L * nz + 1) * n / scale);
+                    c = (ix * n + iy) * n + iz;
+                    if (!(corridorDistance[c] < Float.POSITIVE_INFINITY)) continue;
+                }
+                long nextKey = key(nx, ny, nz);
+                int next = node(nextKey);
+                byte state = nodeState[next];
+                if (state == CLOSED || state == BLOCKED) continue;
+                if (state == 0 && !(fine && nextKey == goalKey) && !(c >= 0 && corridorFree[c]) && isBlocked(nx, ny, nz)) {
+                    nodeState[next] = BLOCKED;
+                    continue;
+                }
+                float ng = (float) (g + stepCost[i]);
+                if (state == OPEN && ng >= nodeG[next]) continue;
+                nodeState[next] = OPEN;
+                nodeG[next] = ng;
+                nodeParent[next] = current;
+                double h = heuristic(nx - gx, ny - gy, nz - gz);
+                int to = c >= 0 ? corridorNext[c] : -1;
+                if (to >= 0) {
+                    // Centre of the next corridor voxel in this level's voxel coordinates
+                    int n = CORRIDOR_CELLS;
+                    double tx = (to / (n * n) + 0.5) * ratio - 0.5, ty = (to / n % n + 0.5) * ratio - 0.5, tz = (to % n + 0.5) * ratio - 0.5;
+                    h = Math.max(h, heuristic(nx - tx, ny - ty, nz - tz) + corridorDistance[to] * ratio);
+                }
+                push(next, (float) (ng + weight * h));
+            }
+        }
+        if (goalNode < 0) return null;
+
+        List<Waypoint> route = new ArrayList<>();
+        for (int n = goalNode; n >= 0; n = nodeParent[n]) {
+            long k = nodeKey[n];
+            route.add(new Waypoint(center((int) (k / ((long) cells * cells))), center((int) (k / cells % cells)), center((int) (k % cells))));
+        }
+        java.util.Collections.reverse(route);
+        // Join the exact ends to the voxel path; each lies inside its end voxel
+        route.add(0, new Waypoint(start.x, start.y, start.z));
+        route.add(new Waypoint(goal.x, goal.y, goal.z));
+        return route;
+    }
+
+    // Greedy string pulling: from each kept point, walk ahead while the straight line stays clear
+    private List<Waypoint> smooth(List<Waypoint> route) {
+        List<Waypoint> result = new ArrayList<>();
+        double step = settings.resolution / 2;
+        int anchor = 0;
+        result.add(route.get(0));
+        while (anchor < route.size() - 1) {
+            Waypoint a = route.get(anchor);
+            int next = anchor + 1;
+            while (next + 1 < route.size()) {
+                Waypoint b = route.get(next + 1);
+                if (!map.isSegmentClear(a.x, a.y, a.z, b.x, b.y, b.z, step)) break;
+                next++;
+            }
+            result.add(route.get(next));
+            anchor = next;
+        }
+        return result;
+    }
+
+    // Octile distance in 3D over the given offsets, with vertical steps scaled by the climb cost
+    private double heuristic(double dx, double dy, double dz) {
+        double a = Math.abs(dx), b = Math.abs(dy) * settings.climbCost, c = Math.abs(dz);
+        double hi = Math.max(a, Math.max(b, c));
+        double lo = Math.min(a, Math.min(b, c));
+        double mid = a + b + c - hi - lo;
+        return lo * SQRT3 + (mid - lo) * SQRT2 + (hi - mid);
+    }
+
+    private int cell(double v) {
+        int c = (int) Math.floor((v + map.getHalfSize()) / cellSize);
+        return c < 0 ? 0 : (c >= cells ? cells - 1 : c);
+    }
+
+    private double center(int c) {
+        return -map.getHalfSize() + (c + 0.5) * cellSize;
+    }
+
+    private long key(int x, int y, int z) {
+        return ((long) x * cells + y) * cells + z;
+    }
+
+    private void reset() {
+        // The table only grows, so after one large search clearing all of it would
+        // cost every later level far more than the search itself. Clear the slots
+        // the last search filled instead, unless it filled a good part of the table.
+        if (nodeCount * 8L < tableNode.length) {
+            int mask = tableNode.length - 1;
+            for (int n = 0; n < nodeCount; n++) {
+                // Walk the node's probe chain; slots already cleared in this loop are
+                // stepped over, since the chain still ends at the node's own slot
+                int slot = slot(nodeKey[n], mask);
+                while (tableNode[slot] != n + 1) slot = (slot + 1) & mask;
+                tableNode[slot] = 0;
+            }
+        } else {
+            Arrays.fill(tableNode, 0);
+        }
+        nodeCount = 0;
+        heapSize = 0;
+    }
+
+    // Node number for a voxel, created unvisited on first touch
+    private int node(long key) {
+        int mask = tableKey.length - 1;
+        int slot = slot(key, mask);
+        while (tableNode[slot] != 0) {
+            if (tableKey[slot] == key) return tableNode[slot] - 1;
+            slot = (slot + 1) & mask;
+        }
+        if (nodeCount == nodeKey.length) {
+            int capacity = nodeKey.length * 2;
+            nodeKey = Arrays.copyOf(nodeKey, capacity);
+            nodeG = Arrays.copyOf(nodeG, capacity);
+            nodeParent = Arrays.copyOf(nodeParent, capacity);
+            nodeState = Arrays.copyOf(nodeState, capacity);
+        }
+        int n = nodeCount++;
+        nodeKey[n] = key;
+        nodeState[n] = 0;
+        tableKey[slot] = key;
+        tableNode[slot] = n + 1;
+        // Keep the table at most half full
+        if (nodeCount * 2 > tableKey.length) rehash();
+        return n;
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+
+    private void rehash() {
+        long[] keys = new long[tableKey.length * 2];
+        int[] nodes = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int n = 0; n < nodeCount; n++) {
+            int slot = slot(nodeKey[n], mask);
+            while (nodes[slot] != 0) slot = (slot + 1) & mask;
+            keys[slot] = nodeKey[n];
+            nodes[slot] = n + 1;
+        }
+        tableKey = keys;
+        tableNode = nodes;
+    }
+
+    private void push(int node, float f) {
+        if (heapSize == heapNode.length) {
+            heapNode = Arrays.copyOf(heapNode, heapSize * 2);
+            heapF = Arrays.copyOf(heapF, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapF[parent] <= f) break;
+            heapNode[i] = heapNode[parent];
+            heapF[i] = heapF[parent];
+            i = parent;
+        }
+        heapNode[i] = node;
+        heapF[i] = f;
+    }
+
+    private int pop() {
+        int top = heapNode[0];
+        int lastNode = heapNode[--heapSize];
+        float lastF = heapF[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heapF[child + 1] < heapF[child]) child++;
+            if (heapF[child] >= lastF) break;
+            heapNode[i] = heapNode[child];
+            heapF[i] = heapF[child];
+            i = child;
+        }
+        heapNode[i] = lastNode;
+        heapF[i] = lastF;
+        return top;
+    }
+}
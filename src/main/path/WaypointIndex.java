@@ -0,0 +1,213 @@
+package main.path;
+
+import java.util.List;
+
+// Bounding volume hierarchy over waypoint markers (spheres of one radius), for
+// finding the marker under the mouse by casting a ray instead of letting JavaFX
+// test every triangle of every marker. Built top-down, splitting each node at the
+// median of its longest axis, so it copes with waypoints in any order: a few
+// milliseconds for 10k waypoints, and a pick is then about a microsecond. A ray
+// visits boxes nearest first and skips any box beyond the best hit so far.
+public class WaypointIndex {
+    private static final int LEAF_POINTS = 4;
+
+    private double[] x = new double[0], y = new double[0], z = new double[0];
+    private int count;
+    private double radius;
+    // Waypoint indices, reordered so every node covers a contiguous range
+    private int[] order = new int[0];
+
+    // Nodes as parallel arrays; a leaf has left == -1 and covers order[first, last)
+    private double[] minX = new double[0], minY = new double[0], minZ = new double[0];
+    private double[] maxX = new double[0], maxY = new double[0], maxZ = new double[0];
+    private int[] left = new int[0], right = new int[0];
+    private int[] first = new int[0], last = new int[0];
+    private int nodeCount;
+    private int[] stack = new int[64];
+    private double[] stackNear = new double[64];
+
+    public void build(List<Waypoint> waypoints, double radius) {
+        this.radius = radius;
+        count = waypoints.size();
+        if (x.length < count) {
+            x = new double[count];
+            y = new double[count];
+            z = new double[count];
+            order = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            Waypoint wp = waypoints.get(i);
+            x[i] = wp.x;
+            y[i] = wp.y;
+            z[i] = wp.z;
+            order[i] = i;
+        }
+        nodeCount = 0;
+        if (count == 0) return;
+        ensureNodes(2 * count);
+        buildNode(0, count);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // The first marker hit by the ray from (ox, oy, oz) along (dx, dy, dz), or -1
+    public int raycast(double ox, double oy, double oz, double dx, double dy, double dz) {
+        if (count == 0) return -1;
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (length == 0) return -1;
+        dx /= length;
+        dy /= length;
+        dz /= length;
+        double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+        double best = Double.POSITIVE_INFINITY;
+        int bestIndex = -1;
+        int top = 0;
+        double rootNear = enter(0, ox, oy, oz, ix, iy, iz);
+        if (rootNear == Double.POSITIVE_INFINITY) return -1;
+        stack[top] = 0;
+        stackNear[top++] = rootNear;
+        while (top > 0) {
+            top--;
+            int node = stack[top];
+            if (stackNear[top] >= best) continue;
+            if (left[node] < 0) {
+                for (int k = first[node]; k < last[node]; k++) {
+                    int i = order[k];
+                    double t = hitSphere(i, ox, oy, oz, dx, dy, dz);
+                    if (t < best) {
+                        best = t;
+                        bestIndex = i;
+                    }
+                }
+                continue;
+            }
+            double nearLeft = enter(left[node], ox, oy, oz, ix, iy, iz);
+            double nearRight = enter(right[node], ox, oy, oz, ix, iy, iz);
+            if (top + 2 > stack.length) {
+                stack = java.util.Arrays.copyOf(stack, stack.length * 2);
+                stackNear = java.util.Arrays.copyOf(stackNear, stackNear.length * 2);
+            }
+            // Push the farther child first so the nearer one is popped first
+            boolean leftFirst = nearLeft <= nearRight;
+            int farNode = leftFirst ? right[node] : left[node];
+            double farT = leftFirst ? nearRight : nearLeft;
+            int nearNode = leftFirst ? left[node] : right[node];
+            double nearT = leftFirst ? nearLeft : nearRight;
+            if (farT < best) {
+                stack[top] = farNode;
+                stackNear[top++] = farT;
+            }
+            if (nearT < best) {
+                stack[top] = nearNode;
+                stackNear[top++] = nearT;
+            }
+        }
+        return bestIndex;
+    }
+
+    // Distance along the ray to marker i, or infinity if it misses
+    private double hitSphere(int i, double ox, double oy, double oz, double dx, double dy, double dz) {
+        double cx = x[i] - ox, cy = y[i] - oy, cz = z[i] - oz;
+        double b = cx * dx + cy * dy + cz * dz;
+        double c = cx * cx + cy * cy + cz * cz - radius * radius;
+        if (c <= 0) return 0; // the ray starts inside it
+        if (b < 0) return Double.POSITIVE_INFINITY;
+        double disc = b * b - c;
+        if (disc < 0) return Double.POSITIVE_INFINITY;
+        return b - Math.sqrt(disc);
+    }
+
+    // Distance along the ray to where it enters the node's box (0 if it starts
+    // inside), or infinity if it misses. Slab test with precomputed inverse direction.
+    private double enter(int node, double ox, double oy, double oz, double ix, double iy, double iz) {
+        double t1 = (minX[node] - ox) * ix, t2 = (maxX[node] - ox) * ix;
+        double near = Math.min(t1, t2), far = Math.max(t1, t2);
+        t1 = (minY[node] - oy) * iy;
+        t2 = (maxY[node] - oy) * iy;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+        t1 = (minZ[node] - oz) * iz;
+        t2 = (maxZ[node] - oz) * iz;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+        // NaN from an axis-parallel ray on a box face fails both tests, so it counts as a miss
+        if (!(near <= far) || far < 0) return Double.POSITIVE_INFINITY;
+        return Math.max(near, 0);
+    }
+
+    private int buildNode(int from, int to) {
+        int node = nodeCount++;
+        double lx = Double.POSITIVE_INFINITY, ly = lx, lz = lx;
+        double hx = Double.NEGATIVE_INFINITY, hy = hx, hz = hx;
+        for (int k = from; k < to; k++) {
+            int i = order[k];
+            lx = Math.min(lx, x[i]);
+            ly = Math.min(ly, y[i]);
+            lz = Math.min(lz, z[i]);
+            hx = Math.max(hx, x[i]);
+            hy = Math.max(hy, y[i]);
+            hz = Math.max(hz, z[i]);
+        }
+        // Boxes bound the markers, not just their centres
+        minX[node] = lx - radius;
+        minY[node] = ly - radius;
+        minZ[node] = lz - radius;
+        maxX[node] = hx + radius;
+        maxY[node] = hy + radius;
+        maxZ[node] = hz + radius;
+        first[node] = from;
+        last[node] = to;
+        if (to - from <= LEAF_POINTS) {
+            left[node] = -1;
+            return node;
+        }
+        double[] axis = hx - lx >= hy - ly && hx - lx >= hz - lz ? x : hy - ly >= hz - lz ? y : z;
+        int mid = (from + to) >>> 1;
+        select(axis, from, to - 1, mid);
+        left[node] = buildNode(from, mid);
+        right[node] = buildNode(mid, to);
+        return node;
+    }
+
+    // Reorders order[lo..hi] so order[k] holds the k-th smallest by axis (quickselect)
+    private void select(double[] axis, int lo, int hi, int k) {
+        while (hi > lo) {
+            double pivot = axis[order[(lo + hi) >>> 1]];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (axis[order[i]] < pivot) i++;
+                while (axis[order[j]] > pivot) j--;
+                if (i <= j) {
+                    int t = order[i];
+                    order[i] = order[j];
+                    order[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void ensureNodes(int capacity) {
+        if (minX.length >= capacity) return;
+        minX = new double[capacity];
+        minY = new double[capacity];
+        minZ = new double[capacity];
+        maxX = new double[capacity];
+        maxY = new double[capacity];
+        maxZ = new double[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        first = new int[capacity];
+        last = new int[capacity];
+    }
+}
@@ -0,0 +1,117 @@
+package main.record;
+
+import main.comm.Telemetry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+// Converts a telemetry CSV into a FlightLog directory so it replays like a
+// recorded flight. The first line names the columns; recognised names are
+//   time (ms) or time_s (seconds), lat, lon, alt, heading, roll, pitch,
+//   airspeed (or speed) and id
+// in any order and case. Other columns are ignored and missing ones read as NaN.
+// Without a time column, rows are spaced DEFAULT_INTERVAL apart. The file is
+// streamed a line at a time, so its size is only limited by the disk.
+public final class CsvFlightImporter {
+    public static final long DEFAULT_INTERVAL = 10; // ms, 100 Hz
+    // Rows are rarely shorter than this; if they are, the log just rolls into more segments
+    private static final int MIN_ROW_BYTES = 8;
+    private static final int MIN_SEGMENT_RECORDS = 1024;
+
+    private static final int TIME = 0, TIME_S = 1, LAT = 2, LON = 3, ALT = 4, HEADING = 5,
+            ROLL = 6, PITCH = 7, AIRSPEED = 8, ID = 9, IGNORED = -1;
+
+    private CsvFlightImporter() {}
+
+    // Returns the number of rows written; rows that don't parse are skipped
+    public static long importCsv(Path csv, Path dir) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String header = in.readLine();
+            if (header == null) throw new IOException("Empty CSV: " + csv);
+            String[] names = header.split(",");
+            int[] columns = new int[names.length];
+            boolean timed = false;
+            for (int i = 0; i < names.length; i++) {
+                columns[i] = column(names[i].trim().toLowerCase(Locale.ROOT));
+                timed |= columns[i] == TIME || columns[i] == TIME_S;
+            }
+
+            FlightLogWriter writer = new FlightLogWriter(dir, segmentRecords(Files.size(csv)), 0);
+            Telemetry t = new Telemetry();
+            long row = 0;
+            long last = Long.MIN_VALUE;
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    t.clear();
+                    if (!parseRow(line, columns, t)) continue;
+                    long time = timed ? t.timeMillis : row * DEFAULT_INTERVAL;
+                    // The index is searched by time, so it must never step back
+                    last = Math.max(last, time);
+                    writer.write(t, last);
+                    row++;
+                }
+            } finally {
+                writer.close();
+            }
+            return row;
+        }
+    }
+
+    // A segment big enough for every row of a small file, so a tiny CSV doesn't map a
+    // full-size segment; writer.close() trims whatever is left over
+    static int segmentRecords(long csvBytes) {
+        long rows = csvBytes / MIN_ROW_BYTES + 1;
+        return (int) Math.max(MIN_SEGMENT_RECORDS, Math.min(rows, FlightRecorder.DEFAULT_SEGMENT_RECORDS));
+    }
+
+    private static boolean parseRow(String line, int[] columns, Telemetry t) {
+        int start = 0;
+        for (int c = 0; c < columns.length && start <= line.length(); c++) {
+            int end = line.indexOf(',', start);
+            if (end < 0) end = line.length();
+            if (columns[c] != IGNORED && end > start) {
+                try {
+                    double v = Double.parseDouble(line.substring(start, end).trim());
+                    switch (columns[c]) {
+                        case TIME: t.timeMillis = (long) v; break;
+                        case TIME_S: t.timeMillis = Math.round(v * 1000); break;
+                        case LAT: t.lat = v; break;
+                        case LON: t.lon = v; break;
+                        case ALT: t.alt = v; break;
+                        case HEADING: t.heading = v; break;
+                        case ROLL: t.roll = v; break;
+                        case PITCH: t.pitch = v; break;
+                        case AIRSPEED: t.airspeed = v; break;
+                        case ID: t.vehicleId = (int) v; break;
+                    }
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+            start = end + 1;
+        }
+        return true;
+    }
+
+    private static int column(String name) {
+        switch (name) {
+            case "time": case "time_ms": case "timestamp": return TIME;
+            case "time_s": case "seconds": return TIME_S;
+            case "lat": case "latitude": return LAT;
+            case "lon": case "lng": case "longitude": return LON;
+            case "alt": case "altitude": return ALT;
+            case "heading": case "yaw": return HEADING;
+            case "roll": return ROLL;
+            case "pitch": return PITCH;
+            case "airspeed": case "speed": return AIRSPEED;
+            case "id": case "vehicle": return ID;
+            default: return IGNORED;
+        }
+    }
+}
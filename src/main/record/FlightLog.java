@@ -0,0 +1,61 @@
+package main.record;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// On-disk layout of a recorded flight: one directory holding numbered segment
+// files and a sparse time index.
+//
+// segment-NNNNN.log: a 64-byte header, then fixed 64-byte records, little endian.
+//   header:  int magic 'FLOG', int version, int record size, int reserved,
+//            long record count (updated as records are written), long first time
+//   record:  long received ms, long vehicle ms, int vehicle id, int reserved,
+//            double lat, double lon, float alt, heading, roll, pitch, airspeed, 4 pad bytes
+// time.idx: (long received ms, long record number) for every INDEX_STRIDE-th record,
+//   record numbers counting across segments.
+//
+// Received times come from a monotonic clock anchored to the wall clock at the
+// start of the flight, so they never step backwards and can be searched.
+final class FlightLog {
+    static final int MAGIC = 0x474F4C46; // "FLOG" read little endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 64;
+    static final int COUNT_OFFSET = 16;
+    static final int FIRST_TIME_OFFSET = 24;
+    static final int INDEX_STRIDE = 1024;
+    static final int INDEX_ENTRY = 16;
+    static final String INDEX_FILE = "time.idx";
+
+    // Record field offsets
+    static final int RECEIVED = 0;
+    static final int VEHICLE_TIME = 8;
+    static final int VEHICLE_ID = 16;
+    static final int LAT = 24;
+    static final int LON = 32;
+    static final int ALT = 40;
+    static final int HEADING = 44;
+    static final int ROLL = 48;
+    static final int PITCH = 52;
+    static final int AIRSPEED = 56;
+
+    private FlightLog() {}
+
+    static Path segmentPath(Path dir, int segment) {
+        return dir.resolve(String.format("segment-%05d.log", segment));
+    }
+
+    static List<Path> segments(Path dir) throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "segment-*.log")) {
+            for (Path p : stream) result.add(p);
+        }
+        Collections.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,152 @@
+package main.record;
+
+import main.comm.Telemetry;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Random access to a FlightLog directory. Segments are memory mapped read-only,
+// so records are decoded straight from the page cache and a multi-gigabyte log
+// never lands on the heap. Records are numbered 0..size()-1 across segments;
+// indexOf() finds a timestamp through the sparse time index plus a binary search
+// inside one index stride.
+public class FlightLogReader implements AutoCloseable {
+    private final Path dir;
+    private final MappedByteBuffer[] segments;
+    // Record number of the first record in each segment, with the total at the end
+    private final long[] segmentStart;
+    private final int recordsPerSegment;
+    private final long[] indexTimes;
+    private final long[] indexRecords;
+
+    public FlightLogReader(Path dir) throws IOException {
+        this.dir = dir;
+        List<Path> files = FlightLog.segments(dir);
+        segments = new MappedByteBuffer[files.size()];
+        segmentStart = new long[files.size() + 1];
+        int perSegment = 0;
+        for (int i = 0; i < files.size(); i++) {
+            try (FileChannel channel = FileChannel.open(files.get(i), StandardOpenOption.READ)) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                segment.order(ByteOrder.LITTLE_ENDIAN);
+                if (segment.getInt(0) != FlightLog.MAGIC || segment.getInt(8) != FlightLog.RECORD_SIZE) {
+                    throw new IOException("Not a flight log segment: " + files.get(i));
+                }
+                segments[i] = segment;
+                segmentStart[i + 1] = segmentStart[i] + segment.getLong(FlightLog.COUNT_OFFSET);
+                if (i == 0) perSegment = (int) ((channel.size() - FlightLog.HEADER_SIZE) / FlightLog.RECORD_SIZE);
+            }
+        }
+        recordsPerSegment = Math.max(1, perSegment);
+
+        Path indexPath = dir.resolve(FlightLog.INDEX_FILE);
+        int entries = Files.exists(indexPath) ? (int) (Files.size(indexPath) / FlightLog.INDEX_ENTRY) : 0;
+        indexTimes = new long[entries];
+        indexRecords = new long[entries];
+        if (entries > 0) {
+            try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+                LongBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) entries * FlightLog.INDEX_ENTRY)
+                        .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+                for (int i = 0; i < entries; i++) {
+                    indexTimes[i] = index.get(2 * i);
+                    indexRecords[i] = index.get(2 * i + 1);
+                }
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    public long size() {
+        return segmentStart[segments.length];
+    }
+
+    public long getStartTime() {
+        return size() == 0 ? 0 : timeAt(0);
+    }
+
+    public long getEndTime() {
+        return size() == 0 ? 0 : timeAt(size() - 1);
+    }
+
+    // Received time (ms) of record n
+    public long timeAt(long n) {
+        MappedByteBuffer segment = segmentOf(n);
+        return segment.getLong(offsetOf(n) + FlightLog.RECEIVED);
+    }
+
+    // Decodes record n into out and returns its received time
+    public long read(long n, Telemetry out) {
+        MappedByteBuffer segment = segmentOf(n);
+        int at = offsetOf(n);
+        out.timeMillis = segment.getLong(at + FlightLog.VEHICLE_TIME);
+        out.vehicleId = segment.getInt(at + FlightLog.VEHICLE_ID);
+        out.lat = segment.getDouble(at + FlightLog.LAT);
+        out.lon = segment.getDouble(at + FlightLog.LON);
+        out.alt = segment.getFloat(at + FlightLog.ALT);
+        out.heading = segment.getFloat(at + FlightLog.HEADING);
+        out.roll = segment.getFloat(at + FlightLog.ROLL);
+        out.pitch = segment.getFloat(at + FlightLog.PITCH);
+        out.airspeed = segment.getFloat(at + FlightLog.AIRSPEED);
+        return segment.getLong(at + FlightLog.RECEIVED);
+    }
+
+    // Number of the last record received at or before time, or 0 if time is before the flight
+    public long indexOf(long time) {
+        long size = size();
+        if (size == 0) return 0;
+        // Narrow to one stride with the sparse index, then search the records themselves
+        long lo = 0, hi = size - 1;
+        int entry = upperBound(indexTimes, time) - 1;
+        if (entry >= 0) {
+            lo = Math.min(indexRecords[entry], size - 1);
+            if (entry + 1 < indexRecords.length) hi = Math.min(indexRecords[entry + 1], size - 1);
+        } else if (indexRecords.length > 0) {
+            hi = Math.min(indexRecords[0], size - 1);
+        }
+        while (lo < hi) {
+            long mid = (lo + hi + 1) >>> 1;
+            if (timeAt(mid) <= time) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    private static int upperBound(long[] values, long key) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] <= key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private MappedByteBuffer segmentOf(long n) {
+        if (n < 0 || n >= size()) {
+            throw new IndexOutOfBoundsException("Record " + n + " of " + size());
+        }
+        // Every segment but the last is full, so the segment is a division away
+        return segments[(int) Math.min(n / recordsPerSegment, segments.length - 1)];
+    }
+
+    private int offsetOf(long n) {
+        int segment = (int) Math.min(n / recordsPerSegment, segments.length - 1);
+        return FlightLog.HEADER_SIZE + (int) (n - segmentStart[segment]) * FlightLog.RECORD_SIZE;
+    }
+
+    // Mappings are released by the garbage collector; this only drops the references
+    @Override
+    public void close() {
+        java.util.Arrays.fill(segments, null);
+    }
+}
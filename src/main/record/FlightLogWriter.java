@@ -0,0 +1,118 @@
+package main.record;
+
+import main.comm.Telemetry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Appends records to a FlightLog directory from a single thread: maps one
+// segment at a time, rolls to the next when it fills and adds a time index entry
+// every INDEX_STRIDE records. Received times must not go backwards. close() cuts
+// the last segment down to the records it holds, so a short flight doesn't leave
+// a whole segment's worth of file behind.
+final class FlightLogWriter {
+    private final Path dir;
+    private final int segmentRecords;
+    private final FileChannel indexChannel;
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(FlightLog.INDEX_ENTRY).order(ByteOrder.LITTLE_ENDIAN);
+    private MappedByteBuffer segment;
+    private int segmentNumber = -1;
+    private int segmentCount;
+    private volatile long written;
+
+    // Maps the first segment straight away, so the cost lands here rather than on the first record
+    FlightLogWriter(Path dir, int segmentRecords, long startTime) throws IOException {
+        this.dir = dir;
+        this.segmentRecords = segmentRecords;
+        Files.createDirectories(dir);
+        indexChannel = FileChannel.open(dir.resolve(FlightLog.INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            rollSegment(startTime);
+        } catch (IOException e) {
+            indexChannel.close();
+            throw e;
+        }
+    }
+
+    void write(Telemetry t, long received) throws IOException {
+        if (segmentCount == segmentRecords) {
+            rollSegment(received);
+        }
+        if (written % FlightLog.INDEX_STRIDE == 0) {
+            indexEntry.clear();
+            indexEntry.putLong(received).putLong(written).flip();
+            indexChannel.write(indexEntry);
+        }
+        int at = FlightLog.HEADER_SIZE + segmentCount * FlightLog.RECORD_SIZE;
+        segment.putLong(at + FlightLog.RECEIVED, received);
+        segment.putLong(at + FlightLog.VEHICLE_TIME, t.timeMillis);
+        segment.putInt(at + FlightLog.VEHICLE_ID, t.vehicleId);
+        segment.putDouble(at + FlightLog.LAT, t.lat);
+        segment.putDouble(at + FlightLog.LON, t.lon);
+        segment.putFloat(at + FlightLog.ALT, (float) t.alt);
+        segment.putFloat(at + FlightLog.HEADING, (float) t.heading);
+        segment.putFloat(at + FlightLog.ROLL, (float) t.roll);
+        segment.putFloat(at + FlightLog.PITCH, (float) t.pitch);
+        segment.putFloat(at + FlightLog.AIRSPEED, (float) t.airspeed);
+        segmentCount++;
+        written++; // single writer, so the non-atomic increment is safe
+    }
+
+    // Publishes the record count; records up to here become visible to readers
+    void commit() {
+        segment.putLong(FlightLog.COUNT_OFFSET, segmentCount);
+    }
+
+    long getWritten() {
+        return written;
+    }
+
+    private void rollSegment(long firstTime) throws IOException {
+        if (segmentNumber >= 0) {
+            commit();
+            segment.force();
+        }
+        segmentNumber++;
+        long size = FlightLog.HEADER_SIZE + (long) segmentRecords * FlightLog.RECORD_SIZE;
+        // The mapping outlives the channel, so the file can be closed straight away
+        try (FileChannel channel = FileChannel.open(FlightLog.segmentPath(dir, segmentNumber),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segment.putInt(0, FlightLog.MAGIC);
+        segment.putInt(4, FlightLog.VERSION);
+        segment.putInt(8, FlightLog.RECORD_SIZE);
+        segment.putLong(FlightLog.COUNT_OFFSET, 0);
+        segment.putLong(FlightLog.FIRST_TIME_OFFSET, firstTime);
+        segmentCount = 0;
+    }
+
+    void close() throws IOException {
+        try {
+            commit();
+            segment.force();
+            segment = null;
+            truncateLastSegment();
+        } finally {
+            indexChannel.close();
+        }
+    }
+
+    private void truncateLastSegment() {
+        long size = FlightLog.HEADER_SIZE + (long) segmentCount * FlightLog.RECORD_SIZE;
+        try (FileChannel channel = FileChannel.open(FlightLog.segmentPath(dir, segmentNumber), StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        } catch (IOException e) {
+            // Windows refuses while the mapping is alive; the file just keeps its full size
+            System.err.println("Could not trim " + FlightLog.segmentPath(dir, segmentNumber) + ": " + e.getMessage());
+        }
+    }
+}
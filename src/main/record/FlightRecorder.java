@@ -0,0 +1,118 @@
+package main.record;
+
+import main.comm.Telemetry;
+import main.comm.TelemetryListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Records telemetry to a FlightLog directory. onTelemetry runs on the receive
+// thread and only copies the sample into a preallocated single-producer ring; a
+// writer thread drains the ring into memory-mapped segment files through a
+// FlightLogWriter. If the writer ever falls a full ring behind, new samples are
+// dropped and counted rather than blocking the link.
+public class FlightRecorder implements TelemetryListener {
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 16; // 4 MB, about 11 minutes at 100 Hz
+    private static final int RING_SIZE = 8192;
+
+    private final Path dir;
+
+    // Ring: the receive thread advances tail, the writer advances head
+    private final Telemetry[] ring = new Telemetry[RING_SIZE];
+    private final long[] ringReceived = new long[RING_SIZE];
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final long startMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+
+    private final Thread writer;
+    private volatile boolean running = true;
+    private final FlightLogWriter log;
+
+    public FlightRecorder(Path dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    public FlightRecorder(Path dir, int segmentRecords) throws IOException {
+        this.dir = dir;
+        for (int i = 0; i < RING_SIZE; i++) {
+            ring[i] = new Telemetry();
+        }
+        log = new FlightLogWriter(dir, segmentRecords, startMillis);
+        writer = new Thread(this::writeLoop, "flight-recorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    @Override
+    public void onTelemetry(Telemetry telemetry) {
+        long t = tail.get();
+        if (t - head.get() >= RING_SIZE) {
+            dropped.incrementAndGet();
+            return;
+        }
+        int slot = (int) (t & (RING_SIZE - 1));
+        ring[slot].copyFrom(telemetry);
+        ringReceived[slot] = startMillis + (System.nanoTime() - startNanos) / 1_000_000;
+        tail.lazySet(t + 1); // publishes the slot to the writer
+    }
+
+    private void writeLoop() {
+        try {
+            while (running || head.get() < tail.get()) {
+                long h = head.get();
+                long t = tail.get();
+                if (h == t) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(2));
+                    continue;
+                }
+                for (long i = h; i < t; i++) {
+                    int slot = (int) (i & (RING_SIZE - 1));
+                    log.write(ring[slot], ringReceived[slot]);
+                }
+                head.lazySet(t);
+                // Publish the count once per batch, so a reader never sees a half-written record
+                log.commit();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeFiles();
+        }
+    }
+
+    private void closeFiles() {
+        try {
+            log.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public long getRecorded() {
+        return log.getWritten();
+    }
+
+    // Samples lost because the writer was a full ring behind
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    // Writes out everything already received, then stops
+    public void close() {
+        running = false;
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
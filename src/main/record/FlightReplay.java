@@ -0,0 +1,74 @@
+package main.record;
+
+import main.comm.Telemetry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Plays a recorded flight back against a playback clock. The caller advances
+// the clock at whatever speed it likes and asks for the sample at that offset;
+// each call is one index lookup and one record decode from the mapped log, so
+// playback speed and log size cost nothing on the heap.
+public class FlightReplay implements AutoCloseable {
+    // How far to look for the first position fix before giving up on an origin
+    private static final int FIX_SEARCH_LIMIT = 100_000;
+
+    private final FlightLogReader reader;
+    private final Telemetry sample = new Telemetry();
+    private final long startTime;
+    private final long duration;
+    private long position = -1;
+
+    public FlightReplay(Path dir) throws IOException {
+        this(new FlightLogReader(dir));
+    }
+
+    public FlightReplay(FlightLogReader reader) throws IOException {
+        if (reader.size() == 0) {
+            throw new IOException("Flight log is empty: " + reader.getDirectory());
+        }
+        this.reader = reader;
+        startTime = reader.getStartTime();
+        duration = reader.getEndTime() - startTime;
+    }
+
+    public FlightLogReader getReader() {
+        return reader;
+    }
+
+    // Length of the flight in ms
+    public long getDuration() {
+        return duration;
+    }
+
+    // Record currently shown, or -1 before the first seek
+    public long getPosition() {
+        return position;
+    }
+
+    // Moves to the last record at or before offset ms into the flight. The returned
+    // sample is reused; it is only decoded again when the record changes.
+    public Telemetry seek(long offsetMillis) {
+        long record = reader.indexOf(startTime + Math.max(0, offsetMillis));
+        if (record != position) {
+            reader.read(record, sample);
+            position = record;
+        }
+        return sample;
+    }
+
+    // Reads the first record with a position into out; false if none is found near the start
+    public boolean firstFix(Telemetry out) {
+        long limit = Math.min(reader.size(), FIX_SEARCH_LIMIT);
+        for (long i = 0; i < limit; i++) {
+            reader.read(i, out);
+            if (out.hasPosition()) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        reader.close();
+    }
+}
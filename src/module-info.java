@@ -3,11 +3,14 @@ module main {
     requires javafx.fxml;
     requires com.google.gson;
     requires com.fazecast.jSerialComm;
+    requires java.management;
 
     exports main;
     exports main.comm;
     exports main.gui;
+    exports main.metrics;
     exports main.path;
+    exports main.record;
 
     opens main.gui to javafx.graphics; // <-- This line fixes the error
 }
@@ -0,0 +1,123 @@
+package main.comm;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTelemetryDecoderTest {
+    private final List<Telemetry> received = new ArrayList<>();
+    private final BinaryTelemetryDecoder decoder = new BinaryTelemetryDecoder(t -> {
+        Telemetry copy = new Telemetry();
+        copy.copyFrom(t);
+        received.add(copy);
+    });
+
+    private static Telemetry sample(int i) {
+        Telemetry t = new Telemetry();
+        t.vehicleId = i % 3;
+        t.timeMillis = 1000L * i;
+        t.lat = 47.6 + i * 1e-5;
+        t.lon = -122.3 - i * 1e-5;
+        t.alt = 100 + i;
+        t.heading = i % 360;
+        t.roll = -5;
+        t.pitch = 2.5;
+        t.airspeed = 14;
+        return t;
+    }
+
+    // Frames for samples 0..count-1, back to back
+    private static byte[] frames(int count) {
+        ByteBuffer out = ByteBuffer.allocate(count * TelemetryFrame.MAX_FRAME);
+        for (int i = 0; i < count; i++) TelemetryFrame.writeTelemetry(out, sample(i));
+        byte[] bytes = new byte[out.position()];
+        out.flip().get(bytes);
+        return bytes;
+    }
+
+    private static int frameSize() {
+        return TelemetryFrame.HEADER_SIZE + TelemetryFrame.TELEMETRY_PAYLOAD + TelemetryFrame.CRC_SIZE;
+    }
+
+    private void assertSample(int i, Telemetry t) {
+        Telemetry expected = sample(i);
+        assertEquals(expected.vehicleId, t.vehicleId);
+        assertEquals(expected.timeMillis, t.timeMillis);
+        assertEquals(expected.lat, t.lat, 1e-7);
+        assertEquals(expected.lon, t.lon, 1e-7);
+        assertEquals(expected.alt, t.alt, 1e-4);
+        assertEquals(expected.heading, t.heading, 1e-4);
+        assertEquals(expected.roll, t.roll, 1e-4);
+        assertEquals(expected.pitch, t.pitch, 1e-4);
+        assertEquals(expected.airspeed, t.airspeed, 1e-4);
+    }
+
+    @Test
+    void roundTripsTelemetry() {
+        decoder.decode(ByteBuffer.wrap(frames(50)));
+        assertEquals(50, received.size());
+        for (int i = 0; i < 50; i++) assertSample(i, received.get(i));
+        assertEquals(50, decoder.getFrames());
+        assertEquals(0, decoder.getCrcErrors());
+        assertEquals(0, decoder.getDroppedBytes());
+    }
+
+    @Test
+    void reassemblesFramesSplitAcrossReads() {
+        byte[] bytes = frames(10);
+        for (byte b : bytes) decoder.decode(ByteBuffer.wrap(new byte[] {b}));
+        assertEquals(10, received.size());
+        for (int i = 0; i < 10; i++) assertSample(i, received.get(i));
+    }
+
+    @Test
+    void resyncsAfterACorruptFrame() {
+        byte[] bytes = frames(3);
+        // Flip a bit in the middle frame's payload
+        bytes[frameSize() + TelemetryFrame.HEADER_SIZE + 6] ^= 0x10;
+        decoder.decode(ByteBuffer.wrap(bytes));
+        assertEquals(2, received.size());
+        assertSample(0, received.get(0));
+        assertSample(2, received.get(1));
+        assertEquals(1, decoder.getCrcErrors());
+        assertEquals(frameSize(), decoder.getDroppedBytes());
+    }
+
+    @Test
+    void skipsGarbageBetweenFrames() {
+        byte[] bytes = frames(2);
+        byte[] garbage = {0x00, (byte) 0xA5, 0x13, (byte) 0xFF, (byte) 0xA5};
+        ByteBuffer in = ByteBuffer.allocate(bytes.length + garbage.length * 2);
+        in.put(garbage).put(bytes, 0, frameSize()).put(garbage).put(bytes, frameSize(), frameSize()).flip();
+        decoder.decode(in);
+        assertEquals(2, received.size());
+        assertSample(0, received.get(0));
+        assertSample(1, received.get(1));
+        assertEquals(garbage.length * 2, decoder.getDroppedBytes());
+    }
+
+    @Test
+    void waitsForTheRestOfAFrame() {
+        byte[] bytes = frames(1);
+        decoder.decode(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+        assertTrue(received.isEmpty());
+        decoder.decode(ByteBuffer.wrap(bytes, bytes.length - 1, 1));
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void passesOtherMessagesToTheFrameListener() {
+        List<Integer> ids = new ArrayList<>();
+        decoder.setFrameListener((messageId, vehicleId, frame, offset, length) -> ids.add(messageId));
+        ByteBuffer out = ByteBuffer.allocate(64);
+        MissionCodec.writeAck(out, 4, 7, 2);
+        TelemetryFrame.writeTelemetry(out, sample(1));
+        decoder.decode(out.flip());
+        assertEquals(List.of(TelemetryFrame.MSG_MISSION_ACK), ids);
+        assertEquals(1, received.size());
+    }
+}
@@ -0,0 +1,106 @@
+package main.comm;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTelemetryDecoderTest {
+    private final List<Telemetry> received = new ArrayList<>();
+    private final JsonTelemetryDecoder decoder = new JsonTelemetryDecoder(t -> {
+        Telemetry copy = new Telemetry();
+        copy.copyFrom(t);
+        received.add(copy);
+    });
+
+    private final List<JsonObject> raw = new ArrayList<>();
+
+    JsonTelemetryDecoderTest() {
+        decoder.setRawListener(raw::add);
+    }
+
+    private void feed(String text) {
+        decoder.decode(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String padded(int length) {
+        String prefix = "{\"lat\":1,\"lon\":2,\"note\":\"";
+        String suffix = "\"}";
+        return prefix + "x".repeat(length - prefix.length() - suffix.length()) + suffix;
+    }
+
+    @Test
+    void decodesALine() {
+        feed("{\"lat\":47.6,\"lon\":-122.3,\"alt\":120,\"heading\":90}\n");
+        assertEquals(1, received.size());
+        Telemetry t = received.get(0);
+        assertEquals(47.6, t.lat, 1e-12);
+        assertEquals(-122.3, t.lon, 1e-12);
+        assertEquals(120, t.alt, 1e-12);
+        assertEquals(90, t.heading, 1e-12);
+    }
+
+    @Test
+    void keepsALineOfExactlyTheLimit() {
+        feed(padded(JsonTelemetryDecoder.MAX_LINE) + "\n");
+        assertEquals(1, received.size());
+        assertEquals(0, decoder.getDiscardedLines());
+    }
+
+    @Test
+    void dropsAnOverlongLineAndResyncsAtTheNextNewline() {
+        feed(padded(JsonTelemetryDecoder.MAX_LINE + 1) + "\n");
+        assertTrue(received.isEmpty());
+        assertEquals(1, decoder.getDiscardedLines());
+        feed("{\"lat\":3,\"lon\":4}\n");
+        assertEquals(1, received.size());
+        assertEquals(3, received.get(0).lat, 0);
+    }
+
+    @Test
+    void dropsALineThatNeverEnds() {
+        // A stream with no newline must not grow the buffer or emit a spliced line
+        for (int i = 0; i < 100; i++) feed("{\"lat\":1,\"lon\":2}".repeat(50));
+        assertEquals(1, decoder.getDiscardedLines());
+        assertTrue(received.isEmpty());
+        feed("\n{\"lat\":5,\"lon\":6}\n");
+        assertEquals(1, received.size());
+        assertEquals(5, received.get(0).lat, 0);
+    }
+
+    @Test
+    void sendsAcksWithKnownKeysToTheRawListener() {
+        feed("{\"cmd\":\"ack\",\"id\":7,\"time\":1234}\n");
+        assertTrue(received.isEmpty());
+        assertEquals(1, raw.size());
+        assertEquals("ack", raw.get(0).get("cmd").getAsString());
+    }
+
+    @Test
+    void needsBothLatAndLon() {
+        feed("{\"lat\":47.6,\"alt\":120}\n");
+        assertTrue(received.isEmpty());
+        assertEquals(1, raw.size());
+    }
+
+    @Test
+    void acceptsTypedTelemetryWithoutAPosition() {
+        feed("{\"type\":\"telemetry\",\"alt\":120,\"heading\":90}\n");
+        assertEquals(1, received.size());
+        assertFalse(received.get(0).hasPosition());
+        assertEquals(120, received.get(0).alt, 0);
+        assertTrue(raw.isEmpty());
+    }
+
+    @Test
+    void sendsOtherTypesToTheRawListener() {
+        feed("{\"type\":\"status\",\"lat\":47.6,\"lon\":-122.3}\n");
+        assertTrue(received.isEmpty());
+        assertEquals(1, raw.size());
+    }
+}
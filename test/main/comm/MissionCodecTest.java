@@ -0,0 +1,121 @@
+package main.comm;
+
+import main.path.Waypoint;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MissionCodecTest {
+    // Feeds frames through the binary decoder and returns each chunk's points in arrival order
+    private static List<List<Waypoint>> decodeAll(List<byte[]> frames, int[] missionId) {
+        List<List<Waypoint>> chunks = new ArrayList<>();
+        BinaryTelemetryDecoder decoder = new BinaryTelemetryDecoder(t -> fail("not telemetry"));
+        decoder.setFrameListener((messageId, vehicleId, frame, offset, length) -> {
+            assertEquals(TelemetryFrame.MSG_MISSION_CHUNK, messageId);
+            missionId[0] = MissionCodec.chunkMission(frame, offset);
+            List<Waypoint> points = new ArrayList<>();
+            assertTrue(MissionCodec.decodePoints(frame, offset, length, points));
+            chunks.add(points);
+        });
+        for (byte[] frame : frames) decoder.decode(ByteBuffer.wrap(frame));
+        assertEquals(0, decoder.getCrcErrors());
+        return chunks;
+    }
+
+    private static void assertSamePoints(List<Waypoint> expected, List<Waypoint> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Waypoint e = expected.get(i), a = actual.get(i);
+            assertEquals(e.x, a.x, MissionCodec.QUANTUM / 2 + 1e-9, "x of point " + i);
+            assertEquals(e.y, a.y, MissionCodec.QUANTUM / 2 + 1e-9, "y of point " + i);
+            assertEquals(e.z, a.z, MissionCodec.QUANTUM / 2 + 1e-9, "z of point " + i);
+        }
+    }
+
+    @Test
+    void roundTripsAcrossChunks() {
+        Random random = new Random(1);
+        List<Waypoint> points = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            points.add(new Waypoint(random.nextDouble() * 300 - 150, random.nextDouble() * 300 - 150, random.nextDouble() * 300 - 150));
+        }
+        List<byte[]> frames = MissionCodec.encode(points, 4321, 7, MissionUploader.DEFAULT_CHUNK_PAYLOAD);
+        assertTrue(frames.size() > 1);
+        for (byte[] frame : frames) {
+            assertTrue(frame.length <= TelemetryFrame.HEADER_SIZE + MissionUploader.DEFAULT_CHUNK_PAYLOAD + TelemetryFrame.CRC_SIZE);
+        }
+        for (int seq = 0; seq < frames.size(); seq++) {
+            ByteBuffer frame = ByteBuffer.wrap(frames.get(seq)).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(seq, MissionCodec.chunkSequence(frame, TelemetryFrame.HEADER_SIZE));
+            assertEquals(frames.size(), MissionCodec.chunkCount(frame, TelemetryFrame.HEADER_SIZE));
+        }
+        int[] missionId = new int[1];
+        List<Waypoint> decoded = new ArrayList<>();
+        for (List<Waypoint> chunk : decodeAll(frames, missionId)) decoded.addAll(chunk);
+        assertEquals(4321, missionId[0]);
+        assertSamePoints(points, decoded);
+    }
+
+    @Test
+    void varintsCoverTheExtremes() {
+        // Sign changes, zero deltas and values that need the longest varints
+        List<Waypoint> points = List.of(
+                new Waypoint(0, 0, 0),
+                new Waypoint(0, 0, 0),
+                new Waypoint(-0.01, 0.01, -0.005),
+                new Waypoint(1e12, -1e12, 1e12),
+                new Waypoint(-1e12, 1e12, -1e12),
+                new Waypoint(0.63, -0.64, 0.65),
+                new Waypoint(81.92, -81.93, 163.84));
+        int[] missionId = new int[1];
+        List<Waypoint> decoded = new ArrayList<>();
+        for (List<Waypoint> chunk : decodeAll(MissionCodec.encode(points, 0xFFFF, 0, 37), missionId)) decoded.addAll(chunk);
+        assertEquals(0xFFFF, missionId[0]);
+        assertSamePoints(points, decoded);
+    }
+
+    @Test
+    void everyChunkDecodesOnItsOwn() {
+        List<Waypoint> points = new ArrayList<>();
+        for (int i = 0; i < 200; i++) points.add(new Waypoint(i * 1.5, -i * 0.25, Math.sin(i) * 40));
+        List<byte[]> frames = MissionCodec.encode(points, 1, 1, 64);
+        List<List<Waypoint>> chunks = decodeAll(frames, new int[1]);
+        // Drop a chunk: the others still give exactly their own points
+        int from = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            List<Waypoint> alone = decodeAll(List.of(frames.get(c)), new int[1]).get(0);
+            assertSamePoints(points.subList(from, from + alone.size()), alone);
+            from += alone.size();
+        }
+        assertEquals(points.size(), from);
+    }
+
+    @Test
+    void emptyMissionIsOneEmptyChunk() {
+        List<List<Waypoint>> chunks = decodeAll(MissionCodec.encode(List.of(), 2, 0, 64), new int[1]);
+        assertEquals(1, chunks.size());
+        assertTrue(chunks.get(0).isEmpty());
+    }
+
+    @Test
+    void truncatedPayloadIsRejected() {
+        byte[] frame = MissionCodec.encode(List.of(new Waypoint(1, 2, 3), new Waypoint(4, 5, 6)), 1, 0, 64).get(0);
+        ByteBuffer buf = ByteBuffer.wrap(frame).order(ByteOrder.LITTLE_ENDIAN);
+        int length = frame[2] & 0xFF;
+        List<Waypoint> out = new ArrayList<>();
+        assertFalse(MissionCodec.decodePoints(buf, TelemetryFrame.HEADER_SIZE, length - 1, out));
+        assertFalse(MissionCodec.decodePoints(buf, TelemetryFrame.HEADER_SIZE, MissionCodec.CHUNK_HEADER - 1, out));
+    }
+
+    @Test
+    void rejectsPayloadSizesThatCantHoldAPoint() {
+        assertThrows(IllegalArgumentException.class, () -> MissionCodec.encode(List.of(), 1, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> MissionCodec.encode(List.of(), 1, 0, TelemetryFrame.MAX_PAYLOAD + 1));
+    }
+}
@@ -0,0 +1,154 @@
+package main.comm;
+
+import main.path.Waypoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MissionUploaderTest {
+    // The vehicle end of the link: decodes the chunks the transmitter writes and acks
+    // them back through a decoder, the way SerialReceiver hands acks to the uploader
+    private static class Vehicle implements Transport {
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        volatile IntPredicate dropAck = sequence -> false;
+        private final BinaryTelemetryDecoder fromGround = new BinaryTelemetryDecoder(t -> {});
+        private final BinaryTelemetryDecoder toGround;
+        private final ByteBuffer ack = ByteBuffer.allocate(TelemetryFrame.MAX_FRAME).order(ByteOrder.LITTLE_ENDIAN);
+
+        Vehicle(FrameListener ground) {
+            toGround = new BinaryTelemetryDecoder(t -> {});
+            toGround.setFrameListener(ground);
+            fromGround.setFrameListener((messageId, vehicleId, frame, offset, length) -> {
+                if (messageId != TelemetryFrame.MSG_MISSION_CHUNK) return;
+                int sequence = MissionCodec.chunkSequence(frame, offset);
+                received.add(sequence);
+                if (dropAck.test(sequence)) return;
+                ack.clear();
+                MissionCodec.writeAck(ack, vehicleId, MissionCodec.chunkMission(frame, offset), sequence);
+                ack.flip();
+                toGround.decode(ack);
+            });
+        }
+
+        @Override
+        public String getName() {
+            return "vehicle";
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            return 0;
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            fromGround.decode(ByteBuffer.wrap(buffer, offset, length));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class Finished implements MissionUploader.UploadListener {
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        @Override
+        public void onProgress(int ackedChunks, int totalChunks) {
+        }
+
+        @Override
+        public void onFinished(boolean success) {
+            result.complete(success);
+        }
+    }
+
+    private SerialTransmitter transmitter;
+
+    @AfterEach
+    void closeLink() {
+        if (transmitter != null) transmitter.close();
+    }
+
+    private static List<Waypoint> mission(int points) {
+        Random random = new Random(3);
+        List<Waypoint> result = new ArrayList<>();
+        for (int i = 0; i < points; i++) {
+            result.add(new Waypoint(random.nextDouble() * 300 - 150, random.nextDouble() * 300 - 150, random.nextDouble() * 300 - 150));
+        }
+        return result;
+    }
+
+    @Test
+    void resendsAChunkWhoseAckWasLost() throws Exception {
+        MissionUploader uploader = new MissionUploader(null, 4, 50, 8);
+        Vehicle vehicle = new Vehicle(uploader);
+        transmitter = new SerialTransmitter(vehicle);
+        uploader.setTransmitter(transmitter);
+        boolean[] dropped = new boolean[1];
+        vehicle.dropAck = sequence -> {
+            if (sequence != 1 || dropped[0]) return false;
+            dropped[0] = true;
+            return true;
+        };
+
+        Finished finished = new Finished();
+        uploader.upload(mission(100), 1, finished);
+        assertTrue(finished.result.get(5, TimeUnit.SECONDS));
+        assertEquals(uploader.getChunkCount(), uploader.getAckedCount());
+        assertEquals(2, Collections.frequency(vehicle.received, 1));
+        assertFalse(uploader.isResumable());
+    }
+
+    @Test
+    void resumesFromTheFirstUnackedChunkAfterStalling() throws Exception {
+        MissionUploader uploader = new MissionUploader(null, 4, 30, 2);
+        Vehicle vehicle = new Vehicle(uploader);
+        transmitter = new SerialTransmitter(vehicle);
+        uploader.setTransmitter(transmitter);
+        // Chunk 2's acks never arrive, so it runs out of attempts
+        vehicle.dropAck = sequence -> sequence == 2;
+
+        Finished stalled = new Finished();
+        uploader.upload(mission(300), 1, stalled);
+        assertFalse(stalled.result.get(5, TimeUnit.SECONDS));
+        int chunks = uploader.getChunkCount();
+        assertTrue(chunks > 4, "mission should span more than the window");
+        assertTrue(uploader.isResumable());
+        // Only the stuck chunk holds a window slot, so every other chunk got through
+        assertEquals(chunks - 1, uploader.getAckedCount());
+        assertEquals(2, Collections.frequency(vehicle.received, 2));
+        for (int sequence = 0; sequence < chunks; sequence++) assertTrue(vehicle.received.contains(sequence));
+
+        vehicle.received.clear();
+        vehicle.dropAck = sequence -> false;
+        Finished resumed = new Finished();
+        assertTrue(uploader.resume(resumed));
+        assertTrue(resumed.result.get(5, TimeUnit.SECONDS));
+        assertEquals(chunks, uploader.getAckedCount());
+        // Only the chunk that was never acked goes out again
+        assertEquals(List.of(2), vehicle.received);
+        assertFalse(uploader.resume(new Finished()));
+    }
+}
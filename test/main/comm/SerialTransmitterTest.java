@@ -0,0 +1,84 @@
+package main.comm;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerialTransmitterTest {
+    // Collects what is written; fails the first `failures` writes
+    private static class FlakyTransport implements Transport {
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        volatile int failures;
+
+        @Override
+        public String getName() {
+            return "flaky";
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            return 0;
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+
+        @Override
+        public synchronized void write(byte[] buffer, int offset, int length) throws IOException {
+            if (failures > 0) {
+                failures--;
+                throw new IOException("link down");
+            }
+            written.write(buffer, offset, length);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        synchronized String text() {
+            return written.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] line(String text) {
+        return (text + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void keepsWritingAfterAFailedWrite() throws Exception {
+        FlakyTransport transport = new FlakyTransport();
+        transport.failures = 1;
+        SerialTransmitter transmitter = new SerialTransmitter(transport);
+        assertTrue(transmitter.enqueue(line("lost")));
+        long deadline = System.currentTimeMillis() + 2000;
+        while (transmitter.getFailedWrites() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(1);
+        assertEquals(1, transmitter.getFailedWrites());
+
+        assertTrue(transmitter.send(line("second"), 1, TimeUnit.SECONDS));
+        transmitter.close();
+        assertEquals("second\n", transport.text());
+    }
+
+    @Test
+    void closeWritesThePendingMove() {
+        FlakyTransport transport = new FlakyTransport();
+        SerialTransmitter transmitter = new SerialTransmitter(transport);
+        transmitter.sendControlCommand(0.1, 0.2, 0.3, 0.4);
+        transmitter.close();
+        assertTrue(transport.text().contains("\"cmd\":\"move\""), transport.text());
+        assertFalse(transmitter.enqueue(line("late")));
+    }
+}
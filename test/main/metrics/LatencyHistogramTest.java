@@ -0,0 +1,90 @@
+package main.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    private static void assertBucketHolds(long value) {
+        int bucket = LatencyHistogram.bucket(value);
+        long top = LatencyHistogram.upperBound(bucket);
+        assertTrue(top >= value, "bucket top " + top + " below " + value);
+        // Within 1/32 of the value, exact below 32
+        assertTrue(top - value <= value / 32, "bucket top " + top + " too far above " + value);
+        assertEquals(bucket, LatencyHistogram.bucket(top));
+    }
+
+    @Test
+    void bucketsHoldTheirValuesAtEveryPowerOfTwo() {
+        for (long v = 0; v < 100; v++) assertBucketHolds(v);
+        assertEquals(5, LatencyHistogram.upperBound(LatencyHistogram.bucket(5)));
+        Random random = new Random(1);
+        for (int exponent = 1; exponent < 63; exponent++) {
+            long power = 1L << exponent;
+            assertBucketHolds(power - 1);
+            assertBucketHolds(power);
+            assertBucketHolds(power + 1);
+            for (int i = 0; i < 100; i++) assertBucketHolds(power + (random.nextLong() >>> (64 - exponent)));
+        }
+        assertBucketHolds(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.bucket(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void bucketsAreContiguous() {
+        int last = LatencyHistogram.bucket(Long.MAX_VALUE);
+        for (int b = 0; b < last; b++) {
+            long top = LatencyHistogram.upperBound(b);
+            assertEquals(b, LatencyHistogram.bucket(top));
+            assertEquals(b + 1, LatencyHistogram.bucket(top + 1), "gap after bucket " + b);
+        }
+    }
+
+    @Test
+    void percentilesMatchExactOnesWithinABucket() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        Random random = new Random(2);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal around 1 ms, the shape of a typical latency distribution
+            values[i] = (long) (1_000_000 * Math.exp(random.nextGaussian()));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double p : new double[] {0.01, 0.25, 0.5, 0.9, 0.95, 0.99, 0.999, 1}) {
+            long exact = values[(int) Math.ceil(p * values.length) - 1];
+            long estimate = histogram.getPercentile(p);
+            assertTrue(estimate >= exact, "p" + p + ": " + estimate + " below " + exact);
+            assertTrue(estimate - exact <= exact / 32, "p" + p + ": " + estimate + " against " + exact);
+        }
+        assertEquals(values[values.length - 1], histogram.getPercentile(1));
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(values.length, histogram.getCount());
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (long v = 1; v <= 20; v++) histogram.record(v);
+        assertEquals(10, histogram.getPercentile(0.5));
+        assertEquals(19, histogram.getPercentile(0.95));
+        assertEquals(1, histogram.getPercentile(0));
+        assertEquals(10.5, histogram.getMean(), 1e-12);
+    }
+
+    @Test
+    void emptyAndResetReportZero() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        assertEquals(0, histogram.getPercentile(0.5));
+        histogram.record(-5);
+        histogram.record(1_000);
+        assertEquals(0, histogram.getPercentile(0.5));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0.99));
+        assertEquals(0, histogram.getMax());
+    }
+}
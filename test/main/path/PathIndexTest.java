@@ -0,0 +1,126 @@
+package main.path;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathIndexTest {
+    private final PathIndex index = new PathIndex();
+    private final PathIndex.Hit hit = new PathIndex.Hit();
+    private final PathIndex.Hit expected = new PathIndex.Hit();
+
+    // A figure-of-eight that climbs and comes back down, so the path passes near itself
+    private static PathSamples loop(int n) {
+        PathSamples s = new PathSamples();
+        for (int i = 0; i < n; i++) {
+            double a = 4 * Math.PI * i / (n - 1);
+            s.add(100 * Math.sin(a), 30 * Math.sin(a / 4), 60 * Math.sin(a) * Math.cos(a));
+        }
+        return s;
+    }
+
+    // Checks the tree against every segment for random points in and around the path's box
+    private void assertMatchesLinear(PathSamples samples, int queries, double spread, long seed) {
+        index.build(samples);
+        Random random = new Random(seed);
+        for (int q = 0; q < queries; q++) {
+            double px = (random.nextDouble() * 2 - 1) * spread;
+            double py = (random.nextDouble() * 2 - 1) * spread;
+            double pz = (random.nextDouble() * 2 - 1) * spread;
+            assertTrue(index.closest(px, py, pz, hit));
+            assertTrue(index.closestLinear(px, py, pz, expected));
+            assertEquals(expected.distance, hit.distance, 1e-9);
+            assertEquals(expected.along, hit.along, 1e-6);
+            // Equally close segments only happen where they share a point, so the two
+            // may name different segments but must find the same place on the path
+            if (hit.segment != expected.segment) {
+                assertEquals(expected.x, hit.x, 1e-6);
+                assertEquals(expected.y, hit.y, 1e-6);
+                assertEquals(expected.z, hit.z, 1e-6);
+            } else {
+                assertEquals(expected.t, hit.t, 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void matchesTheLinearScan() {
+        assertMatchesLinear(loop(4001), 5000, 150, 1);
+    }
+
+    @Test
+    void matchesTheLinearScanFarFromThePath() {
+        assertMatchesLinear(loop(4001), 500, 5000, 2);
+    }
+
+    @Test
+    void matchesTheLinearScanOnARandomWalk() {
+        Random random = new Random(7);
+        PathSamples walk = new PathSamples();
+        double x = 0, y = 0, z = 0;
+        for (int i = 0; i < 3000; i++) {
+            walk.add(x, y, z);
+            x += random.nextGaussian();
+            y += random.nextGaussian();
+            z += random.nextGaussian();
+        }
+        assertMatchesLinear(walk, 3000, 60, 3);
+    }
+
+    @Test
+    void handlesRepeatedPoints() {
+        PathSamples s = new PathSamples();
+        for (int i = 0; i < 50; i++) {
+            // Each point three times over, so two of every three segments have no length
+            for (int k = 0; k < 3; k++) s.add(i, i % 7, 0);
+        }
+        assertMatchesLinear(s, 1000, 60, 4);
+
+        PathSamples still = new PathSamples();
+        for (int i = 0; i < 100; i++) still.add(5, 6, 7);
+        index.build(still);
+        assertTrue(index.closest(5, 10, 7, hit));
+        assertEquals(4, hit.distance, 1e-12);
+        assertEquals(0, hit.along, 0);
+    }
+
+    @Test
+    void hasNoSegmentsBelowTwoSamples() {
+        PathSamples s = new PathSamples();
+        index.build(s);
+        assertTrue(index.isEmpty());
+        assertFalse(index.closest(0, 0, 0, hit));
+        assertFalse(index.closestLinear(0, 0, 0, hit));
+        s.add(1, 2, 3);
+        index.build(s);
+        assertTrue(index.isEmpty());
+        assertFalse(index.closest(0, 0, 0, hit));
+    }
+
+    @Test
+    void findsTheClosestPointOnASingleSegment() {
+        PathSamples s = new PathSamples();
+        s.add(0, 0, 0);
+        s.add(10, 0, 0);
+        index.build(s);
+        assertEquals(1, index.getSegmentCount());
+        assertTrue(index.closest(4, 3, 0, hit));
+        assertEquals(0, hit.segment);
+        assertEquals(0.4, hit.t, 1e-12);
+        assertEquals(3, hit.distance, 1e-12);
+        assertEquals(4, hit.along, 1e-12);
+        // Beyond the end the answer is the end itself
+        assertTrue(index.closest(14, 3, 0, hit));
+        assertEquals(1, hit.t, 0);
+        assertEquals(5, hit.distance, 1e-12);
+        assertEquals(10, hit.along, 1e-12);
+    }
+
+    @Test
+    void rebuildsForAShorterPath() {
+        assertMatchesLinear(loop(4001), 100, 150, 5);
+        assertMatchesLinear(loop(9), 500, 150, 6);
+    }
+}
@@ -0,0 +1,113 @@
+package main.path;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathSimplifierTest {
+    private final PathSimplifier simplifier = new PathSimplifier();
+
+    // A climbing helix with some wobble, sampled densely
+    private static PathSamples helix(int n) {
+        PathSamples s = new PathSamples();
+        for (int i = 0; i < n; i++) {
+            double a = i * 0.01;
+            s.add(80 * Math.cos(a) + Math.sin(a * 37), -i * 0.02, 80 * Math.sin(a));
+        }
+        return s;
+    }
+
+    private static double segmentDistance(PathSamples s, int i, PathSamples out, int a) {
+        double ax = out.x[a], ay = out.y[a], az = out.z[a];
+        double dx = out.x[a + 1] - ax, dy = out.y[a + 1] - ay, dz = out.z[a + 1] - az;
+        double px = s.x[i] - ax, py = s.y[i] - ay, pz = s.z[i] - az;
+        double length2 = dx * dx + dy * dy + dz * dz;
+        double t = length2 > 0 ? Math.max(0, Math.min(1, (px * dx + py * dy + pz * dz) / length2)) : 0;
+        double ex = px - t * dx, ey = py - t * dy, ez = pz - t * dz;
+        return Math.sqrt(ex * ex + ey * ey + ez * ez);
+    }
+
+    // Checks out is an ordered subset of in holding both ends, and returns the
+    // furthest any sample of in lies from the kept segment that spans it
+    private static double maxDeviation(PathSamples in, PathSamples out) {
+        assertEquals(in.x[0], out.x[0]);
+        assertEquals(in.x[in.size - 1], out.x[out.size - 1]);
+        assertEquals(in.z[in.size - 1], out.z[out.size - 1]);
+        double worst = 0;
+        int kept = 0;
+        for (int i = 0; i < in.size; i++) {
+            if (kept + 1 < out.size && in.x[i] == out.x[kept + 1] && in.y[i] == out.y[kept + 1] && in.z[i] == out.z[kept + 1]) {
+                kept++;
+            }
+            if (kept + 1 < out.size) worst = Math.max(worst, segmentDistance(in, i, out, kept));
+        }
+        assertEquals(out.size - 1, kept, "output is not an ordered subset of the input");
+        return worst;
+    }
+
+    @Test
+    void staysWithinTheTolerance() {
+        PathSamples in = helix(4000);
+        PathSamples out = new PathSamples();
+        for (double tolerance : new double[] {0.05, 0.5, 2}) {
+            int kept = simplifier.douglasPeucker(in, tolerance, out);
+            assertEquals(out.size, kept);
+            assertTrue(kept < in.size);
+            assertTrue(maxDeviation(in, out) <= tolerance, "tolerance " + tolerance);
+        }
+    }
+
+    @Test
+    void keepsFewerSamplesForALooserTolerance() {
+        PathSamples in = helix(4000);
+        PathSamples out = new PathSamples();
+        int tight = simplifier.douglasPeucker(in, 0.1, out);
+        int loose = simplifier.douglasPeucker(in, 1, out);
+        assertTrue(loose < tight);
+    }
+
+    @Test
+    void keepsABendOnlyAboveTheTolerance() {
+        PathSamples in = new PathSamples();
+        // Two straight legs meeting 0.6 off the line between the ends
+        for (int i = 0; i <= 100; i++) in.add(i, 0.6 * (1 - Math.abs(i - 50) / 50.0), 0);
+        PathSamples out = new PathSamples();
+        assertEquals(3, simplifier.douglasPeucker(in, 0.5, out));
+        assertEquals(50, out.x[1]);
+        assertEquals(2, simplifier.douglasPeucker(in, 0.7, out));
+    }
+
+    @Test
+    void reducesAStraightLineToItsEnds() {
+        PathSamples in = new PathSamples();
+        for (int i = 0; i < 1000; i++) in.add(i * 0.3, -i * 0.1, i * 0.2);
+        PathSamples out = new PathSamples();
+        assertEquals(2, simplifier.douglasPeucker(in, 1e-6, out));
+        assertEquals(2, simplifier.visvalingam(in, 2, out));
+        assertEquals(in.x[999], out.x[1]);
+    }
+
+    @Test
+    void copiesShortPaths() {
+        PathSamples in = new PathSamples();
+        PathSamples out = new PathSamples();
+        assertEquals(0, simplifier.douglasPeucker(in, 1, out));
+        in.add(1, 2, 3);
+        in.add(4, 5, 6);
+        assertEquals(2, simplifier.douglasPeucker(in, 1, out));
+        assertEquals(4, out.x[1]);
+        assertEquals(2, simplifier.visvalingam(in, 10, out));
+    }
+
+    @Test
+    void visvalingamMeetsThePointBudget() {
+        PathSamples in = helix(4000);
+        PathSamples out = new PathSamples();
+        for (int budget : new int[] {2, 3, 50, 400}) {
+            assertEquals(budget, simplifier.visvalingam(in, budget, out));
+            maxDeviation(in, out);
+        }
+        // A budget above the sample count keeps everything
+        assertEquals(in.size, simplifier.visvalingam(in, 5000, out));
+    }
+}
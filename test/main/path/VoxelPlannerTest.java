@@ -0,0 +1,131 @@
+package main.path;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VoxelPlannerTest {
+    private static final Waypoint START = new Waypoint(-100, 0, -120);
+    private static final Waypoint GOAL = new Waypoint(-100, 20, 120);
+
+    private static VoxelPlanner planner(List<Obstacle> obstacles, double clearance, double resolution) {
+        PlannerSettings settings = new PlannerSettings();
+        settings.resolution = resolution;
+        return new VoxelPlanner(new ObstacleMap(obstacles, 150, clearance), settings);
+    }
+
+    // A wall across the whole arena at z = 0 with one slot of the given width around x = 0
+    private static List<Obstacle> slotted(double width) {
+        List<Obstacle> obstacles = new ArrayList<>();
+        obstacles.add(new BoxObstacle(-150, -150, -5, -width / 2, 150, 5));
+        obstacles.add(new BoxObstacle(width / 2, -150, -5, 150, 150, 5));
+        return obstacles;
+    }
+
+    private static void assertClearRoute(VoxelPlanner planner, Waypoint start, Waypoint goal, List<Waypoint> route) {
+        assertNotNull(route);
+        assertTrue(route.size() >= 2);
+        Waypoint first = route.get(0), last = route.get(route.size() - 1);
+        assertEquals(start.x, first.x, 0);
+        assertEquals(start.y, first.y, 0);
+        assertEquals(start.z, first.z, 0);
+        assertEquals(goal.x, last.x, 0);
+        assertEquals(goal.y, last.y, 0);
+        assertEquals(goal.z, last.z, 0);
+        ObstacleMap map = planner.getMap();
+        for (int i = 0; i + 1 < route.size(); i++) {
+            Waypoint a = route.get(i), b = route.get(i + 1);
+            assertTrue(map.isSegmentClear(a.x, a.y, a.z, b.x, b.y, b.z, 0.05), "segment " + i + " is blocked");
+        }
+    }
+
+    @Test
+    void goesStraightWhenNothingIsInTheWay() throws InterruptedException {
+        VoxelPlanner planner = planner(new ArrayList<>(), 2, 1);
+        List<Waypoint> route = planner.plan(START, GOAL);
+        assertEquals(2, route.size());
+        assertEquals(0, planner.getExpanded());
+    }
+
+    @Test
+    void routesAroundAWall() throws InterruptedException {
+        List<Obstacle> obstacles = new ArrayList<>();
+        obstacles.add(new BoxObstacle(-150, -150, -5, 120, 150, 5));
+        VoxelPlanner planner = planner(obstacles, 2, 1);
+        List<Waypoint> route = planner.plan(START, GOAL);
+        assertClearRoute(planner, START, GOAL, route);
+        // The only way past is round the free end of the wall
+        assertTrue(route.stream().anyMatch(w -> w.x > 120));
+    }
+
+    @Test
+    void threadsANarrowSlot() throws InterruptedException {
+        // 6 m wide with 1 m clearance leaves a 4 m gap, narrower than the coarse voxels
+        VoxelPlanner planner = planner(slotted(6), 1, 0.3);
+        List<Waypoint> route = planner.plan(START, GOAL);
+        assertClearRoute(planner, START, GOAL, route);
+        assertTrue(planner.getExpanded() <= planner.getSettings().maxExpansions);
+    }
+
+    @Test
+    void returnsNullWhenTheGoalIsEnclosed() throws InterruptedException {
+        List<Obstacle> obstacles = new ArrayList<>();
+        // A hollow 40 m cube around the goal, walls 2 m thick
+        double cx = GOAL.x, cy = GOAL.y, cz = GOAL.z;
+        obstacles.add(BoxObstacle.centered(cx - 20, cy, cz, 2, 42, 42));
+        obstacles.add(BoxObstacle.centered(cx + 20, cy, cz, 2, 42, 42));
+        obstacles.add(BoxObstacle.centered(cx, cy - 20, cz, 42, 2, 42));
+        obstacles.add(BoxObstacle.centered(cx, cy + 20, cz, 42, 2, 42));
+        obstacles.add(BoxObstacle.centered(cx, cy, cz - 20, 42, 42, 2));
+        obstacles.add(BoxObstacle.centered(cx, cy, cz + 20, 42, 42, 2));
+        VoxelPlanner planner = planner(obstacles, 2, 1);
+        assertNull(planner.plan(START, GOAL));
+    }
+
+    @Test
+    void givesUpWithinTheExpansionBudgetWhenTheSlotIsTooNarrow() throws InterruptedException {
+        // 4.2 m less 2 m clearance on each side leaves no gap at all
+        VoxelPlanner planner = planner(slotted(4.2), 2, 0.3);
+        assertNull(planner.plan(START, GOAL));
+        assertTrue(planner.getExpanded() <= planner.getSettings().maxExpansions);
+    }
+
+    @Test
+    void plansTheSameAfterAnExhaustedSearch() throws InterruptedException {
+        List<Obstacle> obstacles = slotted(4.2);
+        obstacles.add(BoxObstacle.centered(0, 0, 60, 10, 10, 2));
+        Waypoint from = new Waypoint(0, 0, 40), to = new Waypoint(0, 0, 80);
+        List<Waypoint> fresh = planner(obstacles, 2, 0.3).plan(from, to);
+
+        // The failed leg leaves a large node table behind for the next searches to reuse
+        VoxelPlanner planner = planner(obstacles, 2, 0.3);
+        assertNull(planner.plan(START, GOAL));
+        for (int i = 0; i < 3; i++) {
+            List<Waypoint> route = planner.plan(from, to);
+            assertClearRoute(planner, from, to, route);
+            assertEquals(fresh.size(), route.size());
+            for (int j = 0; j < route.size(); j++) {
+                assertEquals(fresh.get(j).x, route.get(j).x, 0);
+                assertEquals(fresh.get(j).y, route.get(j).y, 0);
+                assertEquals(fresh.get(j).z, route.get(j).z, 0);
+            }
+        }
+    }
+
+    @Test
+    void givesUpWhenTheNodeBudgetRunsOut() throws InterruptedException {
+        VoxelPlanner planner = planner(slotted(6), 1, 0.3);
+        planner.getSettings().maxNodes = 1000;
+        assertNull(planner.plan(START, GOAL));
+    }
+
+    @Test
+    void rejectsAStartInsideAnObstacle() {
+        VoxelPlanner planner = planner(slotted(6), 1, 1);
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(new Waypoint(-50, 0, 0), GOAL));
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(START, new Waypoint(200, 0, 0)));
+    }
+}
@@ -0,0 +1,115 @@
+package main.record;
+
+import main.comm.Telemetry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightLogReaderTest {
+    // Not a divisor of INDEX_STRIDE, so segment and index boundaries fall apart
+    private static final int SEGMENT = 700;
+
+    @TempDir
+    Path dir;
+
+    // Three records share each received time, so equal times straddle both kinds of boundary
+    private static long received(long n) {
+        return 5000 + 10 * (n / 3);
+    }
+
+    private static void write(Path log, int records, int segmentRecords) throws IOException {
+        FlightLogWriter writer = new FlightLogWriter(log, segmentRecords, received(0));
+        Telemetry t = new Telemetry();
+        for (int i = 0; i < records; i++) {
+            t.vehicleId = i % 5;
+            t.timeMillis = i;
+            t.lat = 47 + i * 1e-6;
+            t.lon = -122 - i * 1e-6;
+            t.alt = i % 1000;
+            t.heading = i % 360;
+            t.roll = 1;
+            t.pitch = 2;
+            t.airspeed = 3;
+            writer.write(t, received(i));
+        }
+        writer.close();
+    }
+
+    private static void assertLog(Path log, int records, int segmentRecords) throws IOException {
+        List<Path> segments = FlightLog.segments(log);
+        int expectedSegments = Math.max(1, (records + segmentRecords - 1) / segmentRecords);
+        assertEquals(expectedSegments, segments.size());
+        // Full segments keep their size; the last is cut down to what it holds
+        for (int s = 0; s < segments.size(); s++) {
+            int held = s < segments.size() - 1 ? segmentRecords : records - s * segmentRecords;
+            assertEquals(FlightLog.HEADER_SIZE + (long) held * FlightLog.RECORD_SIZE, Files.size(segments.get(s)));
+        }
+
+        try (FlightLogReader reader = new FlightLogReader(log)) {
+            assertEquals(records, reader.size());
+            Telemetry t = new Telemetry();
+            for (int i = 0; i < records; i++) {
+                assertEquals(received(i), reader.read(i, t), "record " + i);
+                assertEquals(i, t.timeMillis);
+                assertEquals(i % 5, t.vehicleId);
+                assertEquals(47 + i * 1e-6, t.lat, 0);
+                assertEquals(-122 - i * 1e-6, t.lon, 0);
+                assertEquals(i % 1000, t.alt, 0);
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.read(records, t));
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.read(-1, t));
+            if (records == 0) {
+                assertEquals(0, reader.indexOf(received(0)));
+                return;
+            }
+            assertEquals(received(0), reader.getStartTime());
+            assertEquals(received(records - 1), reader.getEndTime());
+            // Every time from before the first record to after the last, against a scan
+            int expected = 0;
+            for (long time = received(0) - 20; time <= received(records - 1) + 20; time++) {
+                while (expected + 1 < records && received(expected + 1) <= time) expected++;
+                assertEquals(expected, reader.indexOf(time), "time " + time);
+            }
+        }
+    }
+
+    @Test
+    void readsAcrossSegments() throws IOException {
+        // Seven full segments and a last one of 100 records, over five index strides
+        write(dir, 7 * SEGMENT + 100, SEGMENT);
+        assertLog(dir, 7 * SEGMENT + 100, SEGMENT);
+    }
+
+    @Test
+    void readsWhenTheLastSegmentIsFull() throws IOException {
+        write(dir, 3 * SEGMENT, SEGMENT);
+        assertLog(dir, 3 * SEGMENT, SEGMENT);
+    }
+
+    @Test
+    void readsOneRecordIntoANewSegment() throws IOException {
+        write(dir, SEGMENT + 1, SEGMENT);
+        assertLog(dir, SEGMENT + 1, SEGMENT);
+    }
+
+    @Test
+    void readsASingleTruncatedSegment() throws IOException {
+        // The only segment is cut down, so the reader can't take the segment size from it
+        write(dir, 100, SEGMENT);
+        assertLog(dir, 100, SEGMENT);
+        write(dir.resolve("long"), FlightLog.INDEX_STRIDE * 2 + 3, 4096);
+        assertLog(dir.resolve("long"), FlightLog.INDEX_STRIDE * 2 + 3, 4096);
+    }
+
+    @Test
+    void readsAnEmptyLog() throws IOException {
+        write(dir, 0, SEGMENT);
+        assertLog(dir, 0, SEGMENT);
+    }
+}